@@ -1,77 +1,153 @@
 package tools;
 
 import cartago.*;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.google.gson.JsonArray;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 @ARTIFACT_INFO(outports = { @OUTPORT(name = "out-1") })
 public class LLMTool extends Artifact {
 
-    // API key is read at runtime from the OPENAI_API_KEY environment variable or system property.
-    private static final String OPENAI_URL = "https://api.openai.com/v1/chat/completions";
+    // The backend (OpenAI, a local OpenAI-compatible server or the scripted fake) and the model
+    // are chosen at runtime with -Dllm.backend=... / -Dllm.model=... (see LLMBackend).
+    private static final double TEMPERATURE = 0.7;
+
+    // Telemetri etiketleri: test edilen sınıf (analyzer setTelemetrySubject ile bildirir)
+    private String subject = "unknown";
 
     @OPERATION
     public void askChatGPT(String prompt, OpFeedbackParam<String> responseParam) {
+        ask(null, prompt, "general", CompletionDetector.forKind("none"), responseParam);
+    }
+
+    /**
+     * askChatGPT'nin amaç etiketli hali: purpose ("input", "batch_input", "semantic", ...)
+     * LLMTelemetry'de çağrının hangi iş için yapıldığını gösterir.
+     */
+    @OPERATION
+    public void askChatGPT(String prompt, String purpose, OpFeedbackParam<String> responseParam) {
+        ask(null, prompt, purpose, CompletionDetector.forKind("none"), responseParam);
+    }
+
+    /**
+     * askChatGPT'nin akışlı (SSE) hali: stopOn "json_array" veya "java_class" ise istenen parça
+     * tamamlandığı anda istek iptal edilir, modelin ardından yazdığı açıklama beklenmez.
+     */
+    @OPERATION
+    public void askChatGPTStreaming(String prompt, String stopOn, OpFeedbackParam<String> responseParam) {
+        ask(null, prompt, "general", CompletionDetector.forKind(stopOn), responseParam);
+    }
+
+    @OPERATION
+    public void askChatGPTStreaming(String prompt, String stopOn, String purpose, OpFeedbackParam<String> responseParam) {
+        ask(null, prompt, purpose, CompletionDetector.forKind(stopOn), responseParam);
+    }
+
+    /**
+     * Önek sabit prompt: context (sistem kuralları + kaynak kod gibi değişmeyen kısım) ayrı bir
+     * sistem mesajı olarak önce, değişken kısım (hedef yol, başarısız denemeler) kullanıcı mesajı
+     * olarak sonra gönderilir. Aynı denek için context bayt bayt aynı kaldığından sağlayıcı onu
+     * prompt önbelleğinden okur (indirimli fiyat, daha kısa ilk token süresi).
+     */
+    @OPERATION
+    public void askWithContext(String context, String prompt, String purpose, OpFeedbackParam<String> responseParam) {
+        ask(context, prompt, purpose, CompletionDetector.forKind("none"), responseParam);
+    }
+
+    @OPERATION
+    public void askWithContextStreaming(String context, String prompt, String stopOn, String purpose,
+                                        OpFeedbackParam<String> responseParam) {
+        ask(context, prompt, purpose, CompletionDetector.forKind(stopOn), responseParam);
+    }
+
+    /**
+     * Bundan sonraki çağrıların telemetride hangi deneğe (test edilen sınıf) yazılacağı
+     */
+    @OPERATION
+    public void setTelemetrySubject(String subjectName) {
+        subject = subjectName;
+    }
+
+    /**
+     * Orchestrator'ın bildirdiği kapsama kazancı: ilk kez kapsanan satır ve yol sayısı
+     * (satır/yol başına milisaniye, token ve maliyet bundan hesaplanır)
+     */
+    @OPERATION
+    public void recordCoverageProgress(int newLines, int newPaths) {
+        if (newLines > 0 || newPaths > 0) LLMTelemetry.shared().recordProgress(subject, newLines, newPaths);
+    }
+
+    /**
+     * Deneğin telemetri özeti (tek satır); dosyalar (log/llm-telemetry.json, .prom) zaten güncel
+     */
+    @OPERATION
+    public void telemetrySummary(OpFeedbackParam<String> summary) {
+        summary.set(LLMTelemetry.shared().summary(subject));
+    }
+
+    private void ask(String context, String prompt, String purpose, CompletionDetector detector,
+                     OpFeedbackParam<String> responseParam) {
         try {
-            // Check system property first (set via -DOPENAI_API_KEY=...), then env var
-            String apiKey = System.getProperty("OPENAI_API_KEY");
-            if (apiKey == null || apiKey.isBlank()) {
-                apiKey = System.getenv("OPENAI_API_KEY");
-            }
-            if (apiKey == null || apiKey.isBlank()) {
-                responseParam.set("ERROR: OPENAI_API_KEY is not set. Use env var or -DOPENAI_API_KEY=... JVM arg.");
+            LLMBackend backend = LLMBackends.shared();
+            String problem = backend.configurationError();
+            if (problem != null) {
+                responseParam.set("ERROR: " + problem);
                 return;
             }
             
+            JsonArray messages = new JsonArray();
+            if (context != null) {
+                JsonObject systemMessage = new JsonObject();
+                systemMessage.addProperty("role", "system");
+                systemMessage.addProperty("content", context);
+                messages.add(systemMessage);
+            }
             JsonObject userMessage = new JsonObject();
             userMessage.addProperty("role", "user");
             userMessage.addProperty("content", prompt);
-
-            JsonArray messages = new JsonArray();
             messages.add(userMessage);
 
-            JsonObject requestBody = new JsonObject();
-            requestBody.addProperty("model", "gpt-4o-mini");
-            requestBody.add("messages", messages);
-            requestBody.addProperty("temperature", 0.7);
-
-            String jsonBody = requestBody.toString();
-            // --------------------------
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(OPENAI_URL))
-                    .header("Content-Type", "application/json")
-                    .header("Authorization", "Bearer " + apiKey)
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8))
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                JsonObject jsonResponse = JsonParser.parseString(response.body()).getAsJsonObject();
-                JsonArray choices = jsonResponse.getAsJsonArray("choices");
-                String content = choices.get(0).getAsJsonObject()
-                                        .getAsJsonObject("message")
-                                        .get("content").getAsString();
-                
-                responseParam.set(content);
-            } else {
-                // Hata durumunda loga detaylı bilgi bas
-                System.out.println("API Hatası: " + response.body());
-                responseParam.set("Hata Kodu: " + response.statusCode());
-                failed("API Hatasi: " + response.statusCode());
-            }
+            // İstek asenkron gönderilir; await beklerken artifact'i serbest bırakır, böylece diğer ajanların
+            // istekleri de aynı anda yolda olabilir (cevaplar LLMResponseCache'ten de gelebilir)
+            LLMTelemetry.Call call = LLMTelemetry.shared().start(subject, getCurrentOpAgentId().getAgentName(), purpose, backend.model());
+            CompletableFuture<String> pending = call.track(LLMResponseCache.shared().completeAsync(backend.model(), TEMPERATURE, messages,
+                    () -> call.request(backend.stream(messages, TEMPERATURE, detector))));
+            PendingCompletion completion = new PendingCompletion(pending);
+            await(completion);
+            if (completion.error != null) throw completion.error;
+            responseParam.set(completion.content);
 
+        } catch (LLMHttp.StatusException e) {
+            // Hata durumunda loga detaylı bilgi bas
+            System.out.println("API Hatası: " + e.getBody());
+            responseParam.set("Hata Kodu: " + e.getStatusCode());
+            failed("API Hatasi: " + e.getStatusCode());
         } catch (Exception e) {
             e.printStackTrace();
             failed("Bağlantı Hatası: " + e.toString()); // e.getMessage() bazen null olabilir, e.toString() daha güvenlidir.
         }
     }
-}
\ No newline at end of file
+
+    // Artifact kilidi dışında, CArtAgO'nun kendi thread'inde cevabı bekler
+    private static final class PendingCompletion implements IBlockingCmd {
+        private final CompletableFuture<String> future;
+        String content;
+        Exception error;
+
+        PendingCompletion(CompletableFuture<String> future) {
+            this.future = future;
+        }
+
+        public void exec() {
+            try {
+                content = future.get();
+            } catch (ExecutionException e) {
+                error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = e;
+            }
+        }
+    }
+}
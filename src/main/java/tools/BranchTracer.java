@@ -0,0 +1,477 @@
+package tools;
+
+import org.objectweb.asm.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional concolic tracing layer next to JaCoCo.
+ *
+ * {@link #instrument} rewrites a compiled subject class with ASM so that every
+ * executed source line and every conditional jump reports to this class while
+ * one input runs. Jump sites are registered JVM-wide; a source is instrumented
+ * once (cached on its {@link SourceCache} entry) and its sites are dropped
+ * with {@link #release} when the entry is evicted. For jumps the concrete operands are recorded together with
+ * the outcome; long/float/double comparisons (LCMP, DCMPx, FCMPx) are routed
+ * through helpers that keep their operands for the jump that consumes them.
+ *
+ * {@link #findDivergence} then replays a logic path's conditions against the
+ * recorded line sequence and reports the first branch whose runtime outcome
+ * differs from what the path needs, with the values that were compared there.
+ */
+public final class BranchTracer {
+
+    private static final String OWNER = "tools/BranchTracer";
+    private static final int MAX_EVENTS = 200_000; // sonsuz döngüde belleği korur
+
+    private static final AtomicInteger NEXT_SITE = new AtomicInteger(1);
+    private static final Map<Integer, Site> SITES = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<double[]> PENDING = new ThreadLocal<>(); // son xCMP işlenenleri
+
+    private BranchTracer() {}
+
+    /** A conditional jump instruction in the instrumented code. */
+    static final class Site {
+        final int line;
+        final int opcode;
+
+        Site(int line, int opcode) {
+            this.line = line;
+            this.opcode = opcode;
+        }
+    }
+
+    /** An instrumented class file and the jump sites registered for it. */
+    public static final class Instrumented {
+        final byte[] bytes;
+        final List<Integer> sites;
+
+        Instrumented(byte[] bytes, List<Integer> sites) {
+            this.bytes = bytes;
+            this.sites = sites;
+        }
+
+        public byte[] getBytes() { return bytes; }
+    }
+
+    /** One recorded event: a line being entered or a jump being evaluated. */
+    public static final class Event {
+        final int line;
+        final boolean jump;
+        final int opcode;
+        final boolean taken;
+        final String left;
+        final String right;
+
+        Event(int line) {
+            this(line, false, 0, false, null, null);
+        }
+
+        Event(int line, boolean jump, int opcode, boolean taken, String left, String right) {
+            this.line = line;
+            this.jump = jump;
+            this.opcode = opcode;
+            this.taken = taken;
+            this.left = left;
+            this.right = right;
+        }
+
+        /** "3 >= 2 -> true" in bytecode terms (javac often inverts the source test). */
+        String describe() {
+            return left + " " + symbol(opcode) + " " + right + " -> " + taken;
+        }
+    }
+
+    /** Events of one run, in execution order. */
+    public static final class Trace {
+        final List<Event> events = new ArrayList<>();
+        boolean truncated;
+        Throwable thrown;
+
+        void add(Event e) {
+            if (events.size() >= MAX_EVENTS) {
+                truncated = true;
+                return;
+            }
+            events.add(e);
+        }
+
+        public List<Event> getEvents() { return events; }
+        public boolean isTruncated() { return truncated; }
+        public Throwable getThrown() { return thrown; }
+        public void setThrown(Throwable thrown) { this.thrown = thrown; }
+    }
+
+    /** Starts recording on the current thread. */
+    public static Trace begin() {
+        Trace trace = new Trace();
+        CURRENT.set(trace);
+        PENDING.remove();
+        return trace;
+    }
+
+    /** Stops recording on the current thread. */
+    public static void end() {
+        CURRENT.remove();
+        PENDING.remove();
+    }
+
+    // ── Callbacks used by instrumented code ─────────────────────────────────
+
+    public static void line(int line) {
+        Trace t = CURRENT.get();
+        if (t != null) t.add(new Event(line));
+    }
+
+    public static void cmpZero(int value, int site) {
+        Trace t = CURRENT.get();
+        if (t == null) return;
+        Site s = SITES.get(site);
+        double[] pending = PENDING.get();
+        PENDING.remove();
+        boolean taken = compareToZero(s.opcode, value);
+        if (pending != null) {
+            // xCMP sonucu: asıl karşılaştırılan değerleri göster
+            t.add(new Event(s.line, true, s.opcode, taken, format(pending[0]), format(pending[1])));
+        } else {
+            t.add(new Event(s.line, true, s.opcode, taken, String.valueOf(value), "0"));
+        }
+    }
+
+    public static void cmpInt(int left, int right, int site) {
+        Trace t = CURRENT.get();
+        if (t == null) return;
+        Site s = SITES.get(site);
+        t.add(new Event(s.line, true, s.opcode, compareInts(s.opcode, left, right),
+                String.valueOf(left), String.valueOf(right)));
+    }
+
+    public static void cmpRef(Object left, Object right, int site) {
+        Trace t = CURRENT.get();
+        if (t == null) return;
+        Site s = SITES.get(site);
+        boolean same = left == right;
+        t.add(new Event(s.line, true, s.opcode, s.opcode == Opcodes.IF_ACMPEQ ? same : !same,
+                describeRef(left), describeRef(right)));
+    }
+
+    public static void cmpNull(Object value, int site) {
+        Trace t = CURRENT.get();
+        if (t == null) return;
+        Site s = SITES.get(site);
+        boolean isNull = value == null;
+        t.add(new Event(s.line, true, s.opcode, s.opcode == Opcodes.IFNULL ? isNull : !isNull,
+                describeRef(value), "null"));
+    }
+
+    public static int lcmp(long a, long b) {
+        PENDING.set(new double[] { a, b });
+        return Long.compare(a, b);
+    }
+
+    public static int dcmpl(double a, double b) {
+        PENDING.set(new double[] { a, b });
+        return Double.isNaN(a) || Double.isNaN(b) ? -1 : a < b ? -1 : a == b ? 0 : 1;
+    }
+
+    public static int dcmpg(double a, double b) {
+        PENDING.set(new double[] { a, b });
+        return Double.isNaN(a) || Double.isNaN(b) ? 1 : a < b ? -1 : a == b ? 0 : 1;
+    }
+
+    public static int fcmpl(float a, float b) {
+        return dcmpl(a, b);
+    }
+
+    public static int fcmpg(float a, float b) {
+        return dcmpg(a, b);
+    }
+
+    // ── Instrumentation ─────────────────────────────────────────────────────
+
+    /** Instruments a class file; {@code loader} resolves types for frame computation. */
+    public static Instrumented instrument(byte[] classBytes, ClassLoader loader) {
+        List<Integer> sites = new ArrayList<>();
+        ClassReader reader = new ClassReader(classBytes);
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                try {
+                    return super.getCommonSuperClass(type1, type2);
+                } catch (RuntimeException | LinkageError e) {
+                    return "java/lang/Object";
+                }
+            }
+
+            @Override
+            protected ClassLoader getClassLoader() {
+                return loader;
+            }
+        };
+        reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new TracingMethodVisitor(super.visitMethod(access, name, descriptor, signature, exceptions), sites);
+            }
+        }, ClassReader.SKIP_FRAMES);
+        return new Instrumented(writer.toByteArray(), Collections.unmodifiableList(sites));
+    }
+
+    /** Unregisters the jump sites of an instrumented class that will not run again. */
+    static void release(Instrumented instrumented) {
+        for (int site : instrumented.sites) SITES.remove(site);
+    }
+
+    private static final class TracingMethodVisitor extends MethodVisitor {
+        private final List<Integer> sites;
+        private int currentLine = -1;
+
+        TracingMethodVisitor(MethodVisitor mv, List<Integer> sites) {
+            super(Opcodes.ASM9, mv);
+            this.sites = sites;
+        }
+
+        @Override
+        public void visitLineNumber(int line, Label start) {
+            super.visitLineNumber(line, start);
+            currentLine = line;
+            super.visitLdcInsn(line);
+            super.visitMethodInsn(Opcodes.INVOKESTATIC, OWNER, "line", "(I)V", false);
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            switch (opcode) {
+                case Opcodes.LCMP:  super.visitMethodInsn(Opcodes.INVOKESTATIC, OWNER, "lcmp", "(JJ)I", false); return;
+                case Opcodes.DCMPL: super.visitMethodInsn(Opcodes.INVOKESTATIC, OWNER, "dcmpl", "(DD)I", false); return;
+                case Opcodes.DCMPG: super.visitMethodInsn(Opcodes.INVOKESTATIC, OWNER, "dcmpg", "(DD)I", false); return;
+                case Opcodes.FCMPL: super.visitMethodInsn(Opcodes.INVOKESTATIC, OWNER, "fcmpl", "(FF)I", false); return;
+                case Opcodes.FCMPG: super.visitMethodInsn(Opcodes.INVOKESTATIC, OWNER, "fcmpg", "(FF)I", false); return;
+                default: super.visitInsn(opcode);
+            }
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            if (opcode != Opcodes.GOTO && opcode != Opcodes.JSR) {
+                int site = NEXT_SITE.getAndIncrement();
+                SITES.put(site, new Site(currentLine, opcode));
+                sites.add(site);
+                switch (opcode) {
+                    case Opcodes.IFEQ: case Opcodes.IFNE: case Opcodes.IFLT:
+                    case Opcodes.IFGE: case Opcodes.IFGT: case Opcodes.IFLE:
+                        super.visitInsn(Opcodes.DUP);
+                        super.visitLdcInsn(site);
+                        super.visitMethodInsn(Opcodes.INVOKESTATIC, OWNER, "cmpZero", "(II)V", false);
+                        break;
+                    case Opcodes.IF_ICMPEQ: case Opcodes.IF_ICMPNE: case Opcodes.IF_ICMPLT:
+                    case Opcodes.IF_ICMPGE: case Opcodes.IF_ICMPGT: case Opcodes.IF_ICMPLE:
+                        super.visitInsn(Opcodes.DUP2);
+                        super.visitLdcInsn(site);
+                        super.visitMethodInsn(Opcodes.INVOKESTATIC, OWNER, "cmpInt", "(III)V", false);
+                        break;
+                    case Opcodes.IF_ACMPEQ: case Opcodes.IF_ACMPNE:
+                        super.visitInsn(Opcodes.DUP2);
+                        super.visitLdcInsn(site);
+                        super.visitMethodInsn(Opcodes.INVOKESTATIC, OWNER, "cmpRef", "(Ljava/lang/Object;Ljava/lang/Object;I)V", false);
+                        break;
+                    case Opcodes.IFNULL: case Opcodes.IFNONNULL:
+                        super.visitInsn(Opcodes.DUP);
+                        super.visitLdcInsn(site);
+                        super.visitMethodInsn(Opcodes.INVOKESTATIC, OWNER, "cmpNull", "(Ljava/lang/Object;I)V", false);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            super.visitJumpInsn(opcode, label);
+        }
+    }
+
+    // ── Divergence against a logic path ─────────────────────────────────────
+
+    /**
+     * Replays the path's branch decisions on the recorded lines. A condition's
+     * runtime outcome is TRUE when the first line executed after leaving the
+     * condition's lines lies inside its then-block (or loop body). Returns
+     * empty when every condition went the way the path needs.
+     */
+    public static Optional<String> findDivergence(PathTree.LogicPath path, Trace trace) {
+        List<Event> events = trace.events;
+        int pos = 0;
+        for (PathTree.Node node : path.conditions()) {
+            com.github.javaparser.ast.expr.Expression condition = node.getCondition();
+            int[] condLines = lines(condition);
+            int[] body = bodyLines(condition);
+            // Satır bilgisi yoksa ya da gövde koşulla aynı satırdaysa satırlardan karar veremeyiz
+            if (condLines == null || body == null || body[0] <= condLines[1]) continue;
+
+            String source = "(" + condition + ")";
+            boolean needed = !node.isNegated();
+
+            // Döngü içindeki koşullar birden çok kez değerlendirilir: yolun istediği sonucu veren ilk değerlendirme yeterli
+            int firstAt = -1;
+            int firstNext = -1;
+            List<String> firstCompared = null;
+            int evaluations = 0;
+            int matchedNext = -1;
+            for (int from = pos; from >= 0 && from < events.size(); ) {
+                int at = -1;
+                for (int i = from; i < events.size(); i++) {
+                    Event e = events.get(i);
+                    if (!e.jump && within(e.line, condLines)) {
+                        at = i;
+                        break;
+                    }
+                }
+                if (at < 0) break;
+                evaluations++;
+
+                int next = -1;
+                List<String> compared = new ArrayList<>();
+                for (int i = at; i < events.size(); i++) {
+                    Event e = events.get(i);
+                    if (e.jump && within(e.line, condLines)) {
+                        compared.add(e.describe());
+                    } else if (!e.jump && !within(e.line, condLines)) {
+                        next = i;
+                        break;
+                    }
+                }
+                boolean actual = next >= 0 && within(events.get(next).line, body);
+                if (next >= 0 && actual == needed) {
+                    matchedNext = next;
+                    break;
+                }
+                if (firstAt < 0) {
+                    firstAt = at;
+                    firstNext = next;
+                    firstCompared = compared;
+                }
+                from = next;
+            }
+
+            if (matchedNext >= 0) {
+                pos = matchedNext;
+                continue;
+            }
+            if (firstAt < 0) {
+                return Optional.of("Branch at line " + condLines[0] + " " + source + " was never reached; "
+                        + describeEnd(events, pos, trace));
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append("First diverging branch at line ").append(condLines[0]).append(": ")
+              .append(source).append(" was ").append(needed ? "FALSE" : "TRUE")
+              .append(" at runtime but the path needs it ").append(needed ? "TRUE" : "FALSE");
+            if (evaluations > 1) sb.append(" (in all ").append(evaluations).append(" evaluations)");
+            if (!firstCompared.isEmpty()) {
+                sb.append("; bytecode comparisons: ").append(String.join(", ", firstCompared));
+            }
+            if (firstNext < 0) sb.append("; ").append(describeEnd(events, firstAt, trace));
+            return Optional.of(sb.toString());
+        }
+        return Optional.empty();
+    }
+
+    private static String describeEnd(List<Event> events, int from, Trace trace) {
+        int last = -1;
+        for (int i = events.size() - 1; i >= from && i >= 0; i--) {
+            if (!events.get(i).jump) {
+                last = events.get(i).line;
+                break;
+            }
+        }
+        StringBuilder sb = new StringBuilder("execution ");
+        if (trace.thrown != null) {
+            sb.append("threw ").append(trace.thrown.getClass().getSimpleName());
+            if (trace.thrown.getMessage() != null) sb.append(" (").append(trace.thrown.getMessage()).append(")");
+            sb.append(last > 0 ? " at line " + last : "");
+        } else if (trace.truncated) {
+            sb.append("was still running at line ").append(last).append(" (trace limit reached)");
+        } else {
+            sb.append("left the method after line ").append(last);
+        }
+        return sb.toString();
+    }
+
+    private static int[] lines(com.github.javaparser.ast.Node n) {
+        if (n == null || !n.getBegin().isPresent() || !n.getEnd().isPresent()) return null;
+        return new int[] { n.getBegin().get().line, n.getEnd().get().line };
+    }
+
+    /** Lines of the statements in the then-block / loop body the condition guards. */
+    private static int[] bodyLines(com.github.javaparser.ast.expr.Expression condition) {
+        Optional<com.github.javaparser.ast.Node> parent = condition.getParentNode();
+        if (!parent.isPresent()) return null;
+        com.github.javaparser.ast.Node p = parent.get();
+        com.github.javaparser.ast.stmt.Statement body;
+        if (p instanceof com.github.javaparser.ast.stmt.IfStmt) {
+            body = ((com.github.javaparser.ast.stmt.IfStmt) p).getThenStmt();
+        } else if (p instanceof com.github.javaparser.ast.stmt.WhileStmt) {
+            body = ((com.github.javaparser.ast.stmt.WhileStmt) p).getBody();
+        } else if (p instanceof com.github.javaparser.ast.stmt.ForStmt) {
+            body = ((com.github.javaparser.ast.stmt.ForStmt) p).getBody();
+        } else {
+            return null;
+        }
+        if (!body.isBlockStmt()) return lines(body);
+        // "{" ve "}" satırları komşu else/koşul satırlarıyla paylaşılır: yalnızca içteki ifadeler
+        com.github.javaparser.ast.NodeList<com.github.javaparser.ast.stmt.Statement> stmts = body.asBlockStmt().getStatements();
+        if (stmts.isEmpty()) return null;
+        int[] first = lines(stmts.getFirst().get());
+        int[] last = lines(stmts.getLast().get());
+        return first == null || last == null ? null : new int[] { first[0], last[1] };
+    }
+
+    private static boolean within(int line, int[] range) {
+        return line >= range[0] && line <= range[1];
+    }
+
+    // ── Helpers ─────────────────────────────────────────────────────────────
+
+    private static boolean compareToZero(int opcode, int v) {
+        switch (opcode) {
+            case Opcodes.IFEQ: return v == 0;
+            case Opcodes.IFNE: return v != 0;
+            case Opcodes.IFLT: return v < 0;
+            case Opcodes.IFGE: return v >= 0;
+            case Opcodes.IFGT: return v > 0;
+            default: return v <= 0;
+        }
+    }
+
+    private static boolean compareInts(int opcode, int a, int b) {
+        switch (opcode) {
+            case Opcodes.IF_ICMPEQ: return a == b;
+            case Opcodes.IF_ICMPNE: return a != b;
+            case Opcodes.IF_ICMPLT: return a < b;
+            case Opcodes.IF_ICMPGE: return a >= b;
+            case Opcodes.IF_ICMPGT: return a > b;
+            default: return a <= b;
+        }
+    }
+
+    private static String symbol(int opcode) {
+        switch (opcode) {
+            case Opcodes.IFEQ: case Opcodes.IF_ICMPEQ: case Opcodes.IF_ACMPEQ: case Opcodes.IFNULL: return "==";
+            case Opcodes.IFNE: case Opcodes.IF_ICMPNE: case Opcodes.IF_ACMPNE: case Opcodes.IFNONNULL: return "!=";
+            case Opcodes.IFLT: case Opcodes.IF_ICMPLT: return "<";
+            case Opcodes.IFGE: case Opcodes.IF_ICMPGE: return ">=";
+            case Opcodes.IFGT: case Opcodes.IF_ICMPGT: return ">";
+            default: return "<=";
+        }
+    }
+
+    private static String format(double v) {
+        return v == Math.rint(v) && !Double.isInfinite(v) ? String.valueOf((long) v) : String.valueOf(v);
+    }
+
+    private static String describeRef(Object o) {
+        if (o == null) return "null";
+        if (o instanceof String) return "\"" + o + "\"";
+        return o.getClass().getSimpleName();
+    }
+}
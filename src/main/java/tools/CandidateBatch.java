@@ -0,0 +1,102 @@
+package tools;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import java.util.*;
+
+/**
+ * A batch of candidate argument vectors stored column by column: one
+ * primitive column per numeric slot and one per reference slot of the
+ * method's {@link ExpressionCompiler.SlotLayout}.
+ *
+ * Screening runs conjunct by conjunct over the rows that are still alive, and
+ * for each conjunct copies only the columns it actually reads into a single
+ * reusable frame. A candidate is dropped as soon as an exact conjunct is
+ * false for it, so most of the batch never reaches the later conditions and
+ * nothing is compiled or allocated per candidate.
+ */
+public final class CandidateBatch {
+
+    private static final Gson GSON = new Gson();
+
+    private final ExpressionCompiler.SlotLayout layout;
+    private final List<String> inputs;
+    private final double[][] numColumns;   // [slot][row]
+    private final Object[][] refColumns;   // [slot][row]
+    private final BitSet bound = new BitSet(); // rows whose JSON matched the signature
+
+    private CandidateBatch(ExpressionCompiler.SlotLayout layout, List<String> inputs) {
+        this.layout = layout;
+        this.inputs = inputs;
+        this.numColumns = new double[layout.numCount()][inputs.size()];
+        this.refColumns = new Object[layout.refCount()][inputs.size()];
+    }
+
+    /** Parses every candidate once and scatters its values into the columns. */
+    public static CandidateBatch of(ExpressionCompiler.SlotLayout layout, List<String> inputs) {
+        CandidateBatch batch = new CandidateBatch(layout, new ArrayList<>(inputs));
+        int arity = layout.getParams().size();
+        for (int row = 0; row < inputs.size(); row++) {
+            JsonArray args;
+            try {
+                args = GSON.fromJson(inputs.get(row), JsonArray.class);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            // Runner zaten eksik/fazla argümanlı girdiyi atar; burada karar vermeyiz
+            if (args == null || args.size() != arity) continue;
+            ExpressionCompiler.Frame frame = layout.fromJson(args);
+            for (int slot = 0; slot < frame.nums.length; slot++) batch.numColumns[slot][row] = frame.nums[slot];
+            for (int slot = 0; slot < frame.refs.length; slot++) batch.refColumns[slot][row] = frame.refs[slot];
+            batch.bound.set(row);
+        }
+        return batch;
+    }
+
+    public int size() { return inputs.size(); }
+
+    public String input(int row) { return inputs.get(row); }
+
+    /**
+     * Rows that may still reach the path. Only exact, compiled conjuncts can
+     * reject a row; candidates that could not be bound are always kept.
+     */
+    public BitSet screen(PathConstraints constraints) {
+        BitSet alive = new BitSet(inputs.size());
+        alive.set(0, inputs.size());
+        ExpressionCompiler.Frame frame = layout.newFrame();
+
+        for (PathConstraints.Conjunct conjunct : constraints.getConjuncts()) {
+            if (!conjunct.isExact() || !conjunct.isCompiled()) continue;
+            int[][] columns = columnsRead(conjunct);
+            int[] nums = columns[0];
+            int[] refs = columns[1];
+
+            for (int row = bound.nextSetBit(0); row >= 0; row = bound.nextSetBit(row + 1)) {
+                if (!alive.get(row)) continue;
+                for (int slot : nums) frame.nums[slot] = numColumns[slot][row];
+                for (int slot : refs) frame.refs[slot] = refColumns[slot][row];
+                if (conjunct.evaluate(frame) == Boolean.FALSE) alive.clear(row);
+            }
+        }
+        return alive;
+    }
+
+    private int[][] columnsRead(PathConstraints.Conjunct conjunct) {
+        List<Integer> nums = new ArrayList<>();
+        List<Integer> refs = new ArrayList<>();
+        for (String var : conjunct.getVariables()) {
+            Integer num = layout.numSlot(var);
+            if (num != null) nums.add(num);
+            Integer ref = layout.refSlot(var);
+            if (ref != null) refs.add(ref);
+        }
+        return new int[][] { toArray(nums), toArray(refs) };
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] out = new int[values.size()];
+        for (int i = 0; i < out.length; i++) out[i] = values.get(i);
+        return out;
+    }
+}
@@ -0,0 +1,76 @@
+package tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Message list of a reflection loop, laid out for provider-side prompt caching.
+ *
+ * Every request starts with the same two messages: the system rules
+ * (identical for all subjects) and the subject block (the source under
+ * test). They are never rebuilt, so they form a byte-identical prefix that
+ * the provider serves from its prompt cache. After them come the exchanges
+ * so far (assistant answer + feedback). With a window, only the last
+ * {@code window} exchanges are kept and older turns are dropped instead of
+ * being resent on every step; this trades what the model remembers of
+ * earlier attempts for shorter prompts.
+ *
+ * Configuration (system property, then environment variable):
+ * {@code llm.historyWindow} / {@code LLM_HISTORY_WINDOW}: exchanges kept
+ * (default 0, the whole history), see {@link #configuredWindow()}.
+ */
+public final class ChatHistory {
+
+    private final String systemRules;
+    private final String subject;
+    private final int window;
+    private final Deque<JsonObject> turns = new ArrayDeque<>();
+
+    /** {@code window}: exchanges (assistant + user pairs) kept after the prefix; 0 or less keeps all. */
+    public ChatHistory(String systemRules, String subject, int window) {
+        this.systemRules = systemRules;
+        this.subject = subject;
+        this.window = window;
+    }
+
+    /** The window set by {@code llm.historyWindow} / {@code LLM_HISTORY_WINDOW}; 0 (whole history) when unset. */
+    public static int configuredWindow() {
+        return Config.getInt("llm.historyWindow", "LLM_HISTORY_WINDOW", 0);
+    }
+
+    public void addAssistant(String content) {
+        turns.addLast(message("assistant", content));
+        trim();
+    }
+
+    public void addUser(String content) {
+        turns.addLast(message("user", content));
+        trim();
+    }
+
+    /** The request: rules, subject, then the kept turns in order. */
+    public JsonArray messages() {
+        JsonArray messages = new JsonArray();
+        messages.add(message("system", systemRules));
+        messages.add(message("user", subject));
+        for (JsonObject turn : turns) messages.add(turn);
+        return messages;
+    }
+
+    private void trim() {
+        // Sohbet hep asistan cevabıyla başlamalı: en eski çift birlikte düşer
+        while (window > 0 && turns.size() > 2 * window) {
+            turns.removeFirst();
+            turns.removeFirst();
+        }
+    }
+
+    private static JsonObject message(String role, String content) {
+        JsonObject m = new JsonObject();
+        m.addProperty("role", role);
+        m.addProperty("content", content);
+        return m;
+    }
+}
@@ -0,0 +1,186 @@
+package tools;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Watches a streamed completion and reports when the part we asked for is
+ * complete, so the request can be cancelled instead of waiting for the
+ * explanation the model tends to add after it.
+ *
+ * Text is fed chunk by chunk and scanned once; string literals, character
+ * literals and comments are tracked so brackets inside them do not count.
+ * <ul>
+ *   <li>{@code json_array}: the first balanced {@code [...]} that parses as JSON</li>
+ *   <li>{@code java_class}: the body of the first {@code class}/{@code interface}/{@code enum}/{@code record} closed;
+ *       between the keyword and the opening brace only type-header characters may appear, otherwise the
+ *       keyword was prose ("the test class for it's ...") and the search goes on</li>
+ *   <li>{@code none}: never complete (read the whole stream)</li>
+ * </ul>
+ */
+public final class CompletionDetector {
+
+    private enum Kind { NONE, JSON_ARRAY, JAVA_CLASS }
+
+    private static final TypeAdapter<JsonElement> JSON = new Gson().getAdapter(JsonElement.class);
+
+    private final Kind kind;
+    private final StringBuilder text = new StringBuilder();
+    private int pos;            // sıradaki taranacak karakter
+    private int depth;
+    private int start = -1;     // JSON dizisinin '[' konumu
+    private boolean inString;
+    private boolean inChar;
+    private boolean escape;
+    private boolean lineComment;
+    private boolean blockComment;
+    private boolean sawTypeKeyword;
+    private boolean inBody;     // tip başlığından sonra gövdenin '{' karakteri görüldü
+    private int end = -1;
+
+    private CompletionDetector(Kind kind) {
+        this.kind = kind;
+    }
+
+    /** "json_array", "java_class" or "none" (case-insensitive). */
+    public static CompletionDetector forKind(String kind) {
+        switch (kind == null ? "none" : kind.trim().toLowerCase()) {
+            case "json_array": return new CompletionDetector(Kind.JSON_ARRAY);
+            case "java_class": return new CompletionDetector(Kind.JAVA_CLASS);
+            default: return new CompletionDetector(Kind.NONE);
+        }
+    }
+
+    public boolean isStreamingUseful() { return kind != Kind.NONE; }
+
+    /** Appends a chunk; true once the awaited part is complete. */
+    public boolean feed(CharSequence chunk) {
+        text.append(chunk);
+        if (end >= 0 || kind == Kind.NONE) return end >= 0;
+        if (kind == Kind.JSON_ARRAY) scanJson();
+        else scanJava();
+        return end >= 0;
+    }
+
+    public boolean isComplete() { return end >= 0; }
+
+    /** Everything received, cut right after the complete part if there is one. */
+    public String text() {
+        return end >= 0 ? text.substring(0, end) : text.toString();
+    }
+
+    private void scanJson() {
+        while (pos < text.length()) {
+            char c = text.charAt(pos++);
+            if (start < 0) {
+                if (c == '[') {
+                    start = pos - 1;
+                    depth = 1;
+                }
+                continue;
+            }
+            if (inString) {
+                if (escape) escape = false;
+                else if (c == '\\') escape = true;
+                else if (c == '"') inString = false;
+                continue;
+            }
+            if (c == '"') inString = true;
+            else if (c == '[' || c == '{') depth++;
+            else if (c == ']' || c == '}') {
+                if (--depth == 0) {
+                    if (parses(text.substring(start, pos))) {
+                        end = pos;
+                        return;
+                    }
+                    // "[note]" gibi düzyazı: bir sonraki '[' karakterinden yeniden dene
+                    pos = start + 1;
+                    start = -1;
+                }
+            }
+        }
+    }
+
+    private static boolean parses(String candidate) {
+        // JsonParser hoşgörülüdür ("[note]" geçerli sayılır); burada katı okuyucu gerekir
+        try (JsonReader reader = new JsonReader(new StringReader(candidate))) {
+            reader.setLenient(false);
+            return JSON.read(reader).isJsonArray() && reader.peek() == JsonToken.END_DOCUMENT;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void scanJava() {
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (!sawTypeKeyword) {
+                // Tip anahtar kelimesinden önceki düzyazıda (ör. "Here's the class:") literal takibi yapılmaz
+                pos++;
+                if (Character.isJavaIdentifierStart(c) && (pos == 1 || !Character.isJavaIdentifierPart(text.charAt(pos - 2)))) {
+                    int wordEnd = pos;
+                    while (wordEnd < text.length() && Character.isJavaIdentifierPart(text.charAt(wordEnd))) wordEnd++;
+                    if (wordEnd == text.length()) { pos--; return; } // kelime henüz bitmedi
+                    String word = text.substring(pos - 1, wordEnd);
+                    sawTypeKeyword = word.equals("class") || word.equals("interface")
+                            || word.equals("enum") || word.equals("record");
+                    pos = wordEnd;
+                }
+                continue;
+            }
+            if (!inBody) {
+                // Başlıkta (ad, extends/implements, tip parametreleri, record bileşenleri) literal takibi yapılmaz;
+                // başlıkta olamayacak bir karakter (kesme işareti, iki nokta, ```) anahtar kelimenin düzyazı olduğunu gösterir
+                pos++;
+                if (c == '{') {
+                    inBody = true;
+                    depth = 1;
+                } else if (!isHeaderChar(c)) {
+                    sawTypeKeyword = false;
+                }
+                continue;
+            }
+
+            // İki karakterlik belirteçler (//, /*, */) parça sınırına denk gelirse sonraki parçayı bekle
+            if (pos + 1 == text.length() && !inString && !inChar && (c == '/' || (blockComment && c == '*'))) return;
+            char next = pos + 1 < text.length() ? text.charAt(pos + 1) : 0;
+            pos++;
+            if (lineComment) {
+                if (c == '\n') lineComment = false;
+                continue;
+            }
+            if (blockComment) {
+                if (c == '*' && next == '/') {
+                    blockComment = false;
+                    pos++;
+                }
+                continue;
+            }
+            if (inString || inChar) {
+                if (escape) escape = false;
+                else if (c == '\\') escape = true;
+                else if (inString && c == '"') inString = false;
+                else if (inChar && c == '\'') inChar = false;
+                continue;
+            }
+            if (c == '/' && next == '/') { lineComment = true; pos++; continue; }
+            if (c == '/' && next == '*') { blockComment = true; pos++; continue; }
+            if (c == '"') { inString = true; continue; }
+            if (c == '\'') { inChar = true; continue; }
+            if (c == '{') depth++;
+            else if (c == '}' && depth > 0 && --depth == 0) {
+                end = pos;
+                return;
+            }
+        }
+    }
+
+    private static boolean isHeaderChar(char c) {
+        return Character.isJavaIdentifierPart(c) || Character.isWhitespace(c) || "<>,.?&@()[]".indexOf(c) >= 0;
+    }
+}
@@ -1,64 +1,98 @@
 package tools;
 
 import cartago.*;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import java.util.*;
-import java.util.regex.*;
 
 /**
  * MISS durumunda hangi koşulun FALSE olduğunu tespit eden Artifact
  * Path ve Input değerlerini analiz ederek detaylı sebep açıklaması üretir
- * (JavaScript engine gerektirmez, basit heuristic-based analiz)
+ * (JavaScript engine gerektirmez; koşullar ExpressionCompiler ile derlenip değerlendirilir)
  */
 public class ConditionEvaluatorArtifact extends Artifact {
     
     private Gson gson = new Gson();
     
+    // Aynı (yol, girdi) çifti için sebep bir kez hesaplanır: retry'lar ve tekrar eden LLM cevapları
+    private final ReasonCache reasonCache = new ReasonCache(512);
+    
     void init() {
         // Başlatma - herhangi bir dependency yok
     }
     
     /**
-     * Path ve Input'u analiz edip hangi koşulun FALSE olabileceğini açıklar
-     * Heuristic-based: Input değerlerini parse edip koşullara göre analiz yapar
+     * Path ve Input'u analiz edip hangi koşulun FALSE olduğunu açıklar
+     * Koşullar ve SUB_LOGIC değerleri yol başına bir kez derlenir (PathTree.LogicPath#constraints),
+     * burada sadece girdi bir değişken dizisine (Frame) bağlanıp değerlendirilir.
+     * Sonuç (yol ID, kanonik girdi) anahtarıyla önbelleğe alınır; aynı çift tekrar sorulursa hesaplanmaz
      * 
-     * @param pathStr Örnek: "22|PATH_TO_IF: !(diff > 0) [SUB_LOGIC: diff = (a + b) - (a * b)] && (product < 0) [SUB_LOGIC: product = a * b]"
+     * @param pathId Logic map'teki yol ID'si (koşul AST'leri + SUB_LOGIC bağları)
      * @param inputJson Örnek: "[-1, 1]"
      * @param failureReason OUT parametresi: Detaylı sebep mesajı
      */
     @OPERATION
-    void evaluateConditions(String pathStr, String inputJson, OpFeedbackParam<String> failureReason) {
+    void evaluateConditions(int pathId, String inputJson, OpFeedbackParam<String> failureReason) {
+        PathTree.LogicPath path = PathTree.lookup(pathId);
+        if (path == null) {
+            failureReason.set("Unknown path id: " + pathId);
+            return;
+        }
+        failureReason.set(reasonCache.get(pathId, inputJson, () -> explain(path, inputJson)));
+    }
+    
+    /**
+     * Sebep önbelleğinin durumu: isabet, ıskalama, eviction sayıları ve isabet oranı (0..1)
+     */
+    @OPERATION
+    void reasonCacheStats(OpFeedbackParam<Long> hits, OpFeedbackParam<Long> misses, OpFeedbackParam<Long> evictions, OpFeedbackParam<Double> hitRate) {
+        hits.set(reasonCache.getHits());
+        misses.set(reasonCache.getMisses());
+        evictions.set(reasonCache.getEvictions());
+        hitRate.set(reasonCache.hitRate());
+    }
+    
+    private String explain(PathTree.LogicPath path, String inputJson) {
         try {
-            // 1. Input değerlerini parse et
-            Map<String, Double> variables = parseInput(inputJson);
+            PathConstraints constraints = path.constraints();
+            List<PathConstraints.Conjunct> conjuncts = constraints.getConjuncts();
             
-            // 2. Path'ten koşulları çıkar
-            List<Condition> conditions = parseConditions(pathStr);
+            if (conjuncts.isEmpty()) {
+                return "Target Path Conditions: " + path.render();
+            }
             
-            if (conditions.isEmpty()) {
-                failureReason.set("Target Path Conditions: " + pathStr);
-                return;
+            // 1. Input değerlerini değişken dizisine bağla
+            ExpressionCompiler.Frame frame = bindInput(constraints.getLayout(), inputJson);
+            if (frame == null) {
+                return "Input parse error: " + inputJson + ". Target Path Conditions: " + path.render();
             }
             
-            // 3. Her koşulu analiz et ve açıklama üret
+            // 2. Her koşulu değerlendir ve açıklama üret (dıştan içe)
             StringBuilder reasonBuilder = new StringBuilder();
+            boolean firstFailureMarked = false;
             
-            for (int i = 0; i < conditions.size(); i++) {
-                Condition cond = conditions.get(i);
+            for (int i = 0; i < conjuncts.size(); i++) {
+                PathConstraints.Conjunct conjunct = conjuncts.get(i);
                 
-                // SUB_LOGIC varsa önce hesapla ve variables'a ekle
-                String calculationDetails = "";
-                if (cond.subLogic != null && !cond.subLogic.isEmpty()) {
-                    calculationDetails = calculateSubLogicWithDetails(cond.subLogic, variables);
-                }
+                // Koşulun okuduğu girdiler + SUB_LOGIC varsa hesaplanan değerleri göster
+                StringJoiner calculation = new StringJoiner("; ");
+                String inputs = describeInputs(conjunct, constraints.getLayout(), frame);
+                String subLogic = calculateSubLogicWithDetails(conjunct, frame);
+                if (!inputs.isEmpty()) calculation.add(inputs);
+                if (!subLogic.isEmpty()) calculation.add(subLogic);
+                String calculationDetails = calculation.toString();
                 
-                // Expanded condition oluştur (SUB_LOGIC'i yerine koyarak)
-                String expandedCondition = expandCondition(cond.mainCondition, cond.subLogic);
-                
-                // Ana koşulu analiz et
-                String analysis = analyzeCondition(expandedCondition, cond.mainCondition, calculationDetails, variables);
+                Boolean holds = conjunct.evaluate(frame);
+                String analysis = analyzeCondition(conjunct, calculationDetails, holds);
+                if (holds == Boolean.FALSE && !firstFailureMarked) {
+                    analysis += " <- FIRST FAILING CONDITION";
+                    firstFailureMarked = true;
+                }
                 
                 if (i > 0) {
                     reasonBuilder.append(" AND ");
@@ -66,205 +100,171 @@ public class ConditionEvaluatorArtifact extends Artifact {
                 reasonBuilder.append(analysis);
             }
             
-            failureReason.set(reasonBuilder.toString());
+            return reasonBuilder.toString();
             
         } catch (Exception e) {
-            failureReason.set("Condition analysis error: " + e.getMessage() + ". Path: " + pathStr);
+            return "Condition analysis error: " + e.getMessage() + ". Path: " + path.render();
         }
     }
     
     /**
-     * Input JSON'ı parse edip değişken map'i oluşturur
-     * Örnek: "[-1, 1]" → {a: -1.0, b: 1.0}
+     * Bir aday girdinin hedef yola girip girmeyeceğini testi çalıştırmadan tahmin eder.
+     * "reaches": tüm koşullar kesin ve TRUE; "misses": kesin bir koşul FALSE; aksi halde "unknown".
+     * Derlenmiş koşullar önbellekte olduğu için her aday için çağrılabilecek kadar ucuzdur.
      */
-    private Map<String, Double> parseInput(String inputJson) {
-        Map<String, Double> variables = new HashMap<>();
-        
-        try {
-            JsonArray arr = gson.fromJson(inputJson, JsonArray.class);
-            
-            // Basit parametre isimlendirmesi: a, b, c, d...
-            String[] paramNames = {"a", "b", "c", "d", "e", "f", "g", "h"};
-            
-            for (int i = 0; i < arr.size() && i < paramNames.length; i++) {
-                JsonElement elem = arr.get(i);
-                
-                if (elem.isJsonPrimitive() && elem.getAsJsonPrimitive().isNumber()) {
-                    variables.put(paramNames[i], elem.getAsDouble());
-                } else if (elem.isJsonArray()) {
-                    // Array için şimdilik skip (basit versiyonda)
-                    variables.put(paramNames[i], 0.0);
-                }
+    @OPERATION
+    void predictPath(int pathId, String inputJson, OpFeedbackParam<String> verdict) {
+        PathTree.LogicPath path = PathTree.lookup(pathId);
+        if (path == null) {
+            verdict.set("unknown");
+            return;
+        }
+        PathConstraints constraints = path.constraints();
+        ExpressionCompiler.Frame frame = bindInput(constraints.getLayout(), inputJson);
+        if (frame == null) {
+            verdict.set("unknown"); // okunamayan girdi için tahmin yapılamaz
+            return;
+        }
+        boolean allTrue = true;
+        for (PathConstraints.Conjunct conjunct : constraints.getConjuncts()) {
+            Boolean holds = conjunct.evaluate(frame);
+            if (holds == Boolean.FALSE && conjunct.isExact()) {
+                verdict.set("misses");
+                return;
             }
-            
-        } catch (Exception e) {
-            System.err.println("Input parse error: " + e.getMessage());
+            if (holds != Boolean.TRUE || !conjunct.isExact()) allTrue = false;
         }
-        
-        return variables;
+        verdict.set(allTrue ? "reaches" : "unknown");
     }
     
     /**
-     * Path string'inden koşulları parse eder
-     * Örnek: "!(diff > 0) [SUB_LOGIC: diff = (a + b) - (a * b)] && (product < 0) [SUB_LOGIC: product = a * b]"
-     * Sadece top-level && 'lere böler, parantez içindeki || aynı koşulun parçasıdır.
+     * Bir grup aday girdiyi tek seferde hedef yola karşı eler (sütun bazlı, bkz. CandidateBatch).
+     * Sadece kabul edilenler runTestAndMeasureCoverage'a gitmelidir; reddedilenler kesin bir
+     * koşulu sağlamadığı için çalıştırılsa da hedefe ulaşamaz.
+     * 
+     * @param pathId Hedef yol ID'si
+     * @param candidates Aday girdiler: ["[1, 2, 3]", "[0, 0, 0]", ...]
+     * @param accepted OUT: Yola ulaşabilecek adaylar (sıra korunur)
+     * @param rejected OUT: Kesin olarak ıskalayan adaylar
      */
-    private List<Condition> parseConditions(String pathStr) {
-        List<Condition> conditions = new ArrayList<>();
-
-        // "|" sonrası path description kısmını al
-        String[] parts = pathStr.split("\\|", 2);
-        if (parts.length < 2) {
-            return conditions;
+    @OPERATION
+    void screenCandidates(int pathId, Object[] candidates, OpFeedbackParam<Object[]> accepted, OpFeedbackParam<Object[]> rejected) {
+        List<String> inputs = new ArrayList<>();
+        for (Object c : candidates) {
+            inputs.add(c.toString());
         }
-
-        String conditionPart = parts[1];
-        // "PATH_TO_ELSE: " gibi prefix'leri temizle
-        conditionPart = conditionPart.replaceFirst("^[A-Z_]+:\\s*", "");
-
-        // Yalnızca top-level (parantez dışındaki) && ile böl
-        List<String> condStrings = splitOnTopLevelAnd(conditionPart);
-
-        for (String condStr : condStrings) {
-            Condition cond = new Condition();
-
-            // SUB_LOGIC var mı kontrol et
-            Pattern subLogicPattern = Pattern.compile("\\[SUB_LOGIC:([^\\]]+)\\]");
-            Matcher matcher = subLogicPattern.matcher(condStr);
-
-            if (matcher.find()) {
-                cond.subLogic = matcher.group(1).trim();
-                cond.mainCondition = condStr.substring(0, matcher.start()).trim();
-            } else {
-                cond.mainCondition = condStr.trim();
-            }
-
-            if (!cond.mainCondition.isEmpty()) {
-                conditions.add(cond);
-            }
+        PathTree.LogicPath path = PathTree.lookup(pathId);
+        if (path == null) {
+            // Bilinmeyen yol: eleme yapılamaz, hepsi çalıştırılır
+            accepted.set(inputs.toArray());
+            rejected.set(new Object[0]);
+            return;
         }
-
-        return conditions;
+        PathConstraints constraints = path.constraints();
+        CandidateBatch batch = CandidateBatch.of(constraints.getLayout(), inputs);
+        BitSet alive = batch.screen(constraints);
+        
+        List<Object> keep = new ArrayList<>();
+        List<Object> drop = new ArrayList<>();
+        for (int row = 0; row < batch.size(); row++) {
+            (alive.get(row) ? keep : drop).add(batch.input(row));
+        }
+        accepted.set(keep.toArray());
+        rejected.set(drop.toArray());
     }
-
+    
     /**
-     * Sadece parantez dışındaki (top-level) && operatörlerine göre böler.
-     * Parantez içindeki || ve && dokunulmaz kalır.
+     * Hedef yol için dal mesafesine dayalı yerel arama (AVM / hill climbing) ile girdi üretir.
+     * LLM'e yeniden sormadan önce denenir; bulamazsa "UNKNOWN" döner.
+     * 
+     * @param pathId Hedef yol ID'si
+     * @param seedJson Başlangıç noktası (genelde ıskalayan son girdi) ya da "none"
+     * @param inputJson OUT: Yolun tüm koşullarını sağlayan girdi veya "UNKNOWN"
      */
-    private List<String> splitOnTopLevelAnd(String input) {
-        List<String> result = new ArrayList<>();
-        int depth = 0;
-        int start = 0;
-
-        for (int i = 0; i < input.length(); i++) {
-            char c = input.charAt(i);
-            if (c == '(') depth++;
-            else if (c == ')') depth--;
-            else if (depth == 0 && input.startsWith("&&", i)) {
-                result.add(input.substring(start, i).trim());
-                i += 1; // skip second '&'
-                start = i + 1;
-            }
-        }
-
-        if (start < input.length()) {
-            result.add(input.substring(start).trim());
+    @OPERATION
+    void searchInput(int pathId, String seedJson, OpFeedbackParam<String> inputJson) {
+        PathTree.LogicPath path = PathTree.lookup(pathId);
+        if (path == null) {
+            inputJson.set(PathSearch.UNKNOWN);
+            return;
         }
-
-        return result;
+        inputJson.set(new PathSearch(path.constraints()).search(seedJson).orElse(PathSearch.UNKNOWN));
     }
     
     /**
-     * SUB_LOGIC ifadelerini hesaplar ve variables'a ekler
-     * Örnek: "diff = (a + b) - (a * b)" → variables.put("diff", hesaplanan_değer)
+     * Input JSON'ı metodun gerçek parametre isim ve tiplerine göre bağlar
+     * Örnek: calculateNetSalary(Employee emp), "[{\"baseSalary\": 100, \"department\": \"HR\"}]"
+     *        → emp = <object>, emp.baseSalary = 100.0, emp.department = "HR"
+     * JSON dizisi olarak okunamayan girdi için null döner; çağıran bunu sonucunda bildirir.
      */
-    private void calculateSubLogic(String subLogic, Map<String, Double> variables) {
+    private ExpressionCompiler.Frame bindInput(ExpressionCompiler.SlotLayout layout, String inputJson) {
         try {
-            // "diff = (a + b) - (a * b)" formatı
-            String[] parts = subLogic.split("=", 2);
-            if (parts.length == 2) {
-                String varName = parts[0].trim();
-                String expression = parts[1].trim();
-                
-                // Basit expression evaluation (a, b, +, -, *, / destekli)
-                double result = evaluateSimpleExpression(expression, variables);
-                variables.put(varName, result);
-            }
-        } catch (Exception e) {
-            System.err.println("SUB_LOGIC calculation error: " + e.getMessage());
+            JsonArray args = gson.fromJson(inputJson, JsonArray.class);
+            return args == null ? null : layout.fromJson(args);
+        } catch (RuntimeException e) {
+            return null;
         }
     }
     
     /**
-     * SUB_LOGIC'i hesaplar ve detaylı açıklama döner
-     * Örnek: "diff = (a + b) - (a * b)", {a:2, b:3} → "(2 + 3) - (2 * 3) = -1"
+     * Koşulun okuduğu girdi değerleri
+     * Örnek: "values.length = 3; emp.department = \"HR\""
      */
-    private String calculateSubLogicWithDetails(String subLogic, Map<String, Double> variables) {
-        try {
-            String[] parts = subLogic.split("=", 2);
-            if (parts.length == 2) {
-                String varName = parts[0].trim();
-                String expression = parts[1].trim();
-                
-                // Değişkenleri sayılarla değiştir (hesaplama gösterimi için)
-                String substituted = expression;
-                for (Map.Entry<String, Double> entry : variables.entrySet()) {
-                    String value = formatValue(entry.getValue());
-                    substituted = substituted.replaceAll("\\b" + entry.getKey() + "\\b", value);
-                }
-                
-                // Hesapla
-                double result = evaluateSimpleExpression(expression, variables);
-                variables.put(varName, result);
-                
-                return substituted + " = " + formatValue(result);
+    private String describeInputs(PathConstraints.Conjunct conjunct, ExpressionCompiler.SlotLayout layout,
+                                  ExpressionCompiler.Frame frame) {
+        StringJoiner values = new StringJoiner("; ");
+        for (String var : conjunct.getVariables()) {
+            values.add(var + " = " + layout.describe(var, frame));
+        }
+        // .length ve dizi elemanları doğrudan slot değil, yol kurulurken derlenmiş ifadeden okunur
+        for (Map.Entry<String, ExpressionCompiler.CompiledExpr> view : conjunct.getArrayViews().entrySet()) {
+            try {
+                values.add(view.getKey() + " = " + formatValue(view.getValue(), frame));
+            } catch (ExpressionCompiler.EvalException ex) {
+                // dizi null ya da indeks sınır dışı: gösterilmez
             }
-        } catch (Exception e) {
-            System.err.println("SUB_LOGIC calculation error: " + e.getMessage());
         }
-        return "";
+        return values.toString();
     }
     
     /**
-     * Koşulu genişletir: SUB_LOGIC ifadesini koşula dahil eder
-     * Örnek: "(diff > 0)", "diff = (a + b) - (a * b)" → "((a + b) - (a * b) > 0)"
+     * SUB_LOGIC bağlarını derlenmiş halleriyle hesaplar ve detaylı açıklama döner
+     * Örnek: {diff = a - b}, {a:2, b:3} → "diff = a - b = -1"
      */
-    private String expandCondition(String condition, String subLogic) {
-        if (subLogic == null || subLogic.isEmpty()) {
-            return condition;
-        }
-        
-        try {
-            String[] parts = subLogic.split("=", 2);
-            if (parts.length == 2) {
-                String varName = parts[0].trim();
-                String expression = parts[1].trim();
-                
-                // Koşulda değişkeni ifade ile değiştir
-                return condition.replaceAll("\\b" + varName + "\\b", expression);
+    private String calculateSubLogicWithDetails(PathConstraints.Conjunct conjunct, ExpressionCompiler.Frame frame) {
+        StringJoiner details = new StringJoiner("; ");
+        for (Map.Entry<String, Expression> binding : conjunct.getNode().getSubLogic().entrySet()) {
+            String varName = binding.getKey();
+            String expression = binding.getValue().toString();
+            if (varName.equals(expression)) continue; // "values.length = values.length" bilgi taşımaz
+            
+            ExpressionCompiler.CompiledExpr compiled = conjunct.getBindings().get(varName);
+            if (compiled == null) continue;
+            try {
+                details.add(varName + " = " + expression + " = " + formatValue(compiled, frame));
+            } catch (ExpressionCompiler.EvalException e) {
+                details.add(varName + " = " + expression + " -> " + e.getMessage());
             }
-        } catch (Exception e) {
-            // Hata durumunda orijinali döndür
         }
-        
-        return condition;
+        return details.toString();
     }
     
     /**
      * Koşulu analiz edip açıklama üretir
-     * NOT operatörünü normalize eder ve detaylı açıklama üretir
+     * NOT operatörünü AST üzerinde normalize eder ve koşulun şu anki değerini ekler
      * 
-     * @param expandedCondition SUB_LOGIC ile genişletilmiş koşul: "((a + b) - (a * b) > 0)"
-     * @param originalCondition Orijinal koşul: "(diff > 0)"
-     * @param calculationDetails Hesaplama detayı: "(2 + 3) - (2 * 3) = -1"
-     * @param variables Değişken değerleri
+     * @param conjunct Yolun bir koşulu (SUB_LOGIC ile genişletilmiş hali dahil)
+     * @param calculationDetails Hesaplama detayı: "diff = a - b = -1"
+     * @param holds Koşulun girdi için değeri (derlenemediyse null)
      */
-    private String analyzeCondition(String expandedCondition, String originalCondition, 
-                                   String calculationDetails, Map<String, Double> variables) {
+    private String analyzeCondition(PathConstraints.Conjunct conjunct, String calculationDetails, Boolean holds) {
         StringBuilder analysis = new StringBuilder();
         
         // NOT operatörünü normalize et
-        String normalizedCondition = normalizeNegation(expandedCondition);
+        Expression normalized = normalizeNegation(conjunct.getExpanded(), conjunct.getNode().isNegated());
+        String normalizedCondition = normalized != null
+            ? normalized.toString()
+            : "!(" + conjunct.getExpanded() + ")";
         
         analysis.append("Condition '").append(normalizedCondition).append("'");
         
@@ -273,209 +273,155 @@ public class ConditionEvaluatorArtifact extends Artifact {
             analysis.append(" [").append(calculationDetails).append("]");
         }
         
-        analysis.append(" - ");
-
-        // OR içeren compound koşulları önce kontrol et
-        if (normalizedCondition.contains("||")) {
-            analysis.append("At least one of the OR sub-conditions must be satisfied");
-        } else if (normalizedCondition.contains("< 0")) {
-            analysis.append("Negative value required (needs < 0)");
-        } else if (normalizedCondition.contains("> 0")) {
-            analysis.append("Positive value required (needs > 0)");
-        } else if (normalizedCondition.contains("== 0")) {
-            analysis.append("Zero value required (needs == 0)");
-        } else if (normalizedCondition.contains("<= 0")) {
-            analysis.append("Non-positive value required (needs <= 0)");
-        } else if (normalizedCondition.contains(">= 0")) {
-            analysis.append("Non-negative value required (needs >= 0)");
-        } else if (normalizedCondition.contains("<=")) {
-            analysis.append("Value must be less than or equal to threshold");
-        } else if (normalizedCondition.contains(">=")) {
-            analysis.append("Value must be greater than or equal to threshold");
-        } else if (normalizedCondition.contains("<")) {
-            analysis.append("Value must be less than threshold");
-        } else if (normalizedCondition.contains(">")) {
-            analysis.append("Value must be greater than threshold");
-        } else if (normalizedCondition.contains("!=")) {
-            analysis.append("Values must be different");
-        } else if (normalizedCondition.contains("==")) {
-            analysis.append("Values must be equal");
+        analysis.append(" - ").append(normalized != null
+            ? describeRequirement(normalized)
+            : describeNegatedRequirement(conjunct.getExpanded()));
+        
+        if (holds == null) {
+            analysis.append(" (could not evaluate: ").append(conjunct.getUnsupportedReason()).append(")");
         } else {
-            analysis.append("Condition must be satisfied");
+            analysis.append(" (currently ").append(holds ? "TRUE" : "FALSE").append(")");
         }
         
         return analysis.toString();
     }
     
     /**
-     * NOT operatörünü normalize eder
-     * !(x > 10) → x <= 10
-     * !(x < 0) → x >= 0
-     * !(x >= 5) → x < 5
-     * !(x <= 5) → x > 5
-     * !(x == 0) → x != 0
+     * Koşulun ne istediğini operatöre göre açıklar
      */
-    private String normalizeNegation(String condition) {
-        condition = condition.trim();
-        
-        // NOT operatörü yoksa direkt döndür
-        if (!condition.startsWith("!")) {
-            return condition;
+    private String describeRequirement(Expression condition) {
+        while (condition.isEnclosedExpr()) {
+            condition = condition.asEnclosedExpr().getInner();
         }
-        
-        // ! karakterini kaldır ve parantezleri temizle
-        String inner = condition.substring(1).trim();
-        if (inner.startsWith("(") && inner.endsWith(")")) {
-            inner = inner.substring(1, inner.length() - 1).trim();
+        if (condition.isMethodCallExpr()) {
+            return describeStringCall(condition.asMethodCallExpr(), true);
         }
-        
-        // Operatörleri ters çevir
-        if (inner.contains(">=")) {
-            return inner.replace(">=", "<");
-        } else if (inner.contains("<=")) {
-            return inner.replace("<=", ">");
-        } else if (inner.contains("==")) {
-            return inner.replace("==", "!=");
-        } else if (inner.contains("!=")) {
-            return inner.replace("!=", "==");
-        } else if (inner.contains(">")) {
-            return inner.replace(">", "<=");
-        } else if (inner.contains("<")) {
-            return inner.replace("<", ">=");
+        if (!condition.isBinaryExpr()) {
+            return "Condition must be satisfied";
         }
+        BinaryExpr binary = condition.asBinaryExpr();
+        boolean zero = binary.getRight().toString().equals("0");
+        boolean nullCheck = binary.getRight().isNullLiteralExpr() || binary.getLeft().isNullLiteralExpr();
         
-        // Tanınmayan format, orijinali döndür
-        return condition;
+        // OR içeren compound koşulları önce kontrol et
+        switch (binary.getOperator()) {
+            case OR:
+                return "At least one of the OR sub-conditions must be satisfied";
+            case AND:
+                return "All of the AND sub-conditions must be satisfied";
+            case LESS:
+                return zero ? "Negative value required (needs < 0)" : "Value must be less than threshold";
+            case GREATER:
+                return zero ? "Positive value required (needs > 0)" : "Value must be greater than threshold";
+            case LESS_EQUALS:
+                return zero ? "Non-positive value required (needs <= 0)" : "Value must be less than or equal to threshold";
+            case GREATER_EQUALS:
+                return zero ? "Non-negative value required (needs >= 0)" : "Value must be greater than or equal to threshold";
+            case EQUALS:
+                if (nullCheck) return "Value must be null";
+                return zero ? "Zero value required (needs == 0)" : "Values must be equal";
+            case NOT_EQUALS:
+                return nullCheck ? "Value must not be null" : "Values must be different";
+            default:
+                return "Condition must be satisfied";
+        }
     }
     
     /**
-     * Basit aritmetik expression'ı evaluate eder
-     * Sadece +, -, *, / ve parantez destekler
+     * Ters çevrilemeyen negatif koşullar: !(x || y), !(x && y), !flag
      */
-    private double evaluateSimpleExpression(String expr, Map<String, Double> variables) {
-        try {
-            // Değişkenleri değerleriyle değiştir
-            String processed = expr;
-            for (Map.Entry<String, Double> entry : variables.entrySet()) {
-                // Negatif değerleri parantez içine al
-                String value = entry.getValue() < 0 ? 
-                    "(" + String.valueOf(entry.getValue()) + ")" : 
-                    String.valueOf(entry.getValue());
-                processed = processed.replaceAll("\\b" + entry.getKey() + "\\b", value);
-            }
-            
-            // Basit evaluation (parantezleri de handle eder)
-            return evalArithmetic(processed);
-            
-        } catch (Exception e) {
-            System.err.println("Expression evaluation error: " + expr + " -> " + e.getMessage());
-            return 0.0;
+    private String describeNegatedRequirement(Expression condition) {
+        while (condition.isEnclosedExpr()) {
+            condition = condition.asEnclosedExpr().getInner();
+        }
+        if (condition.isMethodCallExpr()) {
+            return describeStringCall(condition.asMethodCallExpr(), false);
+        }
+        if (condition.isBinaryExpr() && condition.asBinaryExpr().getOperator() == BinaryExpr.Operator.OR) {
+            return "None of the OR sub-conditions may be satisfied";
+        }
+        if (condition.isBinaryExpr() && condition.asBinaryExpr().getOperator() == BinaryExpr.Operator.AND) {
+            return "At least one of the AND sub-conditions must be false";
         }
+        return "Condition must be false";
     }
     
     /**
-     * Basit aritmetik ifadeyi değerlendirir
+     * String metod koşulları: dept.equals("HR"), code.isEmpty(), name.startsWith("A")
      */
-    private double evalArithmetic(String expr) {
-        expr = expr.replaceAll("\\s+", "").trim();
-        if (expr.isEmpty()) {
-            return 0.0;
+    private String describeStringCall(MethodCallExpr call, boolean expected) {
+        String scope = call.getScope().map(Expression::toString).orElse("value");
+        String arg = call.getArguments().isEmpty() ? "" : call.getArgument(0).toString();
+        switch (call.getNameAsString()) {
+            case "equals":
+            case "equalsIgnoreCase":
+                return scope + (expected ? " must equal " : " must differ from ") + arg;
+            case "isEmpty":
+                return scope + (expected ? " must be an empty string" : " must not be empty");
+            case "startsWith":
+                return scope + (expected ? " must start with " : " must not start with ") + arg;
+            case "endsWith":
+                return scope + (expected ? " must end with " : " must not end with ") + arg;
+            case "contains":
+                return scope + (expected ? " must contain " : " must not contain ") + arg;
+            default:
+                return expected ? "Condition must be satisfied" : "Condition must be false";
         }
-        return evalAddSub(expr);
     }
     
-    private double evalAddSub(String expr) {
-        int lastOp = -1;
-        char op = 0;
-        int depth = 0;
-        
-        // Sağdan sola tara (öncelik sırası için)
-        for (int i = expr.length() - 1; i >= 0; i--) {
-            char c = expr.charAt(i);
-            if (c == ')') depth++;
-            else if (c == '(') depth--;
-            else if (depth == 0 && (c == '+' || (c == '-' && i > 0 && expr.charAt(i-1) != '(' && expr.charAt(i-1) != '*' && expr.charAt(i-1) != '/' && expr.charAt(i-1) != '+' && expr.charAt(i-1) != '-'))) {
-                lastOp = i;
-                op = c;
-                break;
-            }
+    /**
+     * NOT operatörünü normalize eder (ifadenin kopyası üzerinde)
+     * !(x > 10) → x <= 10
+     * !(x < 0) → x >= 0
+     * !(x >= 5) → x < 5
+     * !(x <= 5) → x > 5
+     * !(x == 0) → x != 0
+     * Negatif değilse "(c)" döner; ters çevrilemeyen negatif koşul için null
+     */
+    private Expression normalizeNegation(Expression condition, boolean negated) {
+        if (!negated) {
+            return new EnclosedExpr(condition.clone());
         }
         
-        if (lastOp != -1) {
-            double left = evalAddSub(expr.substring(0, lastOp));
-            double right = evalMulDiv(expr.substring(lastOp + 1));
-            return op == '+' ? left + right : left - right;
+        Expression inner = condition;
+        while (inner.isEnclosedExpr()) {
+            inner = inner.asEnclosedExpr().getInner();
         }
-        
-        return evalMulDiv(expr);
-    }
-    
-    private double evalMulDiv(String expr) {
-        int lastOp = -1;
-        char op = 0;
-        int depth = 0;
-        
-        for (int i = expr.length() - 1; i >= 0; i--) {
-            char c = expr.charAt(i);
-            if (c == ')') depth++;
-            else if (c == '(') depth--;
-            else if (depth == 0 && (c == '*' || c == '/')) {
-                lastOp = i;
-                op = c;
-                break;
-            }
+        if (!inner.isBinaryExpr()) {
+            return null;
         }
         
-        if (lastOp != -1) {
-            double left = evalMulDiv(expr.substring(0, lastOp));
-            double right = evalPrimary(expr.substring(lastOp + 1));
-            return op == '*' ? left * right : left / right;
+        // Operatörleri ters çevir
+        BinaryExpr copy = inner.asBinaryExpr().clone();
+        switch (copy.getOperator()) {
+            case GREATER_EQUALS: copy.setOperator(BinaryExpr.Operator.LESS); break;
+            case LESS_EQUALS: copy.setOperator(BinaryExpr.Operator.GREATER); break;
+            case EQUALS: copy.setOperator(BinaryExpr.Operator.NOT_EQUALS); break;
+            case NOT_EQUALS: copy.setOperator(BinaryExpr.Operator.EQUALS); break;
+            case GREATER: copy.setOperator(BinaryExpr.Operator.LESS_EQUALS); break;
+            case LESS: copy.setOperator(BinaryExpr.Operator.GREATER_EQUALS); break;
+            default:
+                // Tanınmayan format (&&, || ...)
+                return null;
         }
-        
-        return evalPrimary(expr);
+        return copy;
     }
     
-    private double evalPrimary(String expr) {
-        expr = expr.trim();
-        if (expr.isEmpty()) {
-            return 0.0;
-        }
-        
-        if (expr.startsWith("(") && expr.endsWith(")")) {
-            return evalAddSub(expr.substring(1, expr.length() - 1));
+    private String formatValue(ExpressionCompiler.CompiledExpr compiled, ExpressionCompiler.Frame frame) {
+        if (compiled.isBoolean()) {
+            return String.valueOf(compiled.test(frame));
         }
-        
-        // Negatif sayı kontrolü
-        if (expr.startsWith("-")) {
-            return -evalPrimary(expr.substring(1));
-        }
-        
-        try {
-            return Double.parseDouble(expr);
-        } catch (NumberFormatException e) {
-            // Array erişimleri ve değişken isimleri için sessizce 0 döndür
-            // (Örn: examScores[2, attendanceRates[i, i, length gibi)
-            // Bu değerler aslında runtime'da hesaplanıyor, burada sadece analiz yapıyoruz
-            if (expr.contains("[") || expr.matches("[a-zA-Z_][a-zA-Z0-9_]*")) {
-                return 0.0;  // Sessizce ignore et
-            }
-            System.err.println("Parse error: " + expr);
-            return 0.0;
+        if (compiled.isReference()) {
+            Object ref = compiled.ref(frame);
+            if (ref instanceof double[]) return Arrays.toString((double[]) ref);
+            if (ref instanceof Object[]) return Arrays.toString((Object[]) ref);
+            if (ref instanceof String) return "\"" + ref + "\"";
+            return String.valueOf(ref);
         }
-    }
-    
-    private String formatValue(double value) {
-        if (value == Math.floor(value)) {
-            return String.valueOf((int) value);
+        double value = compiled.num(frame);
+        if (value == Math.floor(value) && !Double.isInfinite(value)) {
+            return String.valueOf((long) value);
         }
         return String.valueOf(value);
     }
-    
-    /**
-     * Koşul bilgilerini tutan yardımcı sınıf
-     */
-    private static class Condition {
-        String mainCondition;  // Ana koşul: "(diff > 0)"
-        String subLogic;       // Alt mantık: "diff = (a + b) - (a * b)"
-    }
 }
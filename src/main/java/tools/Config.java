@@ -0,0 +1,28 @@
+package tools;
+
+/**
+ * Settings read from a system property first (-Dname=...), then from an
+ * environment variable. Shared by the LLM client, the backends and the
+ * static analysis, so none of them depends on another for its settings.
+ */
+final class Config {
+
+    private Config() {}
+
+    /** The trimmed value, or null when neither is set (or both are blank). */
+    static String get(String property, String env) {
+        String value = System.getProperty(property);
+        if (value == null || value.isBlank()) value = System.getenv(env);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /** The value as an int; {@code defaultValue} when unset or not a number. */
+    static int getInt(String property, String env, int defaultValue) {
+        String value = get(property, env);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package tools;
+
+import cartago.*;
+import java.util.*;
+
+/**
+ * Orchestrator'ın yol durumlarını (kapsanan, engellenen, hedeflenen) bit kümelerinde tutan Artifact.
+ *
+ * Eskiden her rapordan sonra tüm logic_path inançları isabet eden satırlar listesinde aranıyor
+ * (yol × satır), covered_path / blocked_path inançları .count / .findall ile tekrar tekrar
+ * taranıyordu. Burada her yol bir indekse, her hedef satır da o satırı hedefleyen yolların bit
+ * kümesine eşlenir; bir rapor tek işlemde (applyHits) isabet eden satırların kümeleri birleştirilerek
+ * işlenir.
+ *
+ * Gözlemlenebilir özellikler: total_paths(N), covered_paths(N), blocked_paths(N), remaining_paths(N)
+ * (remaining: ne kapsanmış ne engellenmiş yollar, hedeflenenler dahil).
+ *
+ * Sıradaki hedef (nextTarget) PathPrioritizer sıralamasının başıdır: beklenen yeni kapsama / maliyet,
+ * yol başına HIT/MISS geçmişiyle (recordTargetOutcome).
+ */
+public class CoverageStateArtifact extends Artifact {
+
+    private int[] pathIds;                                            // indeks -> yol ID
+    private final Map<Integer, Integer> indexOf = new HashMap<>();    // yol ID -> indeks
+    private final Map<Integer, BitSet> pathsByLine = new HashMap<>(); // hedef satır -> yollar
+    private final BitSet covered = new BitSet();
+    private final BitSet blocked = new BitSet();
+    private final BitSet infeasible = new BitSet();                   // statik olarak ulaşılamaz (blocked'ın alt kümesi)
+    private final BitSet inFlight = new BitSet();
+    private final BitSet hitLines = new BitSet();                     // şimdiye kadar çalışan satırlar
+    private final PathPrioritizer prioritizer = new PathPrioritizer();
+
+    /**
+     * @param logicMap extractLogicPaths çıktısı: [[HedefSatır, YolID, Tür, Durum], ...];
+     *                 Durum "infeasible" olan yollar baştan engellenir
+     */
+    void init(Object[] logicMap) {
+        pathIds = new int[logicMap.length];
+        for (int i = 0; i < logicMap.length; i++) {
+            Object[] entry = (Object[]) logicMap[i];
+            int line = ((Number) entry[0]).intValue();
+            pathIds[i] = ((Number) entry[1]).intValue();
+            indexOf.put(pathIds[i], i);
+            pathsByLine.computeIfAbsent(line, k -> new BitSet()).set(i);
+            if ("infeasible".equals(entry[3])) {
+                infeasible.set(i);
+                blocked.set(i);
+            }
+        }
+        defineObsProperty("total_paths", pathIds.length);
+        defineObsProperty("covered_paths", 0);
+        defineObsProperty("blocked_paths", blocked.cardinality());
+        defineObsProperty("remaining_paths", pathIds.length - blocked.cardinality());
+    }
+
+    /**
+     * Bir koşunun isabet eden satırlarını işler: hedef satırı isabet eden, henüz kapsanmamış yollar
+     * kapsanmış olur (hedeflenmişlerse hedeften de düşer). Miss limiti veya bütçe yüzünden
+     * engellenmiş bir yol sonradan isabet alırsa engeli kalkar ve kapsanmış sayılır; yalnızca
+     * statik olarak ulaşılamaz (infeasible) yollar hariç tutulur.
+     *
+     * @param hitLineNumbers Runner'ın HitLines listesi
+     * @param newlyCovered OUT: Bu koşuyla ilk kez kapsanan yol ID'leri
+     * @param newLines OUT: İlk kez çalışan satır sayısı (telemetri için)
+     */
+    @OPERATION
+    void applyHits(Object[] hitLineNumbers, OpFeedbackParam<Object[]> newlyCovered, OpFeedbackParam<Integer> newLines) {
+        BitSet reached = new BitSet();
+        int fresh = 0;
+        for (Object o : hitLineNumbers) {
+            if (!(o instanceof Number)) continue;
+            int line = ((Number) o).intValue();
+            if (line < 0) continue;
+            if (!hitLines.get(line)) {
+                hitLines.set(line);
+                fresh++;
+            }
+            BitSet paths = pathsByLine.get(line);
+            if (paths != null) reached.or(paths);
+        }
+        reached.andNot(covered);
+        reached.andNot(infeasible);
+        blocked.andNot(reached);
+        covered.or(reached);
+        inFlight.andNot(reached);
+
+        List<Object> ids = new ArrayList<>();
+        for (int i = reached.nextSetBit(0); i >= 0; i = reached.nextSetBit(i + 1)) ids.add(pathIds[i]);
+        newlyCovered.set(ids.toArray());
+        newLines.set(fresh);
+        updateCounts();
+    }
+
+    /**
+     * Yolu ulaşılamaz say (miss limiti veya reflection bütçesi tükendi)
+     */
+    @OPERATION
+    void blockPath(int pathId) {
+        Integer i = indexOf.get(pathId);
+        if (i == null || covered.get(i)) return;
+        blocked.set(i);
+        inFlight.clear(i);
+        updateCounts();
+    }
+
+    /**
+     * Ne kapsanmış ne engellenmiş yolların ID'leri (toplu ön getirme için)
+     */
+    @OPERATION
+    void remainingPaths(OpFeedbackParam<Object[]> paths) {
+        List<Object> ids = new ArrayList<>();
+        BitSet open = open();
+        for (int i = open.nextSetBit(0); i >= 0; i = open.nextSetBit(i + 1)) ids.add(pathIds[i]);
+        paths.set(ids.toArray());
+    }
+
+    /**
+     * Hedeflenmemiş açık yolları sıralar ve en iyisini hedeflenmiş olarak işaretleyip döndürür.
+     *
+     * @param pathId OUT: Seçilen yol ID'si, açık yol kalmadıysa "none"
+     * @param ranking OUT: En iyiden başlayarak [[YolID, Skor, Kazanç, Maliyet, İsabetŞansı], ...]
+     */
+    @OPERATION
+    void nextTarget(OpFeedbackParam<Object> pathId, OpFeedbackParam<Object[]> ranking) {
+        BitSet candidates = open();
+        candidates.andNot(inFlight);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) ids.add(pathIds[i]);
+
+        List<PathPrioritizer.Ranked> ranked = prioritizer.rank(ids, idsOf(covered), idsOf(blocked));
+        Object[] out = new Object[ranked.size()];
+        for (int i = 0; i < out.length; i++) {
+            PathPrioritizer.Ranked r = ranked.get(i);
+            out[i] = new Object[] { r.pathId, round(r.score), r.gain, round(r.cost), round(r.hitChance) };
+        }
+        ranking.set(out);
+        if (ranked.isEmpty()) {
+            pathId.set("none");
+            return;
+        }
+        inFlight.set(indexOf.get(ranked.get(0).pathId));
+        pathId.set(ranked.get(0).pathId);
+    }
+
+    /**
+     * Hedeflenen bir yolun raporu: hedef satıra ulaşıldı mı (HIT) ulaşılamadı mı (MISS).
+     * Sıralamadaki isabet şansı bu geçmişten hesaplanır.
+     */
+    @OPERATION
+    void recordTargetOutcome(int pathId, boolean hit) {
+        prioritizer.record(pathId, hit);
+    }
+
+    private BitSet open() {
+        BitSet open = new BitSet(pathIds.length);
+        open.set(0, pathIds.length);
+        open.andNot(covered);
+        open.andNot(blocked);
+        return open;
+    }
+
+    private Set<Integer> idsOf(BitSet bits) {
+        Set<Integer> ids = new HashSet<>();
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) ids.add(pathIds[i]);
+        return ids;
+    }
+
+    private void updateCounts() {
+        getObsProperty("covered_paths").updateValue(covered.cardinality());
+        getObsProperty("blocked_paths").updateValue(blocked.cardinality());
+        getObsProperty("remaining_paths").updateValue(pathIds.length - covered.cardinality() - blocked.cardinality());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
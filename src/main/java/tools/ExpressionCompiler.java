@@ -0,0 +1,953 @@
+package tools;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.type.Type;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.util.*;
+
+/**
+ * Compiles JavaParser condition expressions into closure trees that evaluate
+ * against a primitive variable frame (double[] for numbers/booleans, Object[]
+ * for strings, arrays and object presence).
+ *
+ * Supported: int/long/double arithmetic (incl. integer division and modulo),
+ * comparisons, boolean connectives, ternaries, casts, null checks, array
+ * indexing, .length, flattened object fields, common String methods and
+ * java.lang.Math helpers. Anything else fails at compile time with
+ * UnsupportedExpressionException so callers can fall back to the LLM.
+ */
+public final class ExpressionCompiler {
+
+    private ExpressionCompiler() { }
+
+    /** Value categories for method parameters and object fields. */
+    public enum ValueKind {
+        INTEGRAL, REAL, BOOLEAN, STRING,
+        INTEGRAL_ARRAY, REAL_ARRAY, BOOLEAN_ARRAY, STRING_ARRAY,
+        OBJECT;
+
+        public boolean isNumericSlot() {
+            return this == INTEGRAL || this == REAL || this == BOOLEAN;
+        }
+
+        static ValueKind of(Type type) {
+            String name = type.asString();
+            if (type.isArrayType()) {
+                if (type.asArrayType().getArrayLevel() > 1) return null;
+                ValueKind component = of(type.asArrayType().getComponentType());
+                if (component == null) return null;
+                switch (component) {
+                    case INTEGRAL: return INTEGRAL_ARRAY;
+                    case REAL: return REAL_ARRAY;
+                    case BOOLEAN: return BOOLEAN_ARRAY;
+                    case STRING: return STRING_ARRAY;
+                    default: return null;
+                }
+            }
+            switch (name) {
+                case "int": case "long": case "short": case "byte": case "char":
+                case "Integer": case "Long": case "Short": case "Byte": case "Character":
+                    return INTEGRAL;
+                case "double": case "float": case "Double": case "Float":
+                    return REAL;
+                case "boolean": case "Boolean":
+                    return BOOLEAN;
+                case "String":
+                    return STRING;
+                default:
+                    return OBJECT;
+            }
+        }
+    }
+
+    /** A method parameter (or an object field, flattened as "owner.field"). */
+    public static final class Param {
+        final String name;
+        final String typeName;
+        final ValueKind kind;
+        final List<Param> fields;
+
+        Param(String name, String typeName, ValueKind kind, List<Param> fields) {
+            this.name = name;
+            this.typeName = typeName;
+            this.kind = kind;
+            this.fields = fields;
+        }
+
+        public String getName() { return name; }
+        public String getTypeName() { return typeName; }
+        public ValueKind getKind() { return kind; }
+        public List<Param> getFields() { return fields; }
+    }
+
+    /** Marker stored in a reference slot for a non-null object parameter. */
+    static final Object PRESENT = new Object() {
+        @Override
+        public String toString() { return "<object>"; }
+    };
+
+    /**
+     * Maps variable paths ("a", "emp.baseSalary", "scores") to frame slots.
+     */
+    public static final class SlotLayout {
+        private final List<Param> params = new ArrayList<>();
+        private final Map<String, Integer> numIndex = new LinkedHashMap<>();
+        private final Map<String, Integer> refIndex = new LinkedHashMap<>();
+        private final Map<String, ValueKind> kinds = new HashMap<>();
+        private final Map<String, String> owners = new HashMap<>(); // "emp.baseSalary" -> "emp"
+
+        /** Builds the layout from the real parameter names and types of a method. */
+        public static SlotLayout forMethod(MethodDeclaration method) {
+            SlotLayout layout = new SlotLayout();
+            CompilationUnit cu = method.findCompilationUnit().orElse(null);
+            for (Parameter p : method.getParameters()) {
+                ValueKind kind = ValueKind.of(p.getType());
+                if (kind == null) kind = ValueKind.OBJECT;
+                List<Param> fields = Collections.emptyList();
+                if (kind == ValueKind.OBJECT && cu != null) {
+                    fields = publicFields(cu, p.getType().asString());
+                }
+                Param param = new Param(p.getNameAsString(), p.getType().asString(), kind, fields);
+                layout.add(param, null);
+            }
+            return layout;
+        }
+
+        private static List<Param> publicFields(CompilationUnit cu, String typeName) {
+            String simpleName = typeName.contains(".") ? typeName.substring(typeName.lastIndexOf('.') + 1) : typeName;
+            List<Param> fields = new ArrayList<>();
+            for (ClassOrInterfaceDeclaration decl : cu.findAll(ClassOrInterfaceDeclaration.class)) {
+                if (!decl.getNameAsString().equals(simpleName)) continue;
+                for (FieldDeclaration field : decl.getFields()) {
+                    if (field.isStatic()) continue;
+                    for (VariableDeclarator var : field.getVariables()) {
+                        ValueKind kind = ValueKind.of(var.getType());
+                        // İç içe nesneler düzleştirilmez, sadece ilk seviye alanlar
+                        if (kind == null || kind == ValueKind.OBJECT) continue;
+                        fields.add(new Param(var.getNameAsString(), var.getType().asString(), kind, Collections.emptyList()));
+                    }
+                }
+            }
+            return fields;
+        }
+
+        private void add(Param param, String owner) {
+            String path = owner == null ? param.name : owner + "." + param.name;
+            if (owner == null) params.add(param);
+            kinds.put(path, param.kind);
+            if (owner != null) owners.put(path, owner);
+            if (param.kind.isNumericSlot()) {
+                numIndex.put(path, numIndex.size());
+            } else {
+                refIndex.put(path, refIndex.size());
+            }
+            for (Param field : param.fields) {
+                add(field, path);
+            }
+        }
+
+        public List<Param> getParams() { return params; }
+        public int numCount() { return numIndex.size(); }
+        public int refCount() { return refIndex.size(); }
+        public Set<String> numPaths() { return numIndex.keySet(); }
+        public Set<String> refPaths() { return refIndex.keySet(); }
+        public Integer numSlot(String path) { return numIndex.get(path); }
+        public Integer refSlot(String path) { return refIndex.get(path); }
+        public ValueKind kindOf(String path) { return kinds.get(path); }
+        public String ownerOf(String path) { return owners.get(path); }
+
+        public Frame newFrame() {
+            return new Frame(new double[numIndex.size()], new Object[refIndex.size()]);
+        }
+
+        /**
+         * Renders a frame as the JSON argument vector the runner consumes,
+         * e.g. [3, 4.5, true, "SALES", [1, 2], {"baseSalary": 100.0}].
+         */
+        public String toJson(Frame frame) {
+            JsonArray args = new JsonArray();
+            for (Param p : params) {
+                args.add(valueToJson(p, p.name, frame));
+            }
+            return args.toString();
+        }
+
+        /**
+         * Binds a JSON argument vector (the runner's input format) to a frame
+         * by parameter position, using each parameter's declared type: numbers,
+         * booleans, chars, strings, one-dimensional arrays and objects with
+         * their public fields. Missing or mistyped values keep the frame
+         * default (0 / false / null).
+         */
+        public Frame fromJson(JsonArray args) {
+            Frame frame = newFrame();
+            for (int i = 0; i < params.size() && i < args.size(); i++) {
+                Param p = params.get(i);
+                bindJson(p, p.name, args.get(i), frame);
+            }
+            return frame;
+        }
+
+        private void bindJson(Param p, String path, JsonElement value, Frame frame) {
+            if (p.kind.isNumericSlot()) {
+                Double number = toNumber(p.kind, value);
+                if (number != null) frame.nums[numIndex.get(path)] = number;
+                return;
+            }
+            int slot = refIndex.get(path);
+            if (value == null || value.isJsonNull()) {
+                frame.refs[slot] = null;
+                return;
+            }
+            switch (p.kind) {
+                case STRING:
+                    if (value.isJsonPrimitive()) frame.refs[slot] = value.getAsString();
+                    break;
+                case INTEGRAL_ARRAY:
+                case REAL_ARRAY:
+                case BOOLEAN_ARRAY: {
+                    if (!value.isJsonArray()) break;
+                    ValueKind component = p.kind == ValueKind.INTEGRAL_ARRAY ? ValueKind.INTEGRAL
+                            : p.kind == ValueKind.BOOLEAN_ARRAY ? ValueKind.BOOLEAN : ValueKind.REAL;
+                    JsonArray arr = value.getAsJsonArray();
+                    double[] values = new double[arr.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        Double d = toNumber(component, arr.get(i));
+                        values[i] = d == null ? 0 : d;
+                    }
+                    frame.refs[slot] = values;
+                    break;
+                }
+                case STRING_ARRAY: {
+                    if (!value.isJsonArray()) break;
+                    JsonArray arr = value.getAsJsonArray();
+                    String[] values = new String[arr.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = arr.get(i).isJsonNull() ? null : arr.get(i).getAsString();
+                    }
+                    frame.refs[slot] = values;
+                    break;
+                }
+                case OBJECT: {
+                    if (!value.isJsonObject()) break;
+                    frame.refs[slot] = PRESENT;
+                    JsonObject obj = value.getAsJsonObject();
+                    for (Param field : p.fields) {
+                        if (obj.has(field.name)) bindJson(field, path + "." + field.name, obj.get(field.name), frame);
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+
+        private static Double toNumber(ValueKind kind, JsonElement value) {
+            if (value == null || !value.isJsonPrimitive()) return null;
+            JsonPrimitive prim = value.getAsJsonPrimitive();
+            if (prim.isBoolean()) return prim.getAsBoolean() ? 1.0 : 0.0;
+            if (prim.isNumber()) {
+                double d = prim.getAsDouble();
+                return kind == ValueKind.INTEGRAL ? (double) (long) d : d;
+            }
+            String text = prim.getAsString();
+            // char parametreleri "A" olarak gelir
+            if (kind == ValueKind.INTEGRAL && text.length() == 1) return (double) text.charAt(0);
+            if (kind == ValueKind.BOOLEAN) return Boolean.parseBoolean(text) ? 1.0 : 0.0;
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /** Human-readable value of one variable path in a frame, e.g. "[1, 2]" or "\"SALES\"". */
+        public String describe(String path, Frame frame) {
+            ValueKind kind = kinds.get(path);
+            if (kind == null) return "?";
+            String owner = owners.get(path);
+            if (owner != null && frame.refs[refIndex.get(owner)] == null) return "<" + owner + " is null>";
+            if (kind.isNumericSlot()) {
+                double v = frame.nums[numIndex.get(path)];
+                if (kind == ValueKind.BOOLEAN) return String.valueOf(v != 0);
+                if (kind == ValueKind.INTEGRAL) return String.valueOf((long) v);
+                return String.valueOf(v);
+            }
+            Object ref = frame.refs[refIndex.get(path)];
+            if (ref == null) return "null";
+            if (ref instanceof String) return "\"" + ref + "\"";
+            if (ref instanceof String[]) return Arrays.toString((String[]) ref);
+            if (ref instanceof double[]) {
+                StringJoiner joiner = new StringJoiner(", ", "[", "]");
+                for (double v : (double[]) ref) {
+                    if (kind == ValueKind.BOOLEAN_ARRAY) joiner.add(String.valueOf(v != 0));
+                    else if (kind == ValueKind.INTEGRAL_ARRAY) joiner.add(String.valueOf((long) v));
+                    else joiner.add(String.valueOf(v));
+                }
+                return joiner.toString();
+            }
+            return ref.toString();
+        }
+
+        private JsonElement valueToJson(Param p, String path, Frame frame) {
+            switch (p.kind) {
+                case INTEGRAL:
+                    return new JsonPrimitive((long) frame.nums[numIndex.get(path)]);
+                case REAL:
+                    return new JsonPrimitive(frame.nums[numIndex.get(path)]);
+                case BOOLEAN:
+                    return new JsonPrimitive(frame.nums[numIndex.get(path)] != 0);
+                default:
+                    break;
+            }
+            Object ref = frame.refs[refIndex.get(path)];
+            if (ref == null) return JsonNull.INSTANCE;
+            switch (p.kind) {
+                case STRING:
+                    return new JsonPrimitive((String) ref);
+                case INTEGRAL_ARRAY:
+                case REAL_ARRAY:
+                case BOOLEAN_ARRAY: {
+                    JsonArray arr = new JsonArray();
+                    for (double v : (double[]) ref) {
+                        if (p.kind == ValueKind.INTEGRAL_ARRAY) arr.add((long) v);
+                        else if (p.kind == ValueKind.BOOLEAN_ARRAY) arr.add(v != 0);
+                        else arr.add(v);
+                    }
+                    return arr;
+                }
+                case STRING_ARRAY: {
+                    JsonArray arr = new JsonArray();
+                    for (String s : (String[]) ref) arr.add(s);
+                    return arr;
+                }
+                case OBJECT: {
+                    JsonObject obj = new JsonObject();
+                    for (Param field : p.fields) {
+                        obj.add(field.name, valueToJson(field, path + "." + field.name, frame));
+                    }
+                    return obj;
+                }
+                default:
+                    return JsonNull.INSTANCE;
+            }
+        }
+    }
+
+    /** Evaluation frame: one primitive array for numeric slots, one for references. */
+    public static final class Frame {
+        public final double[] nums;
+        public final Object[] refs;
+
+        public Frame(double[] nums, Object[] refs) {
+            this.nums = nums;
+            this.refs = refs;
+        }
+
+        public Frame copy() {
+            return new Frame(nums.clone(), refs.clone());
+        }
+    }
+
+    /** The expression uses a construct the compiler does not model. */
+    public static class UnsupportedExpressionException extends Exception {
+        public UnsupportedExpressionException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Runtime failure while evaluating (null dereference, index out of bounds,
+     * integer division by zero). The real program would throw, so the branch is
+     * not taken. Stackless because it is part of the normal search loop.
+     */
+    public static final class EvalException extends RuntimeException {
+        public EvalException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /** A compiled expression node. */
+    public abstract static class CompiledExpr {
+        /** NUMBER (incl. chars), BOOLEAN or REFERENCE. */
+        enum Type { NUMBER, BOOLEAN, REFERENCE }
+
+        final Type type;
+        final boolean integral;
+
+        CompiledExpr(Type type, boolean integral) {
+            this.type = type;
+            this.integral = integral;
+        }
+
+        public double num(Frame f) {
+            if (type == Type.BOOLEAN) return test(f) ? 1.0 : 0.0;
+            throw new EvalException("not a number");
+        }
+
+        public boolean test(Frame f) {
+            return num(f) != 0.0;
+        }
+
+        public Object ref(Frame f) {
+            throw new EvalException("not a reference");
+        }
+
+        boolean isBoolean() { return type == Type.BOOLEAN; }
+        boolean isReference() { return type == Type.REFERENCE; }
+    }
+
+    // ── Compilation ─────────────────────────────────────────────────────────────
+
+    public static CompiledExpr compile(Expression expr, SlotLayout layout) throws UnsupportedExpressionException {
+        return new Compiler(layout).compile(expr);
+    }
+
+    /** Compiles a condition that must evaluate to a boolean. */
+    public static CompiledExpr compileCondition(Expression expr, SlotLayout layout) throws UnsupportedExpressionException {
+        CompiledExpr compiled = compile(expr, layout);
+        if (compiled.isReference()) {
+            throw new UnsupportedExpressionException("Not a boolean condition: " + expr);
+        }
+        return compiled;
+    }
+
+    /** Logical NOT of a compiled condition (used for negated path nodes). */
+    public static CompiledExpr not(CompiledExpr inner) {
+        return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+            @Override
+            public boolean test(Frame f) { return !inner.test(f); }
+        };
+    }
+
+    private static final class Compiler {
+        private final SlotLayout layout;
+
+        Compiler(SlotLayout layout) {
+            this.layout = layout;
+        }
+
+        CompiledExpr compile(Expression e) throws UnsupportedExpressionException {
+            if (e.isEnclosedExpr()) return compile(e.asEnclosedExpr().getInner());
+            if (e.isIntegerLiteralExpr()) return constant(e.asIntegerLiteralExpr().asNumber().doubleValue(), true);
+            if (e.isLongLiteralExpr()) return constant(e.asLongLiteralExpr().asNumber().doubleValue(), true);
+            if (e.isDoubleLiteralExpr()) return constant(e.asDoubleLiteralExpr().asDouble(), false);
+            if (e.isCharLiteralExpr()) return constant(e.asCharLiteralExpr().asChar(), true);
+            if (e.isBooleanLiteralExpr()) {
+                boolean value = e.asBooleanLiteralExpr().getValue();
+                return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                    @Override
+                    public boolean test(Frame f) { return value; }
+                };
+            }
+            if (e.isStringLiteralExpr()) return constantRef(e.asStringLiteralExpr().asString());
+            if (e.isNullLiteralExpr()) return constantRef(null);
+            if (e.isNameExpr()) return variable(e.asNameExpr().getNameAsString());
+            if (e.isFieldAccessExpr()) return fieldAccess(e.asFieldAccessExpr());
+            if (e.isArrayAccessExpr()) return arrayAccess(e.asArrayAccessExpr());
+            if (e.isCastExpr()) return cast(e.asCastExpr());
+            if (e.isUnaryExpr()) return unary(e.asUnaryExpr());
+            if (e.isBinaryExpr()) return binary(e.asBinaryExpr());
+            if (e.isConditionalExpr()) return conditional(e.asConditionalExpr());
+            if (e.isMethodCallExpr()) return methodCall(e.asMethodCallExpr());
+            throw new UnsupportedExpressionException("Unsupported expression: " + e.getClass().getSimpleName() + " " + e);
+        }
+
+        private CompiledExpr constant(double value, boolean integral) {
+            return new CompiledExpr(CompiledExpr.Type.NUMBER, integral) {
+                @Override
+                public double num(Frame f) { return value; }
+            };
+        }
+
+        private CompiledExpr constantRef(Object value) {
+            return new CompiledExpr(CompiledExpr.Type.REFERENCE, false) {
+                @Override
+                public Object ref(Frame f) { return value; }
+            };
+        }
+
+        private CompiledExpr variable(String path) throws UnsupportedExpressionException {
+            ValueKind kind = layout.kindOf(path);
+            if (kind == null) {
+                throw new UnsupportedExpressionException("Unknown variable: " + path);
+            }
+            String owner = layout.ownerOf(path);
+            Integer ownerSlot = owner == null ? null : layout.refSlot(owner);
+            if (kind.isNumericSlot()) {
+                int slot = layout.numSlot(path);
+                CompiledExpr.Type type = kind == ValueKind.BOOLEAN ? CompiledExpr.Type.BOOLEAN : CompiledExpr.Type.NUMBER;
+                if (ownerSlot == null) {
+                    return new CompiledExpr(type, kind == ValueKind.INTEGRAL) {
+                        @Override
+                        public double num(Frame f) { return f.nums[slot]; }
+                        @Override
+                        public boolean test(Frame f) { return f.nums[slot] != 0.0; }
+                    };
+                }
+                int os = ownerSlot;
+                return new CompiledExpr(type, kind == ValueKind.INTEGRAL) {
+                    @Override
+                    public double num(Frame f) {
+                        if (f.refs[os] == null) throw new EvalException("null dereference: " + path);
+                        return f.nums[slot];
+                    }
+                    @Override
+                    public boolean test(Frame f) { return num(f) != 0.0; }
+                };
+            }
+            int slot = layout.refSlot(path);
+            if (ownerSlot == null) {
+                return new CompiledExpr(CompiledExpr.Type.REFERENCE, false) {
+                    @Override
+                    public Object ref(Frame f) { return f.refs[slot]; }
+                };
+            }
+            int os = ownerSlot;
+            return new CompiledExpr(CompiledExpr.Type.REFERENCE, false) {
+                @Override
+                public Object ref(Frame f) {
+                    if (f.refs[os] == null) throw new EvalException("null dereference: " + path);
+                    return f.refs[slot];
+                }
+            };
+        }
+
+        private CompiledExpr fieldAccess(FieldAccessExpr e) throws UnsupportedExpressionException {
+            String path = e.toString();
+            if (layout.kindOf(path) != null) {
+                return variable(path);
+            }
+            if (e.getNameAsString().equals("length")) {
+                CompiledExpr array = compile(e.getScope());
+                if (!array.isReference()) throw new UnsupportedExpressionException(".length on non-array: " + e);
+                return new CompiledExpr(CompiledExpr.Type.NUMBER, true) {
+                    @Override
+                    public double num(Frame f) {
+                        Object ref = array.ref(f);
+                        if (ref instanceof double[]) return ((double[]) ref).length;
+                        if (ref instanceof Object[]) return ((Object[]) ref).length;
+                        throw new EvalException("null dereference: " + e);
+                    }
+                };
+            }
+            throw new UnsupportedExpressionException("Unknown field: " + path);
+        }
+
+        private CompiledExpr arrayAccess(ArrayAccessExpr e) throws UnsupportedExpressionException {
+            CompiledExpr array = compile(e.getName());
+            CompiledExpr index = compile(e.getIndex());
+            if (!array.isReference() || index.isReference()) {
+                throw new UnsupportedExpressionException("Unsupported array access: " + e);
+            }
+            ValueKind kind = e.getName().isNameExpr() || e.getName().isFieldAccessExpr()
+                    ? layout.kindOf(e.getName().toString()) : null;
+            if (kind == ValueKind.STRING_ARRAY) {
+                return new CompiledExpr(CompiledExpr.Type.REFERENCE, false) {
+                    @Override
+                    public Object ref(Frame f) {
+                        Object arr = array.ref(f);
+                        if (arr == null) throw new EvalException("null dereference: " + e);
+                        String[] values = (String[]) arr;
+                        int i = (int) index.num(f);
+                        if (i < 0 || i >= values.length) throw new EvalException("index out of bounds: " + e);
+                        return values[i];
+                    }
+                };
+            }
+            if (kind != ValueKind.INTEGRAL_ARRAY && kind != ValueKind.REAL_ARRAY && kind != ValueKind.BOOLEAN_ARRAY) {
+                throw new UnsupportedExpressionException("Unsupported array access: " + e);
+            }
+            CompiledExpr.Type type = kind == ValueKind.BOOLEAN_ARRAY ? CompiledExpr.Type.BOOLEAN : CompiledExpr.Type.NUMBER;
+            return new CompiledExpr(type, kind == ValueKind.INTEGRAL_ARRAY) {
+                @Override
+                public double num(Frame f) {
+                    Object arr = array.ref(f);
+                    if (arr == null) throw new EvalException("null dereference: " + e);
+                    double[] values = (double[]) arr;
+                    int i = (int) index.num(f);
+                    if (i < 0 || i >= values.length) throw new EvalException("index out of bounds: " + e);
+                    return values[i];
+                }
+                @Override
+                public boolean test(Frame f) { return num(f) != 0.0; }
+            };
+        }
+
+        private CompiledExpr cast(CastExpr e) throws UnsupportedExpressionException {
+            CompiledExpr inner = compile(e.getExpression());
+            String target = e.getType().asString();
+            switch (target) {
+                case "int": case "long": case "short": case "byte": case "char":
+                    if (inner.isReference()) break;
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, true) {
+                        @Override
+                        public double num(Frame f) {
+                            double v = inner.num(f);
+                            return v < 0 ? Math.ceil(v) : Math.floor(v);
+                        }
+                    };
+                case "double": case "float":
+                    if (inner.isReference()) break;
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, false) {
+                        @Override
+                        public double num(Frame f) { return inner.num(f); }
+                    };
+                default:
+                    return inner; // referans tipine cast: değer aynı kalır
+            }
+            throw new UnsupportedExpressionException("Unsupported cast: " + e);
+        }
+
+        private CompiledExpr unary(UnaryExpr e) throws UnsupportedExpressionException {
+            CompiledExpr inner = compile(e.getExpression());
+            if (inner.isReference()) throw new UnsupportedExpressionException("Unsupported unary operand: " + e);
+            switch (e.getOperator()) {
+                case LOGICAL_COMPLEMENT:
+                    return not(inner);
+                case MINUS:
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, inner.integral) {
+                        @Override
+                        public double num(Frame f) { return -inner.num(f); }
+                    };
+                case PLUS:
+                    return inner;
+                case BITWISE_COMPLEMENT:
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, true) {
+                        @Override
+                        public double num(Frame f) { return ~(long) inner.num(f); }
+                    };
+                default:
+                    throw new UnsupportedExpressionException("Side-effecting unary operator: " + e);
+            }
+        }
+
+        private CompiledExpr conditional(ConditionalExpr e) throws UnsupportedExpressionException {
+            CompiledExpr cond = compile(e.getCondition());
+            CompiledExpr then = compile(e.getThenExpr());
+            CompiledExpr otherwise = compile(e.getElseExpr());
+            if (then.isReference() != otherwise.isReference()) {
+                throw new UnsupportedExpressionException("Mixed ternary: " + e);
+            }
+            if (then.isReference()) {
+                return new CompiledExpr(CompiledExpr.Type.REFERENCE, false) {
+                    @Override
+                    public Object ref(Frame f) { return cond.test(f) ? then.ref(f) : otherwise.ref(f); }
+                };
+            }
+            CompiledExpr.Type type = then.isBoolean() && otherwise.isBoolean() ? CompiledExpr.Type.BOOLEAN : CompiledExpr.Type.NUMBER;
+            return new CompiledExpr(type, then.integral && otherwise.integral) {
+                @Override
+                public double num(Frame f) { return cond.test(f) ? then.num(f) : otherwise.num(f); }
+                @Override
+                public boolean test(Frame f) { return cond.test(f) ? then.test(f) : otherwise.test(f); }
+            };
+        }
+
+        private CompiledExpr binary(BinaryExpr e) throws UnsupportedExpressionException {
+            CompiledExpr l = compile(e.getLeft());
+            CompiledExpr r = compile(e.getRight());
+            BinaryExpr.Operator op = e.getOperator();
+
+            switch (op) {
+                case AND:
+                    return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                        @Override
+                        public boolean test(Frame f) { return l.test(f) && r.test(f); }
+                    };
+                case OR:
+                    return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                        @Override
+                        public boolean test(Frame f) { return l.test(f) || r.test(f); }
+                    };
+                case EQUALS:
+                case NOT_EQUALS: {
+                    boolean negate = op == BinaryExpr.Operator.NOT_EQUALS;
+                    if (l.isReference() || r.isReference()) {
+                        if (!(l.isReference() && r.isReference())) {
+                            throw new UnsupportedExpressionException("Mixed comparison: " + e);
+                        }
+                        return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                            @Override
+                            public boolean test(Frame f) { return Objects.equals(l.ref(f), r.ref(f)) != negate; }
+                        };
+                    }
+                    return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                        @Override
+                        public boolean test(Frame f) { return (l.num(f) == r.num(f)) != negate; }
+                    };
+                }
+                default:
+                    break;
+            }
+
+            if (op == BinaryExpr.Operator.PLUS && (l.isReference() || r.isReference())) {
+                // String birleştirme
+                return new CompiledExpr(CompiledExpr.Type.REFERENCE, false) {
+                    @Override
+                    public Object ref(Frame f) { return String.valueOf(valueOf(l, f)) + valueOf(r, f); }
+                };
+            }
+            if (l.isReference() || r.isReference()) {
+                throw new UnsupportedExpressionException("Reference operand: " + e);
+            }
+
+            boolean integral = l.integral && r.integral;
+            switch (op) {
+                case LESS:
+                    return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                        @Override
+                        public boolean test(Frame f) { return l.num(f) < r.num(f); }
+                    };
+                case LESS_EQUALS:
+                    return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                        @Override
+                        public boolean test(Frame f) { return l.num(f) <= r.num(f); }
+                    };
+                case GREATER:
+                    return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                        @Override
+                        public boolean test(Frame f) { return l.num(f) > r.num(f); }
+                    };
+                case GREATER_EQUALS:
+                    return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                        @Override
+                        public boolean test(Frame f) { return l.num(f) >= r.num(f); }
+                    };
+                case PLUS:
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, integral) {
+                        @Override
+                        public double num(Frame f) { return l.num(f) + r.num(f); }
+                    };
+                case MINUS:
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, integral) {
+                        @Override
+                        public double num(Frame f) { return l.num(f) - r.num(f); }
+                    };
+                case MULTIPLY:
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, integral) {
+                        @Override
+                        public double num(Frame f) { return l.num(f) * r.num(f); }
+                    };
+                case DIVIDE:
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, integral) {
+                        @Override
+                        public double num(Frame f) {
+                            double a = l.num(f);
+                            double b = r.num(f);
+                            if (!integral) return a / b;
+                            if (b == 0) throw new EvalException("division by zero");
+                            double q = a / b;
+                            return q < 0 ? Math.ceil(q) : Math.floor(q);
+                        }
+                    };
+                case REMAINDER:
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, integral) {
+                        @Override
+                        public double num(Frame f) {
+                            double b = r.num(f);
+                            if (integral && b == 0) throw new EvalException("division by zero");
+                            return l.num(f) % b;
+                        }
+                    };
+                case BINARY_AND:
+                case BINARY_OR:
+                case XOR:
+                    if (l.isBoolean() && r.isBoolean()) {
+                        return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                            @Override
+                            public boolean test(Frame f) {
+                                boolean a = l.test(f);
+                                boolean b = r.test(f);
+                                return op == BinaryExpr.Operator.BINARY_AND ? a & b : op == BinaryExpr.Operator.BINARY_OR ? a | b : a ^ b;
+                            }
+                        };
+                    }
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, true) {
+                        @Override
+                        public double num(Frame f) {
+                            long a = (long) l.num(f);
+                            long b = (long) r.num(f);
+                            return op == BinaryExpr.Operator.BINARY_AND ? a & b : op == BinaryExpr.Operator.BINARY_OR ? a | b : a ^ b;
+                        }
+                    };
+                case LEFT_SHIFT:
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, true) {
+                        @Override
+                        public double num(Frame f) { return (long) l.num(f) << (long) r.num(f); }
+                    };
+                case SIGNED_RIGHT_SHIFT:
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, true) {
+                        @Override
+                        public double num(Frame f) { return (long) l.num(f) >> (long) r.num(f); }
+                    };
+                default:
+                    throw new UnsupportedExpressionException("Unsupported operator: " + op);
+            }
+        }
+
+        private static Object valueOf(CompiledExpr e, Frame f) {
+            if (e.isReference()) return e.ref(f);
+            if (e.isBoolean()) return e.test(f);
+            double v = e.num(f);
+            return e.integral ? (Object) (long) v : (Object) v;
+        }
+
+        private CompiledExpr methodCall(MethodCallExpr e) throws UnsupportedExpressionException {
+            String name = e.getNameAsString();
+            List<CompiledExpr> args = new ArrayList<>();
+            for (Expression arg : e.getArguments()) {
+                args.add(compile(arg));
+            }
+
+            if (e.getScope().isPresent() && e.getScope().get().toString().equals("Math")) {
+                return mathCall(e, name, args);
+            }
+            if (!e.getScope().isPresent()) {
+                throw new UnsupportedExpressionException("Unsupported call: " + e);
+            }
+            CompiledExpr scope = compile(e.getScope().get());
+            if (!scope.isReference()) {
+                throw new UnsupportedExpressionException("Unsupported call on primitive: " + e);
+            }
+
+            switch (name + "/" + args.size()) {
+                case "equals/1":
+                case "equalsIgnoreCase/1": {
+                    CompiledExpr other = args.get(0);
+                    if (!other.isReference()) throw new UnsupportedExpressionException("Unsupported equals: " + e);
+                    boolean ignoreCase = name.equals("equalsIgnoreCase");
+                    return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                        @Override
+                        public boolean test(Frame f) {
+                            Object self = stringScope(scope, f, e);
+                            Object o = other.ref(f);
+                            if (ignoreCase) return o instanceof String && ((String) self).equalsIgnoreCase((String) o);
+                            return self.equals(o);
+                        }
+                    };
+                }
+                case "isEmpty/0":
+                    return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                        @Override
+                        public boolean test(Frame f) { return ((String) stringScope(scope, f, e)).isEmpty(); }
+                    };
+                case "length/0":
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, true) {
+                        @Override
+                        public double num(Frame f) { return ((String) stringScope(scope, f, e)).length(); }
+                    };
+                case "toUpperCase/0":
+                case "toLowerCase/0":
+                case "trim/0": {
+                    return new CompiledExpr(CompiledExpr.Type.REFERENCE, false) {
+                        @Override
+                        public Object ref(Frame f) {
+                            String s = (String) stringScope(scope, f, e);
+                            return name.equals("toUpperCase") ? s.toUpperCase() : name.equals("toLowerCase") ? s.toLowerCase() : s.trim();
+                        }
+                    };
+                }
+                case "startsWith/1":
+                case "endsWith/1":
+                case "contains/1": {
+                    CompiledExpr other = args.get(0);
+                    if (!other.isReference()) throw new UnsupportedExpressionException("Unsupported call: " + e);
+                    return new CompiledExpr(CompiledExpr.Type.BOOLEAN, false) {
+                        @Override
+                        public boolean test(Frame f) {
+                            String s = (String) stringScope(scope, f, e);
+                            Object o = other.ref(f);
+                            if (o == null) throw new EvalException("null argument: " + e);
+                            String arg = (String) o;
+                            return name.equals("startsWith") ? s.startsWith(arg) : name.equals("endsWith") ? s.endsWith(arg) : s.contains(arg);
+                        }
+                    };
+                }
+                case "charAt/1": {
+                    CompiledExpr index = args.get(0);
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, true) {
+                        @Override
+                        public double num(Frame f) {
+                            String s = (String) stringScope(scope, f, e);
+                            int i = (int) index.num(f);
+                            if (i < 0 || i >= s.length()) throw new EvalException("index out of bounds: " + e);
+                            return s.charAt(i);
+                        }
+                    };
+                }
+                default:
+                    throw new UnsupportedExpressionException("Unsupported call: " + e);
+            }
+        }
+
+        private static Object stringScope(CompiledExpr scope, Frame f, MethodCallExpr e) {
+            Object self = scope.ref(f);
+            if (!(self instanceof String)) throw new EvalException("null dereference: " + e);
+            return self;
+        }
+
+        private CompiledExpr mathCall(MethodCallExpr e, String name, List<CompiledExpr> args) throws UnsupportedExpressionException {
+            for (CompiledExpr arg : args) {
+                if (arg.isReference()) throw new UnsupportedExpressionException("Unsupported Math call: " + e);
+            }
+            switch (name + "/" + args.size()) {
+                case "abs/1": {
+                    CompiledExpr a = args.get(0);
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, a.integral) {
+                        @Override
+                        public double num(Frame f) { return Math.abs(a.num(f)); }
+                    };
+                }
+                case "min/2":
+                case "max/2": {
+                    CompiledExpr a = args.get(0);
+                    CompiledExpr b = args.get(1);
+                    boolean min = name.equals("min");
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, a.integral && b.integral) {
+                        @Override
+                        public double num(Frame f) { return min ? Math.min(a.num(f), b.num(f)) : Math.max(a.num(f), b.num(f)); }
+                    };
+                }
+                case "pow/2": {
+                    CompiledExpr a = args.get(0);
+                    CompiledExpr b = args.get(1);
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, false) {
+                        @Override
+                        public double num(Frame f) { return Math.pow(a.num(f), b.num(f)); }
+                    };
+                }
+                case "sqrt/1":
+                case "floor/1":
+                case "ceil/1":
+                case "round/1": {
+                    CompiledExpr a = args.get(0);
+                    return new CompiledExpr(CompiledExpr.Type.NUMBER, name.equals("round")) {
+                        @Override
+                        public double num(Frame f) {
+                            double v = a.num(f);
+                            switch (name) {
+                                case "sqrt": return Math.sqrt(v);
+                                case "floor": return Math.floor(v);
+                                case "ceil": return Math.ceil(v);
+                                default: return Math.round(v);
+                            }
+                        }
+                    };
+                }
+                default:
+                    throw new UnsupportedExpressionException("Unsupported Math call: " + e);
+            }
+        }
+    }
+}
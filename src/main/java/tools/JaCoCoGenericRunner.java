@@ -12,7 +12,6 @@ import java.lang.reflect.Method;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.*; // YENİ: Timeout işlemleri için eklendi
-import java.util.regex.*;
 
 @ARTIFACT_INFO(outports = { @OUTPORT(name = "out-1") })
 public class JaCoCoGenericRunner extends Artifact {
@@ -21,9 +20,9 @@ public class JaCoCoGenericRunner extends Artifact {
     public void analyzeCodeStructure(String sourceCode, OpFeedbackParam<String> methodName, OpFeedbackParam<Integer> paramCount, OpFeedbackParam<String> paramTypes) {
         // Bu metod aynı kalıyor...
         try {
-            String fullClassName = extractFullClassName(sourceCode);
-            MemoryJavaFileManager fileManager = compileInMemory(fullClassName, sourceCode);
-            byte[] bytes = fileManager.getClassBytes(fullClassName);
+            SourceCache.ParsedSource parsed = SourceCache.get(sourceCode);
+            String fullClassName = parsed.getFullClassName();
+            byte[] bytes = compiledBytes(parsed);
             if (bytes == null) {
                 failed("Derleme hatası.");
                 return;
@@ -31,7 +30,7 @@ public class JaCoCoGenericRunner extends Artifact {
             MemoryClassLoader loader = new MemoryClassLoader(getClass().getClassLoader());
             loader.addDefinition(fullClassName, bytes);
             Class<?> targetClass = loader.loadClass(fullClassName);
-            Method targetMethod = findTargetMethod(targetClass);
+            Method targetMethod = findTargetMethod(targetClass, parsed);
 
             if (targetMethod != null) {
                 methodName.set(targetMethod.getName());
@@ -60,9 +59,14 @@ public class JaCoCoGenericRunner extends Artifact {
         
         try {
             // 1. Sınıfı Derle ve Yükle
-            String fullClassName = extractFullClassName(sourceCode);
-            MemoryJavaFileManager fileManager = compileInMemory(fullClassName, sourceCode);
-            byte[] originalBytes = fileManager.getClassBytes(fullClassName);
+            // Aynı kaynak her iterasyonda tekrar derlenmez (SourceCache)
+            SourceCache.ParsedSource parsed = SourceCache.get(sourceCode);
+            String fullClassName = parsed.getFullClassName();
+            byte[] originalBytes = compiledBytes(parsed);
+            if (originalBytes == null) {
+                reportParam.set("RUNNER ERROR: Derleme hatası.");
+                return;
+            }
             
             // 2. JaCoCo Instrumentation (Kodun içine izleme ajanlarını yerleştir)
             final IRuntime runtime = new LoggerRuntime();
@@ -79,7 +83,7 @@ public class JaCoCoGenericRunner extends Artifact {
             Object instance = targetClass.getDeclaredConstructor().newInstance();
 
             // 4. Hedef Metodu ve Parametre Tiplerini Bul
-            Method targetMethod = findTargetMethod(targetClass);
+            Method targetMethod = findTargetMethod(targetClass, parsed);
             if (targetMethod == null) {
                 failed("Test edilecek public metod bulunamadı.");
                 return;
@@ -146,8 +150,8 @@ public class JaCoCoGenericRunner extends Artifact {
             int totalLines = 0;
             int coveredLines = 0;
 
+            String[] lines = parsed.getLines();
             for (IClassCoverage cc : coverageBuilder.getClasses()) {
-                String[] lines = sourceCode.split("\n");
                 for (int i = 0; i < lines.length; i++) {
                     int lineNo = i + 1;
                     ILine line = cc.getLine(lineNo);
@@ -183,15 +187,89 @@ public class JaCoCoGenericRunner extends Artifact {
         }
     }
 
+    /**
+     * Runs one input on a branch-traced copy of the subject and reports the
+     * first condition of path {@code pathId} whose runtime outcome differs from
+     * what the path needs, with the operands compared there. "NONE" means the
+     * input followed every branch of the path.
+     */
+    @OPERATION
+    public void traceBranches(String sourceCode, int pathId, String inputJson, OpFeedbackParam<String> divergence) {
+        PathTree.LogicPath path = PathTree.lookup(pathId);
+        if (path == null) {
+            failed("Bilinmeyen yol: " + pathId);
+            return;
+        }
+        try {
+            SourceCache.ParsedSource parsed = SourceCache.get(sourceCode);
+            String fullClassName = parsed.getFullClassName();
+            byte[] originalBytes = compiledBytes(parsed);
+            if (originalBytes == null) {
+                failed("Derleme hatası.");
+                return;
+            }
+
+            // JaCoCo'dan bağımsız ikinci bir kopya: sadece satır ve dallanma olaylarını kaydeder.
+            // Kaynak başına bir kez enstrümante edilir; her MISS aynı kopyayı (ve dal noktalarını) kullanır
+            BranchTracer.Instrumented traced = parsed.tracedClass(p -> BranchTracer.instrument(originalBytes, getClass().getClassLoader()));
+            MemoryClassLoader loader = new MemoryClassLoader(getClass().getClassLoader());
+            loader.addDefinition(fullClassName, traced.getBytes());
+            Class<?> targetClass = loader.loadClass(fullClassName);
+            Object instance = targetClass.getDeclaredConstructor().newInstance();
+            Method targetMethod = findTargetMethod(targetClass, parsed);
+            if (targetMethod == null) {
+                failed("Test edilecek public metod bulunamadı.");
+                return;
+            }
+
+            List<Object> values = parseParameters(inputJson.trim(), targetMethod.getParameterTypes());
+            if (values == null || values.size() != targetMethod.getParameterCount()) {
+                // Koşturulamayan girdi için iz yok; sebep statik analizden gelir
+                divergence.set("NONE");
+                return;
+            }
+            Object[] params = values.toArray();
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            BranchTracer.Trace trace;
+            try {
+                // Kayıt thread'e bağlı: begin/end çalıştıran thread içinde olmalı
+                Future<BranchTracer.Trace> future = executor.submit(() -> {
+                    BranchTracer.Trace t = BranchTracer.begin();
+                    try {
+                        targetMethod.invoke(instance, params);
+                    } catch (java.lang.reflect.InvocationTargetException e) {
+                        t.setThrown(e.getCause());
+                    } finally {
+                        BranchTracer.end();
+                    }
+                    return t;
+                });
+                trace = future.get(2, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                divergence.set("Execution timed out (possible infinite loop); no branch trace available");
+                return;
+            } finally {
+                executor.shutdownNow();
+            }
+
+            divergence.set(BranchTracer.findDivergence(path, trace).orElse("NONE"));
+        } catch (Exception e) {
+            failed("İzleme hatası: " + e.getMessage());
+        }
+    }
+
     // Diğer yardımcı metodlar aynı kalıyor...
-    private String extractFullClassName(String sourceCode) {
-        String packageName = "";
-        String simpleClassName = "Hesaplama";
-        Matcher pkgMatcher = Pattern.compile("package\\s+([\\w.]+);").matcher(sourceCode);
-        if (pkgMatcher.find()) packageName = pkgMatcher.group(1);
-        Matcher classMatcher = Pattern.compile("class\\s+(\\w+)").matcher(sourceCode);
-        if (classMatcher.find()) simpleClassName = classMatcher.group(1);
-        return packageName.isEmpty() ? simpleClassName : packageName + "." + simpleClassName;
+    private byte[] compiledBytes(SourceCache.ParsedSource parsed) {
+        Map<String, byte[]> classes = parsed.classBytes(p -> {
+            try {
+                return compileInMemory(p.getFullClassName(), p.getSource()).getAllClassBytes();
+            } catch (Exception e) {
+                System.out.println("[JaCoCoRunner] Derleme hatası: " + e.getMessage());
+                return null;
+            }
+        });
+        return classes == null ? null : classes.get(parsed.getFullClassName());
     }
 
     public static class MemoryClassLoader extends ClassLoader {
@@ -220,6 +298,11 @@ public class JaCoCoGenericRunner extends Artifact {
         private final Map<String, ByteArrayOutputStream> classBytes = new HashMap<>();
         protected MemoryJavaFileManager(StandardJavaFileManager m) { super(m); }
         public byte[] getClassBytes(String n) { return classBytes.containsKey(n) ? classBytes.get(n).toByteArray() : null; }
+        public Map<String, byte[]> getAllClassBytes() {
+            Map<String, byte[]> all = new HashMap<>();
+            for (Map.Entry<String, ByteArrayOutputStream> e : classBytes.entrySet()) all.put(e.getKey(), e.getValue().toByteArray());
+            return all;
+        }
         @Override
         public JavaFileObject getJavaFileForOutput(Location l, String c, JavaFileObject.Kind k, FileObject s) {
             return new SimpleJavaFileObject(URI.create("string:///" + c.replace('.', '/') + k.extension), k) {
@@ -533,10 +616,28 @@ public class JaCoCoGenericRunner extends Artifact {
         return pairs;
     }
 
-    private Method findTargetMethod(Class<?> cls) {
+    private Method findTargetMethod(Class<?> cls, SourceCache.ParsedSource parsed) {
+        // getDeclaredMethods() sırası belirsiz: kaynaktaki ilk public metodu imzasıyla eşle
+        Optional<SourceCache.MethodSignature> sig = parsed.getTargetMethod();
+        if (sig.isPresent()) {
+            for (Method m : cls.getDeclaredMethods()) {
+                if (m.getName().equals(sig.get().getName()) && matchesSignature(m, sig.get())) return m;
+            }
+        }
         for (Method m : cls.getDeclaredMethods()) {
             if (java.lang.reflect.Modifier.isPublic(m.getModifiers())) return m;
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private boolean matchesSignature(Method m, SourceCache.MethodSignature sig) {
+        if (m.getParameterCount() != sig.getParamCount()) return false;
+        Class<?>[] types = m.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            String declared = sig.getParamTypes().get(i).replaceAll("<.*>", "");
+            String simple = declared.substring(declared.lastIndexOf('.') + 1);
+            if (!types[i].getSimpleName().equals(simple)) return false;
+        }
+        return true;
+    }
+}
@@ -1,6 +1,9 @@
 package tools;
 
 import cartago.*;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import java.util.*;
 
 public class JsonTool extends Artifact {
@@ -20,17 +23,6 @@ public class JsonTool extends Artifact {
         resultList.set(finalPaths.toArray());
     }
 
-    @OPERATION
-    public void parseMapEntry(String entry, OpFeedbackParam<Integer> line, OpFeedbackParam<String> path) {
-        try {
-            String[] parts = entry.split("\\|", 2);
-            line.set(Integer.parseInt(parts[0]));
-            path.set(parts[1]);
-        } catch (Exception e) {
-            failed("Entry parse error: " + entry);
-        }
-    }
-
     // YENİ: LLM yanıtlarını temizlemek için (Tırnak ve Markdown temizleyici)
     // JsonTool.java içindeki sanitizeLLMResponse operasyonuna ekle
     @OPERATION
@@ -64,4 +56,37 @@ public class JsonTool extends Artifact {
             result.set(50); // Hata durumunda varsayılan
         }
     }
-}
\ No newline at end of file
+
+    // YENİ: Çok hedefli (batch) cevabı ayrıştır: {"12": [1, 2], "15": [0, 3]} -> [[12, "[1,2]"], [15, "[0,3]"]]
+    // Sadece istenen yol ID'leri ve JSON dizisi olan değerler döner; eksik/bozuk anahtarlar atlanır
+    @OPERATION
+    public void parseKeyedInputs(String raw, Object[] pathIds, OpFeedbackParam<Object[]> pairs) {
+        List<Object> result = new ArrayList<>();
+        String text = raw.replace('\u2212', '-').replaceAll("```[a-z]*", "").replaceAll("```", "").trim();
+        int start = text.indexOf('{');
+        int end = text.lastIndexOf('}');
+        if (start < 0 || end <= start) {
+            pairs.set(new Object[0]);
+            return;
+        }
+        Set<Integer> wanted = new HashSet<>();
+        for (Object id : pathIds) {
+            wanted.add(((Number) id).intValue());
+        }
+        try {
+            JsonObject map = JsonParser.parseString(text.substring(start, end + 1)).getAsJsonObject();
+            for (Map.Entry<String, JsonElement> e : map.entrySet()) {
+                // Anahtar "12" veya "path_12" gibi gelebilir: içindeki sayıyı al
+                String digits = e.getKey().replaceAll("[^0-9]", "");
+                if (digits.isEmpty() || !e.getValue().isJsonArray()) continue;
+                int id = Integer.parseInt(digits);
+                if (wanted.contains(id)) {
+                    result.add(new Object[] { id, e.getValue().toString() });
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("[JsonTool] Batch cevabı ayrıştırılamadı: " + e.getMessage());
+        }
+        pairs.set(result.toArray());
+    }
+}
@@ -0,0 +1,50 @@
+package tools;
+
+import com.google.gson.JsonArray;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where chat completions come from. {@link LLMTool} and the benchmark runners
+ * only talk to this interface; {@link LLMBackends#shared()} picks the
+ * implementation from configuration ({@code llm.backend} / {@code LLM_BACKEND}):
+ * <ul>
+ *   <li>{@code openai} (default): {@link OpenAICompatibleBackend} against
+ *       {@code https://api.openai.com/v1}, or any other base URL</li>
+ *   <li>{@code local}: {@link OpenAICompatibleBackend} against an
+ *       OpenAI-compatible server on this machine (llama.cpp, vLLM, ...),
+ *       {@code http://localhost:8080/v1} unless configured, no API key</li>
+ *   <li>{@code fake}: {@link ScriptedBackend}, in process, no network</li>
+ * </ul>
+ * The model is {@code llm.model} / {@code LLM_MODEL} (default {@code gpt-4o-mini}).
+ */
+public interface LLMBackend {
+
+    /** Short name for logs and reports, e.g. "openai". */
+    String name();
+
+    /** The model name sent with each request (and used in cache keys). */
+    String model();
+
+    /** Why this backend cannot be used as configured, or null when it can. */
+    default String configurationError() {
+        return null;
+    }
+
+    /**
+     * Completes the conversation; the future holds the assistant's text and
+     * the token usage. {@code maxTokens <= 0} leaves the answer length to the backend.
+     */
+    CompletableFuture<LLMCompletion> complete(JsonArray messages, double temperature, int maxTokens);
+
+    /**
+     * Like {@link #complete}, but the answer may be cut as soon as
+     * {@code detector} reports the awaited part complete. Backends that
+     * cannot stream feed the whole answer to the detector at once.
+     */
+    default CompletableFuture<LLMCompletion> stream(JsonArray messages, double temperature, CompletionDetector detector) {
+        return complete(messages, temperature, 0).thenApply(completion -> {
+            detector.feed(completion.getText());
+            return completion.withText(detector.text());
+        });
+    }
+}
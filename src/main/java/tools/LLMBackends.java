@@ -0,0 +1,74 @@
+package tools;
+
+import com.google.gson.JsonArray;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Chooses the JVM-wide {@link LLMBackend} from system properties /
+ * environment variables ({@code llm.backend}, {@code llm.model}).
+ */
+public final class LLMBackends {
+
+    private static volatile LLMBackend shared;
+
+    private LLMBackends() {
+    }
+
+    /** The configured backend, created on first use. */
+    public static LLMBackend shared() {
+        LLMBackend s = shared;
+        if (s == null) {
+            synchronized (LLMBackends.class) {
+                s = shared;
+                if (s == null) {
+                    shared = s = fromConfig();
+                    System.out.println("[LLM] Backend " + s.name() + ", model " + s.model());
+                }
+            }
+        }
+        return s;
+    }
+
+    /** Replaces the shared backend, e.g. with a {@link ScriptedBackend} built in code. */
+    public static void setShared(LLMBackend backend) {
+        synchronized (LLMBackends.class) {
+            shared = backend;
+        }
+    }
+
+    /**
+     * Blocking completion through the shared backend and {@link LLMResponseCache},
+     * for callers outside the MAS (the benchmark runners). Recorded in
+     * {@link LLMTelemetry} under agent "benchmark".
+     */
+    public static String complete(JsonArray messages, double temperature, int maxTokens) throws Exception {
+        LLMBackend backend = shared();
+        String problem = backend.configurationError();
+        if (problem != null) throw new IllegalStateException(problem);
+        LLMTelemetry.Call call = LLMTelemetry.shared().start("benchmark", "benchmark", "benchmark", backend.model());
+        try {
+            return call.track(LLMResponseCache.shared().completeAsync(backend.model(), temperature, messages,
+                    () -> call.request(backend.complete(messages, temperature, maxTokens)))).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    static LLMBackend fromConfig() {
+        String kind = Config.get("llm.backend", "LLM_BACKEND");
+        String model = Config.get("llm.model", "LLM_MODEL");
+        switch (kind == null ? "openai" : kind.toLowerCase()) {
+            case "openai":
+                return OpenAICompatibleBackend.openAI(model != null ? model : OpenAICompatibleBackend.DEFAULT_MODEL);
+            case "local":
+                // llama.cpp model adını yok sayar; vLLM sunulan model adını ister (llm.model)
+                return OpenAICompatibleBackend.local(model != null ? model : "local");
+            case "fake":
+                return ScriptedBackend.fromConfig();
+            default:
+                throw new IllegalArgumentException("Unknown llm.backend '" + kind + "' (openai, local or fake)");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package tools;
+
+/**
+ * The text of one chat completion and the token usage reported with it.
+ *
+ * When the server sends no {@code usage} block (a stream cut early, a
+ * backend without usage reporting) the counts are estimated from the
+ * text length, 4 characters per token, and {@link #isEstimated()} is true.
+ *
+ * {@link #getCachedPromptTokens()} is the part of the prompt the provider
+ * served from its prefix cache ({@code usage.prompt_tokens_details.cached_tokens});
+ * {@link #getFirstTokenNanos()} is the {@link System#nanoTime()} at which the
+ * first content arrived on a stream (0 when not streamed).
+ */
+public final class LLMCompletion {
+
+    private final String text;
+    private final long promptTokens;
+    private final long completionTokens;
+    private final long cachedPromptTokens;
+    private final boolean estimated;
+    private final long firstTokenNanos;
+
+    public LLMCompletion(String text, long promptTokens, long completionTokens, long cachedPromptTokens,
+                         boolean estimated, long firstTokenNanos) {
+        this.text = text;
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.cachedPromptTokens = cachedPromptTokens;
+        this.estimated = estimated;
+        this.firstTokenNanos = firstTokenNanos;
+    }
+
+    /** A completion whose usage is estimated from the prompt and answer lengths. */
+    public static LLMCompletion estimated(String text, long promptChars) {
+        return new LLMCompletion(text, (promptChars + 3) / 4, (text.length() + 3) / 4, 0, true, 0);
+    }
+
+    /** The same usage with another text (e.g. the answer cut by a {@link CompletionDetector}). */
+    public LLMCompletion withText(String newText) {
+        return new LLMCompletion(newText, promptTokens, completionTokens, cachedPromptTokens, estimated, firstTokenNanos);
+    }
+
+    public String getText() { return text; }
+    public long getPromptTokens() { return promptTokens; }
+    public long getCompletionTokens() { return completionTokens; }
+    public long getCachedPromptTokens() { return cachedPromptTokens; }
+    public long getFirstTokenNanos() { return firstTokenNanos; }
+    public long getTotalTokens() { return promptTokens + completionTokens; }
+    public boolean isEstimated() { return estimated; }
+}
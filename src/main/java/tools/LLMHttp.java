@@ -0,0 +1,374 @@
+package tools;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * The one HTTP client every LLM call in the JVM goes through.
+ *
+ * Creating an {@link HttpClient} per prompt meant a new selector thread, a new
+ * connection pool and a fresh TLS handshake for every call. The shared client
+ * keeps connections alive (HTTP/2 where the server offers it), sends
+ * asynchronously and admits at most {@code maxConcurrency} requests at once;
+ * the rest wait in FIFO order without holding a thread. Rate limits, retries
+ * and the adaptive concurrency cap are handled by {@link LLMRateControl}.
+ *
+ * Which endpoint is called is up to the {@link LLMBackend}.
+ *
+ * Configuration (system property, then environment variable):
+ * <ul>
+ *   <li>{@code llm.connectTimeoutSeconds} / {@code LLM_CONNECT_TIMEOUT_SECONDS} (default 30)</li>
+ *   <li>{@code llm.requestTimeoutSeconds} / {@code LLM_REQUEST_TIMEOUT_SECONDS} (default 120)</li>
+ *   <li>{@code llm.maxConcurrency} / {@code LLM_MAX_CONCURRENCY} (default 4)</li>
+ * </ul>
+ */
+public final class LLMHttp {
+
+    private static volatile LLMHttp shared;
+
+    /** A non-200 answer from the endpoint. */
+    public static final class StatusException extends IOException {
+        private final int statusCode;
+        private final String body;
+
+        public StatusException(int statusCode, String body) {
+            super("HTTP " + statusCode + " - " + body);
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        public int getStatusCode() { return statusCode; }
+        public String getBody() { return body; }
+    }
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final int maxConcurrency;
+    private final LLMRateControl rateControl;
+    private final Deque<Runnable> waiting = new ArrayDeque<>();
+    private final ExecutorService streamReaders = Executors.newCachedThreadPool(daemon("llm-stream"));
+    private int inFlight;
+
+    public LLMHttp(Duration connectTimeout, Duration requestTimeout, int maxConcurrency) {
+        this(connectTimeout, requestTimeout, maxConcurrency, LLMRateControl.fromConfig(Math.max(1, maxConcurrency)));
+    }
+
+    /** With an explicit rate control (tests pin the retry count and rate limits). */
+    LLMHttp(Duration connectTimeout, Duration requestTimeout, int maxConcurrency, LLMRateControl rateControl) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .executor(Executors.newCachedThreadPool(daemon("llm-http")))
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.rateControl = rateControl;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true); // JVM'in kapanmasını engellemesin
+            return t;
+        };
+    }
+
+    /** The JVM-wide client, configured on first use. */
+    public static LLMHttp shared() {
+        LLMHttp s = shared;
+        if (s == null) {
+            synchronized (LLMHttp.class) {
+                s = shared;
+                if (s == null) {
+                    shared = s = new LLMHttp(
+                            Duration.ofSeconds(Config.getInt("llm.connectTimeoutSeconds", "LLM_CONNECT_TIMEOUT_SECONDS", 30)),
+                            Duration.ofSeconds(Config.getInt("llm.requestTimeoutSeconds", "LLM_REQUEST_TIMEOUT_SECONDS", 120)),
+                            Config.getInt("llm.maxConcurrency", "LLM_MAX_CONCURRENCY", 4));
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * POSTs a JSON body; completes when the response arrives. The request
+     * waits for a free slot and for the rate buckets, and 429/5xx answers or
+     * connection failures are retried with backoff; the last answer is
+     * returned as is once the retries are used up.
+     */
+    public CompletableFuture<HttpResponse<String>> postJsonAsync(String url, String apiKey, String jsonBody) {
+        HttpRequest request = request(url, apiKey, jsonBody, false);
+        long tokens = LLMRateControl.estimateTokens(jsonBody);
+        return withRetry(0, () -> limited(tokens, () -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> LLMRateControl.isRetryable(response.statusCode())
+                        ? retryable(response.statusCode(), response.headers().firstValue("Retry-After").orElse(null),
+                                () -> CompletableFuture.completedFuture(response))
+                        : Attempt.done(settle(tokens, response)))));
+    }
+
+    /** Blocking form of {@link #postJsonAsync} for callers that are already on a worker thread. */
+    public HttpResponse<String> postJson(String url, String apiKey, String jsonBody) throws IOException, InterruptedException {
+        try {
+            return postJsonAsync(url, apiKey, jsonBody).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Sends a chat completion request with {@code "stream": true} and reads
+     * the server-sent events as they arrive, feeding each content delta to
+     * {@code detector}. As soon as the detector reports a complete answer the
+     * body stream is closed, which cancels the request; the rest of the
+     * completion is never generated or paid for. Completes with the text
+     * received, cut after the complete part. Retries apply until the first
+     * event has been read.
+     *
+     * The server is asked for a final usage event ({@code stream_options.include_usage});
+     * when the stream is cut before it, or the server ignores the option, the
+     * usage is estimated.
+     */
+    public CompletableFuture<LLMCompletion> streamChatAsync(String url, String apiKey, JsonObject requestBody, CompletionDetector detector) {
+        JsonObject body = requestBody.deepCopy();
+        body.addProperty("stream", true);
+        JsonObject streamOptions = new JsonObject();
+        streamOptions.addProperty("include_usage", true);
+        body.add("stream_options", streamOptions);
+        String jsonBody = body.toString();
+        long promptChars = requestBody.get("messages").toString().length();
+        HttpRequest request = request(url, apiKey, jsonBody, true);
+        long tokens = LLMRateControl.estimateTokens(jsonBody);
+        return withRetry(0, () -> limited(tokens, () -> client.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .thenApplyAsync(response -> {
+                    int status = response.statusCode();
+                    if (LLMRateControl.isRetryable(status)) {
+                        String error = drain(response.body());
+                        return this.<LLMCompletion>retryable(status, response.headers().firstValue("Retry-After").orElse(null),
+                                () -> CompletableFuture.failedFuture(new StatusException(status, error)));
+                    }
+                    if (status != 200) throw new CompletionException(new StatusException(status, drain(response.body())));
+                    return Attempt.done(readEvents(response, detector, promptChars));
+                }, streamReaders)));
+    }
+
+    private HttpRequest request(String url, String apiKey, String jsonBody, boolean stream) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8));
+        if (stream) builder.header("Accept", "text/event-stream");
+        if (apiKey != null) builder.header("Authorization", "Bearer " + apiKey);
+        return builder.build();
+    }
+
+    /** Gives the token bucket the real usage of a successful answer. */
+    private HttpResponse<String> settle(long estimatedTokens, HttpResponse<String> response) {
+        if (response.statusCode() == 200) {
+            try {
+                JsonObject usage = JsonParser.parseString(response.body()).getAsJsonObject().getAsJsonObject("usage");
+                if (usage != null && usage.has("total_tokens")) {
+                    rateControl.settleTokens(estimatedTokens, usage.get("total_tokens").getAsLong());
+                }
+            } catch (RuntimeException e) {
+                // kullanım bilgisi yoksa tahmin geçerli kalır
+            }
+        }
+        return response;
+    }
+
+    private static String drain(java.util.stream.Stream<String> lines) {
+        try (java.util.stream.Stream<String> l = lines) {
+            StringBuilder sb = new StringBuilder();
+            l.forEach(sb::append);
+            return sb.toString();
+        }
+    }
+
+    private static LLMCompletion readEvents(HttpResponse<java.util.stream.Stream<String>> response, CompletionDetector detector,
+                                            long promptChars) {
+        JsonObject usage = null;
+        long firstToken = 0;
+        try (java.util.stream.Stream<String> lines = response.body()) {
+            java.util.Iterator<String> it = lines.iterator();
+            while (it.hasNext()) {
+                String line = it.next();
+                if (!line.startsWith("data:")) continue; // boş satır, "event:", ":" yorumları
+                String data = line.substring(5).trim();
+                if (data.equals("[DONE]")) break;
+                JsonObject event = JsonParser.parseString(data).getAsJsonObject();
+                // include_usage: son olayda choices boş, usage dolu gelir
+                if (event.has("usage") && event.get("usage").isJsonObject()) usage = event.getAsJsonObject("usage");
+                com.google.gson.JsonArray choices = event.getAsJsonArray("choices");
+                if (choices == null || choices.isEmpty()) continue;
+                JsonObject delta = choices.get(0).getAsJsonObject().getAsJsonObject("delta");
+                if (delta == null || !delta.has("content") || delta.get("content").isJsonNull()) continue;
+                if (firstToken == 0) firstToken = System.nanoTime();
+                if (detector.feed(delta.get("content").getAsString())) break; // try-with-resources akışı kapatır -> istek iptal
+            }
+        }
+        return completion(detector.text(), usage, promptChars, firstToken);
+    }
+
+    /** choices[0].message.content of a chat completion response. */
+    public static String completionContent(HttpResponse<String> response) throws StatusException {
+        return completion(response, 0).getText();
+    }
+
+    /**
+     * choices[0].message.content of a chat completion response with its
+     * {@code usage}; estimated from {@code promptChars} when the server sent none.
+     */
+    public static LLMCompletion completion(HttpResponse<String> response, long promptChars) throws StatusException {
+        if (response.statusCode() != 200) throw new StatusException(response.statusCode(), response.body());
+        JsonObject json = JsonParser.parseString(response.body()).getAsJsonObject();
+        String content = json.getAsJsonArray("choices").get(0).getAsJsonObject()
+                .getAsJsonObject("message").get("content").getAsString();
+        return completion(content, json.has("usage") && json.get("usage").isJsonObject() ? json.getAsJsonObject("usage") : null,
+                promptChars, 0);
+    }
+
+    private static LLMCompletion completion(String text, JsonObject usage, long promptChars, long firstToken) {
+        if (usage == null || !usage.has("prompt_tokens") || !usage.has("completion_tokens")) {
+            LLMCompletion estimate = LLMCompletion.estimated(text, promptChars);
+            return new LLMCompletion(text, estimate.getPromptTokens(), estimate.getCompletionTokens(), 0, true, firstToken);
+        }
+        return new LLMCompletion(text, usage.get("prompt_tokens").getAsLong(), usage.get("completion_tokens").getAsLong(),
+                cachedTokens(usage), false, firstToken);
+    }
+
+    /** Prompt tokens served from the provider's prefix cache (OpenAI / vLLM, or DeepSeek's field); 0 if not reported. */
+    private static long cachedTokens(JsonObject usage) {
+        JsonObject details = usage.has("prompt_tokens_details") && usage.get("prompt_tokens_details").isJsonObject()
+                ? usage.getAsJsonObject("prompt_tokens_details") : null;
+        if (details != null && details.has("cached_tokens") && !details.get("cached_tokens").isJsonNull()) {
+            return details.get("cached_tokens").getAsLong();
+        }
+        if (usage.has("prompt_cache_hit_tokens")) return usage.get("prompt_cache_hit_tokens").getAsLong();
+        return 0;
+    }
+
+    public int getMaxConcurrency() { return maxConcurrency; }
+
+    public LLMRateControl getRateControl() { return rateControl; }
+
+    public synchronized int getInFlight() { return inFlight; }
+
+    public synchronized int getWaiting() { return waiting.size(); }
+
+    /** Result of one attempt: a value, or a retryable status with what to return if retries run out. */
+    private static final class Attempt<T> {
+        final T value;
+        final int status;
+        final String retryAfter;
+        final Supplier<CompletableFuture<T>> giveUp;
+
+        private Attempt(T value, int status, String retryAfter, Supplier<CompletableFuture<T>> giveUp) {
+            this.value = value;
+            this.status = status;
+            this.retryAfter = retryAfter;
+            this.giveUp = giveUp;
+        }
+
+        static <T> Attempt<T> done(T value) {
+            return new Attempt<>(value, 200, null, null);
+        }
+
+        static <T> Attempt<T> retry(int status, String retryAfter, Supplier<CompletableFuture<T>> giveUp) {
+            return new Attempt<>(null, status, retryAfter, giveUp);
+        }
+    }
+
+    /**
+     * A retryable answer. A throttling one lowers the cap here, while the
+     * call still holds its slot, so the slot is not refilled at the old cap.
+     */
+    private <T> Attempt<T> retryable(int status, String retryAfter, Supplier<CompletableFuture<T>> giveUp) {
+        if (LLMRateControl.isThrottle(status)) rateControl.onThrottle();
+        return Attempt.retry(status, retryAfter, giveUp);
+    }
+
+    private <T> CompletableFuture<T> withRetry(int attempt, Supplier<CompletableFuture<Attempt<T>>> call) {
+        return call.get().handle((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                // Bağlantı kopması / zaman aşımı geçicidir; HTTP hata kodları (StatusException) değil
+                if (cause instanceof IOException && !(cause instanceof StatusException) && attempt < rateControl.getMaxRetries()) {
+                    return retryLater(attempt, null, call);
+                }
+                return CompletableFuture.<T>failedFuture(cause);
+            }
+            if (result.giveUp == null) {
+                rateControl.onSuccess();
+                drainQueue(); // sınır artmış olabilir
+                return CompletableFuture.completedFuture(result.value);
+            }
+            if (attempt >= rateControl.getMaxRetries()) return result.giveUp.get();
+            return retryLater(attempt, result.retryAfter, call);
+        }).thenCompose(f -> f);
+    }
+
+    private <T> CompletableFuture<T> retryLater(int attempt, String retryAfter, Supplier<CompletableFuture<Attempt<T>>> call) {
+        rateControl.onRetry();
+        long delay = LLMRateControl.backoffMillis(attempt, retryAfter);
+        Executor later = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS);
+        return CompletableFuture.supplyAsync(() -> null, later).thenCompose(v -> withRetry(attempt + 1, call));
+    }
+
+    /**
+     * Starts {@code call} once a concurrency slot is free (the cap follows
+     * {@link LLMRateControl#currentLimit()}) and the rate buckets allow it.
+     * Queued calls hold no thread.
+     */
+    private <T> CompletableFuture<T> limited(long estimatedTokens, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            long wait = rateControl.admit(estimatedTokens);
+            Executor when = wait > 0 ? CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS) : Runnable::run;
+            CompletableFuture.supplyAsync(() -> null, when).thenCompose(v -> call.get()).whenComplete((value, error) -> {
+                release();
+                if (error != null) result.completeExceptionally(error);
+                else result.complete(value);
+            });
+        };
+        synchronized (this) {
+            waiting.addLast(start);
+        }
+        drainQueue();
+        return result;
+    }
+
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        drainQueue();
+    }
+
+    /** Starts queued calls while there is room under the current cap. */
+    private void drainQueue() {
+        while (true) {
+            Runnable next;
+            synchronized (this) {
+                if (waiting.isEmpty() || inFlight >= rateControl.currentLimit()) return;
+                next = waiting.pollFirst();
+                inFlight++;
+            }
+            next.run();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package tools;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Client-side throttling shared by every request of one {@link LLMHttp}.
+ *
+ * <ul>
+ *   <li>Two token buckets, one for requests and one for (estimated) tokens
+ *       per minute. A request that would overdraw either bucket is delayed
+ *       until it refills instead of being sent into a 429.</li>
+ *   <li>An AIMD concurrency cap: every success raises it by 1/cap (about +1
+ *       per round trip of the whole window), a throttling answer (429/503)
+ *       halves it, at most once per second so a burst of 429s from one
+ *       window counts once.</li>
+ *   <li>Full-jitter exponential backoff, or the server's Retry-After when it
+ *       sends one (capped like the backoff, so a "Retry-After: 3600" does not
+ *       stall a call for an hour).</li>
+ * </ul>
+ *
+ * Configuration: {@code llm.requestsPerMinute} / {@code LLM_REQUESTS_PER_MINUTE},
+ * {@code llm.tokensPerMinute} / {@code LLM_TOKENS_PER_MINUTE} (0 = no limit,
+ * the default) and {@code llm.maxRetries} / {@code LLM_MAX_RETRIES} (default 5).
+ */
+public final class LLMRateControl {
+
+    private static final long BASE_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final long DECREASE_QUIET_NANOS = 1_000_000_000L;
+
+    /** Refills continuously at {@code perMinute / 60} per second up to {@code perMinute}. */
+    static final class TokenBucket {
+        private final double capacity;
+        private final double perNano;
+        private double available;
+        private long last;
+
+        TokenBucket(double perMinute) {
+            this.capacity = perMinute;
+            this.perNano = perMinute / 60e9;
+            this.available = perMinute;
+            this.last = System.nanoTime();
+        }
+
+        /**
+         * Takes {@code amount} and returns how long to wait before using it.
+         * The bucket may go negative, so later callers queue behind this one.
+         */
+        synchronized long reserve(double amount) {
+            long now = System.nanoTime();
+            available = Math.min(capacity, available + (now - last) * perNano);
+            last = now;
+            available -= Math.min(amount, capacity); // tek istek kovadan büyükse sonsuza kadar beklemesin
+            return available >= 0 ? 0 : (long) Math.ceil(-available / perNano);
+        }
+
+        /** Returns the difference once the real amount is known (negative = took too little). */
+        synchronized void refund(double amount) {
+            available = Math.min(capacity, available + amount);
+        }
+    }
+
+    private final TokenBucket requests;
+    private final TokenBucket tokens;
+    private final int maxConcurrency;
+    private final int maxRetries;
+    private double limit;
+    private long lastDecrease;
+    private long throttled;
+    private long retries;
+
+    public LLMRateControl(int maxConcurrency, double requestsPerMinute, double tokensPerMinute, int maxRetries) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.limit = this.maxConcurrency;
+        this.requests = requestsPerMinute > 0 ? new TokenBucket(requestsPerMinute) : null;
+        this.tokens = tokensPerMinute > 0 ? new TokenBucket(tokensPerMinute) : null;
+        this.maxRetries = maxRetries;
+    }
+
+    static LLMRateControl fromConfig(int maxConcurrency) {
+        return new LLMRateControl(maxConcurrency,
+                Config.getInt("llm.requestsPerMinute", "LLM_REQUESTS_PER_MINUTE", 0),
+                Config.getInt("llm.tokensPerMinute", "LLM_TOKENS_PER_MINUTE", 0),
+                Config.getInt("llm.maxRetries", "LLM_MAX_RETRIES", 5));
+    }
+
+    /** Rough token estimate of a request: ~4 characters per token plus the expected answer. */
+    static long estimateTokens(String jsonBody) {
+        return jsonBody.length() / 4 + 256;
+    }
+
+    /** Nanoseconds to wait before sending a request of about {@code estimatedTokens}. */
+    long admit(long estimatedTokens) {
+        long wait = 0;
+        if (requests != null) wait = Math.max(wait, requests.reserve(1));
+        if (tokens != null) wait = Math.max(wait, tokens.reserve(estimatedTokens));
+        return wait;
+    }
+
+    /** Corrects the token bucket with the real usage reported by the server. */
+    void settleTokens(long estimatedTokens, long actualTokens) {
+        if (tokens != null && actualTokens > 0) tokens.refund(estimatedTokens - actualTokens);
+    }
+
+    /** The current concurrency cap (at least 1). */
+    synchronized int currentLimit() {
+        return Math.max(1, (int) Math.floor(limit));
+    }
+
+    synchronized void onSuccess() {
+        limit = Math.min(maxConcurrency, limit + 1.0 / limit);
+    }
+
+    synchronized void onThrottle() {
+        throttled++;
+        long now = System.nanoTime();
+        if (now - lastDecrease < DECREASE_QUIET_NANOS) return;
+        lastDecrease = now;
+        limit = Math.max(1, limit / 2);
+    }
+
+    synchronized void onRetry() {
+        retries++;
+    }
+
+    /** 429 and the transient 5xx answers are worth retrying. */
+    static boolean isRetryable(int status) {
+        return status == 429 || status == 500 || status == 502 || status == 503 || status == 504;
+    }
+
+    static boolean isThrottle(int status) {
+        return status == 429 || status == 503;
+    }
+
+    int getMaxRetries() { return maxRetries; }
+
+    /**
+     * Delay before retry number {@code attempt} (0-based): the server's
+     * Retry-After plus a little jitter when present, otherwise a uniformly
+     * random delay up to base * 2^attempt (capped).
+     */
+    static long backoffMillis(int attempt, String retryAfter) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long serverDelay = parseRetryAfter(retryAfter);
+        if (serverDelay != null) {
+            // Aynı anda kısıtlanan istemciler aynı saniyede geri dönmesin
+            return serverDelay + random.nextLong(250);
+        }
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt, 16));
+        return random.nextLong(ceiling + 1);
+    }
+
+    /**
+     * Retry-After as delta-seconds or an HTTP-date, in milliseconds and at
+     * most the backoff cap; null when absent or unreadable.
+     */
+    static Long parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) return null;
+        String v = value.trim();
+        long millis;
+        try {
+            millis = (long) (Double.parseDouble(v) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME);
+                millis = Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis();
+            } catch (RuntimeException ex) {
+                return null;
+            }
+        }
+        // Daha uzun bekleme isteyen sunucuya sınırdan sonra yeniden sorulur; yine kısıtlarsa deneme hakkı düşer
+        return Math.min(MAX_BACKOFF_MILLIS, Math.max(0, millis));
+    }
+
+    public synchronized long getThrottled() { return throttled; }
+    public synchronized long getRetries() { return retries; }
+}
@@ -0,0 +1,223 @@
+package tools;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Content-addressed on-disk cache of LLM completions.
+ *
+ * A request is identified by the SHA-256 of its model, temperature and
+ * normalized message list (role + content, line endings unified, trailing
+ * whitespace per line dropped). Each entry is one JSON file under the cache
+ * directory holding every response recorded for that request in order.
+ *
+ * The n-th time a process asks the same request it gets the n-th recorded
+ * response, so a replayed MAS session sees exactly the answers of the
+ * recorded one even when a prompt was repeated at a non-zero temperature.
+ *
+ * Modes ({@code llm.cacheMode} / {@code LLM_CACHE_MODE}):
+ * <ul>
+ *   <li>{@code off} (default): always call the model, nothing is stored</li>
+ *   <li>{@code record}: always call the model and store the answer in its slot</li>
+ *   <li>{@code replay}: answer only from the cache; a miss is an error (fully offline)</li>
+ *   <li>{@code readthrough}: answer from the cache, call and append on a miss</li>
+ * </ul>
+ * The directory is {@code llm.cacheDir} / {@code LLM_CACHE_DIR} (default {@code .llm-cache}).
+ */
+public final class LLMResponseCache {
+
+    public enum Mode { OFF, RECORD, REPLAY, READTHROUGH }
+
+    /** Thrown in replay mode when a request was never recorded. */
+    public static final class ReplayMissException extends IOException {
+        ReplayMissException(String message) {
+            super(message);
+        }
+    }
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private static volatile LLMResponseCache shared;
+
+    private final Mode mode;
+    private final Path dir;
+    private final Map<String, Integer> occurrences = new HashMap<>(); // bu oturumda anahtar kaç kez soruldu
+    private long hits;
+    private long misses;
+
+    public LLMResponseCache(Mode mode, Path dir) {
+        this.mode = mode;
+        this.dir = dir;
+    }
+
+    /** The JVM-wide cache configured from system properties / environment. */
+    public static LLMResponseCache shared() {
+        LLMResponseCache s = shared;
+        if (s == null) {
+            synchronized (LLMResponseCache.class) {
+                s = shared;
+                if (s == null) {
+                    String mode = Config.get("llm.cacheMode", "LLM_CACHE_MODE");
+                    String dir = Config.get("llm.cacheDir", "LLM_CACHE_DIR");
+                    shared = s = new LLMResponseCache(
+                            mode == null ? Mode.OFF : Mode.valueOf(mode.toUpperCase().replace("-", "")),
+                            Paths.get(dir == null ? ".llm-cache" : dir));
+                    if (s.mode != Mode.OFF) {
+                        System.out.println("[LLMCache] Mode " + s.mode + ", directory " + s.dir.toAbsolutePath());
+                    }
+                }
+            }
+        }
+        return s;
+    }
+
+    public Mode getMode() { return mode; }
+
+    /**
+     * The completion for this request according to the mode; {@code call}
+     * performs the real request and returns the completion text.
+     */
+    public String complete(String model, double temperature, JsonArray messages, Callable<String> call) throws Exception {
+        try {
+            return completeAsync(model, temperature, messages, () -> {
+                try {
+                    return CompletableFuture.completedFuture(call.call());
+                } catch (Exception e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Asynchronous form of {@link #complete}: a hit completes immediately,
+     * a miss completes when {@code call}'s future does (and is stored then).
+     */
+    public CompletableFuture<String> completeAsync(String model, double temperature, JsonArray messages,
+                                                   Supplier<CompletableFuture<String>> call) {
+        if (mode == Mode.OFF) return call.get();
+
+        JsonArray normalized = normalize(messages); // çağıran listeyi sonradan değiştirebilir
+        String key = key(model, temperature, normalized);
+        int occurrence;
+        synchronized (this) {
+            // Sıra numarası istek anında alınır: cevaplar hangi sırayla gelirse gelsin aynı slota yazılır
+            occurrence = occurrences.merge(key, 1, Integer::sum) - 1;
+        }
+
+        try {
+            if (mode != Mode.RECORD) {
+                String cached = lookup(key, occurrence);
+                if (cached != null) {
+                    synchronized (this) { hits++; }
+                    return CompletableFuture.completedFuture(cached);
+                }
+                if (mode == Mode.REPLAY) {
+                    return CompletableFuture.failedFuture(new ReplayMissException("No recorded response for request "
+                            + key.substring(0, 12) + " (occurrence " + (occurrence + 1) + ") in " + dir));
+                }
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        synchronized (this) { misses++; }
+        return call.get().thenApply(response -> {
+            try {
+                store(key, occurrence, model, temperature, normalized, response);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            return response;
+        });
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+
+    /** Hex SHA-256 of the normalized request. */
+    static String key(String model, double temperature, JsonArray messages) {
+        JsonObject canonical = new JsonObject();
+        canonical.addProperty("model", model);
+        canonical.addProperty("temperature", temperature);
+        canonical.add("messages", normalize(messages));
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] digest = sha.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static JsonArray normalize(JsonArray messages) {
+        JsonArray out = new JsonArray();
+        for (JsonElement e : messages) {
+            JsonObject m = e.getAsJsonObject();
+            JsonObject n = new JsonObject();
+            n.addProperty("role", m.get("role").getAsString());
+            String content = m.has("content") && !m.get("content").isJsonNull() ? m.get("content").getAsString() : "";
+            n.addProperty("content", content.replace("\r\n", "\n").replaceAll("[ \t]+\n", "\n").strip());
+            out.add(n);
+        }
+        return out;
+    }
+
+    private synchronized String lookup(String key, int occurrence) throws IOException {
+        Path file = dir.resolve(key + ".json");
+        if (!Files.exists(file)) return null;
+        JsonArray responses = read(file).getAsJsonArray("responses");
+        if (occurrence >= responses.size() || responses.get(occurrence).isJsonNull()) return null; // boş slot = kayıt yok
+        return responses.get(occurrence).getAsString();
+    }
+
+    private synchronized void store(String key, int occurrence, String model, double temperature, JsonArray messages, String response) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(key + ".json");
+        JsonObject entry;
+        if (Files.exists(file)) {
+            entry = read(file);
+        } else {
+            entry = new JsonObject();
+            entry.addProperty("model", model);
+            entry.addProperty("temperature", temperature);
+            entry.add("messages", normalize(messages));
+            entry.add("responses", new JsonArray());
+        }
+        // record modu aynı oturumu yeniden kaydederken eski cevabın yerine yazar.
+        // Sonraki bir tekrar önce biterse aradaki slotlar null ile doldurulur; her cevap kendi slotuna gider
+        JsonArray responses = entry.getAsJsonArray("responses");
+        while (responses.size() <= occurrence) responses.add(JsonNull.INSTANCE);
+        responses.set(occurrence, new JsonPrimitive(response));
+        // Yarım yazılmış dosya bırakmamak için önce geçici dosyaya yaz, sonra taşı
+        Path tmp = Files.createTempFile(dir, key, ".tmp");
+        Files.write(tmp, GSON.toJson(entry).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static JsonObject read(Path file) throws IOException {
+        return GSON.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), JsonObject.class);
+    }
+}
@@ -0,0 +1,506 @@
+package tools;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-call LLM telemetry: latency, token usage and cost of every completion,
+ * tagged with the subject under test, the calling agent and the purpose of
+ * the prompt (e.g. "input", "batch_input", "semantic", "test_class").
+ *
+ * Calls are aggregated per series (subject, agent, purpose): count, errors,
+ * cache hits, a latency histogram, time to first token of streamed answers,
+ * prompt/completion tokens, the prompt tokens the provider served from its
+ * prefix cache (billed at the cached rate) and cost. The
+ * orchestrator reports newly covered lines and paths per subject, from which
+ * the derived figures are computed (milliseconds, tokens and cost per newly
+ * covered line, cost per newly covered path).
+ *
+ * The totals are written as JSON and in the Prometheus text format (usable
+ * by node_exporter's textfile collector) by one background thread, at most
+ * once per {@link #EXPORT_INTERVAL_MILLIS}: the calls and progress reports of
+ * that interval share one write, and the HTTP completion threads never touch
+ * the disk. The last state is written when the JVM exits. Optionally the
+ * totals are also served over HTTP at {@code /metrics} and {@code /telemetry.json}.
+ *
+ * Configuration (system property, then environment variable):
+ * <ul>
+ *   <li>{@code llm.telemetryFile} / {@code LLM_TELEMETRY_FILE}: path without extension,
+ *       {@code .json} and {@code .prom} are appended (default {@code log/llm-telemetry};
+ *       {@code off} writes nothing)</li>
+ *   <li>{@code llm.telemetryPort} / {@code LLM_TELEMETRY_PORT}: HTTP port (default 0, no endpoint)</li>
+ *   <li>{@code llm.promptPricePerMillion} / {@code LLM_PROMPT_PRICE_PER_MILLION},
+ *       {@code llm.cachedPromptPricePerMillion} / {@code LLM_CACHED_PROMPT_PRICE_PER_MILLION} and
+ *       {@code llm.completionPricePerMillion} / {@code LLM_COMPLETION_PRICE_PER_MILLION}:
+ *       USD per million tokens; known OpenAI models have defaults, others cost 0
+ *       (cached prompt tokens cost the prompt price unless set)</li>
+ * </ul>
+ */
+public final class LLMTelemetry {
+
+    /** Upper bounds of the latency histogram buckets, in milliseconds (+Inf is implicit). */
+    static final long[] LATENCY_BUCKETS_MS = {100, 250, 500, 1000, 2000, 5000, 10000, 30000, 60000};
+
+    /** Delay between a change and the export that picks it up (and all changes after it). */
+    static final long EXPORT_INTERVAL_MILLIS = 1000;
+
+    // USD / 1M token: prompt, tamamlama, önbellekten okunan prompt
+    private static final Map<String, double[]> KNOWN_PRICES = Map.of(
+            "gpt-4o-mini", new double[] {0.15, 0.60, 0.075},
+            "gpt-4o", new double[] {2.50, 10.00, 1.25},
+            "gpt-4.1-mini", new double[] {0.40, 1.60, 0.10},
+            "gpt-4.1", new double[] {2.00, 8.00, 0.50});
+
+    private static volatile LLMTelemetry shared;
+
+    /** Aggregated figures of a series, a subject or the whole session. */
+    static final class Stats {
+        long calls;
+        long errors;
+        long cacheHits;
+        long estimatedUsage; // usage bloğu gelmeyen çağrılar
+        long promptTokens;
+        long completionTokens;
+        long cachedPromptTokens;
+        double costUsd;
+        long latencySumMs;
+        long firstTokenCount; // akışla gelen, ilk token zamanı bilinen çağrılar
+        long firstTokenSumMs;
+        final long[] buckets = new long[LATENCY_BUCKETS_MS.length + 1];
+
+        void add(Call call, long latencyMs) {
+            calls++;
+            latencySumMs += latencyMs;
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_MS.length && latencyMs > LATENCY_BUCKETS_MS[bucket]) bucket++;
+            buckets[bucket]++;
+            if (call.error != null) errors++;
+            if (!call.requested && call.error == null) cacheHits++;
+            if (call.usage != null) {
+                promptTokens += call.usage.getPromptTokens();
+                completionTokens += call.usage.getCompletionTokens();
+                cachedPromptTokens += call.usage.getCachedPromptTokens();
+                if (call.usage.isEstimated()) estimatedUsage++;
+                costUsd += call.cost;
+                if (call.usage.getFirstTokenNanos() > 0) {
+                    firstTokenCount++;
+                    firstTokenSumMs += Math.max(0, (call.usage.getFirstTokenNanos() - call.startNanos) / 1_000_000);
+                }
+            }
+        }
+
+        void merge(Stats other) {
+            calls += other.calls;
+            errors += other.errors;
+            cacheHits += other.cacheHits;
+            estimatedUsage += other.estimatedUsage;
+            promptTokens += other.promptTokens;
+            completionTokens += other.completionTokens;
+            cachedPromptTokens += other.cachedPromptTokens;
+            costUsd += other.costUsd;
+            latencySumMs += other.latencySumMs;
+            firstTokenCount += other.firstTokenCount;
+            firstTokenSumMs += other.firstTokenSumMs;
+            for (int i = 0; i < buckets.length; i++) buckets[i] += other.buckets[i];
+        }
+
+        long totalTokens() {
+            return promptTokens + completionTokens;
+        }
+
+        double cachedShare() {
+            return promptTokens == 0 ? 0 : (double) cachedPromptTokens / promptTokens;
+        }
+
+        /** Upper bound of the bucket holding the {@code q}-quantile (-1 above the last bound). */
+        long quantileMs(double q) {
+            long rank = (long) Math.ceil(q * calls);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && rank > 0) return i < LATENCY_BUCKETS_MS.length ? LATENCY_BUCKETS_MS[i] : -1;
+            }
+            return 0;
+        }
+    }
+
+    /** One LLM call in flight; see {@link #start}. */
+    public final class Call {
+        private final String subject;
+        private final String agent;
+        private final String purpose;
+        private final String model;
+        private final long startNanos = System.nanoTime();
+        private volatile boolean requested;
+        private volatile LLMCompletion usage;
+        private volatile double cost;
+        private Throwable error;
+
+        private Call(String subject, String agent, String purpose, String model) {
+            this.subject = subject;
+            this.agent = agent;
+            this.purpose = purpose;
+            this.model = model;
+        }
+
+        /**
+         * Wraps the request actually sent to the backend: records its usage and
+         * yields the text. A call whose request never runs was answered by
+         * {@link LLMResponseCache} and counts as a cache hit.
+         */
+        public CompletableFuture<String> request(CompletableFuture<LLMCompletion> completion) {
+            requested = true;
+            return completion.thenApply(c -> {
+                usage = c;
+                cost = cost(model, c.getPromptTokens(), c.getCachedPromptTokens(), c.getCompletionTokens());
+                return c.getText();
+            });
+        }
+
+        /** Records the call when {@code result} completes, successfully or not; returns {@code result}. */
+        public CompletableFuture<String> track(CompletableFuture<String> result) {
+            return result.whenComplete((text, failure) -> {
+                error = failure;
+                record(this, (System.nanoTime() - startNanos) / 1_000_000);
+            });
+        }
+    }
+
+    private final Map<String, Stats> series = new TreeMap<>(); // "subject\tagent\tpurpose"
+    private final Map<String, long[]> progress = new TreeMap<>(); // subject -> {yeni satır, yeni yol}
+    private final Path exportBase;
+    private final double[] configuredPrices;
+    private final AtomicBoolean exportPending = new AtomicBoolean();
+    private ScheduledExecutorService exporter; // ilk değişiklikte açılır
+
+    public LLMTelemetry(Path exportBase, double[] configuredPrices) {
+        this.exportBase = exportBase;
+        this.configuredPrices = configuredPrices;
+    }
+
+    /** The JVM-wide telemetry configured from system properties / environment. */
+    public static LLMTelemetry shared() {
+        LLMTelemetry s = shared;
+        if (s == null) {
+            synchronized (LLMTelemetry.class) {
+                s = shared;
+                if (s == null) {
+                    String file = Config.get("llm.telemetryFile", "LLM_TELEMETRY_FILE");
+                    if (file == null) file = "log/llm-telemetry";
+                    double[] prices = null;
+                    String prompt = Config.get("llm.promptPricePerMillion", "LLM_PROMPT_PRICE_PER_MILLION");
+                    String completion = Config.get("llm.completionPricePerMillion", "LLM_COMPLETION_PRICE_PER_MILLION");
+                    String cached = Config.get("llm.cachedPromptPricePerMillion", "LLM_CACHED_PROMPT_PRICE_PER_MILLION");
+                    if (prompt != null || completion != null || cached != null) {
+                        prices = new double[] {parsePrice(prompt), parsePrice(completion),
+                                cached != null ? parsePrice(cached) : parsePrice(prompt)};
+                    }
+                    shared = s = new LLMTelemetry(file.equalsIgnoreCase("off") ? null : Paths.get(file), prices);
+                    int port = Config.getInt("llm.telemetryPort", "LLM_TELEMETRY_PORT", 0);
+                    if (port > 0) s.serve(port);
+                }
+            }
+        }
+        return s;
+    }
+
+    private static double parsePrice(String value) {
+        try {
+            return value == null ? 0 : Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** Starts timing a call; wrap the backend request with {@link Call#request} and the result with {@link Call#track}. */
+    public Call start(String subject, String agent, String purpose, String model) {
+        return new Call(label(subject), label(agent), label(purpose), model);
+    }
+
+    private static String label(String value) {
+        return value == null || value.isBlank() ? "unknown" : value;
+    }
+
+    /** USD for the given usage of {@code model}; {@code cachedTokens} of the prompt are billed at the cached rate. */
+    double cost(String model, long promptTokens, long cachedTokens, long completionTokens) {
+        double[] prices = configuredPrices != null ? configuredPrices : KNOWN_PRICES.get(model);
+        if (prices == null) return 0;
+        long cached = Math.min(cachedTokens, promptTokens);
+        return ((promptTokens - cached) * prices[0] + cached * prices[2] + completionTokens * prices[1]) / 1_000_000.0;
+    }
+
+    private void record(Call call, long latencyMs) {
+        synchronized (this) {
+            series.computeIfAbsent(call.subject + "\t" + call.agent + "\t" + call.purpose, k -> new Stats()).add(call, latencyMs);
+        }
+        scheduleExport();
+    }
+
+    /** Coverage gained on {@code subject}: lines and logic paths covered for the first time. */
+    public void recordProgress(String subject, int newLines, int newPaths) {
+        synchronized (this) {
+            long[] p = progress.computeIfAbsent(label(subject), k -> new long[2]);
+            p[0] += Math.max(0, newLines);
+            p[1] += Math.max(0, newPaths);
+        }
+        scheduleExport();
+    }
+
+    /** Totals of one subject, or of the session when {@code subject} is null. */
+    synchronized Stats totals(String subject) {
+        Stats total = new Stats();
+        for (Map.Entry<String, Stats> e : series.entrySet()) {
+            if (subject == null || e.getKey().startsWith(subject + "\t")) total.merge(e.getValue());
+        }
+        return total;
+    }
+
+    /** One line for the console: calls, latency, tokens, cost and the per-line figures. */
+    public synchronized String summary(String subject) {
+        Stats s = totals(subject);
+        long[] p = subject == null ? sessionProgress() : progress.getOrDefault(subject, new long[2]);
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "%d calls (%d cached, %d failed), p50 <= %s, p95 <= %s, %d prompt (%.0f%% prefix-cached) + %d completion tokens, $%.4f",
+                s.calls, s.cacheHits, s.errors, bound(s.quantileMs(0.5)), bound(s.quantileMs(0.95)),
+                s.promptTokens, 100.0 * s.cachedShare(), s.completionTokens, s.costUsd));
+        if (s.firstTokenCount > 0) sb.append(String.format(Locale.ROOT, ", first token %d ms avg", s.firstTokenSumMs / s.firstTokenCount));
+        if (p[0] > 0) {
+            sb.append(String.format(Locale.ROOT, " | per new line: %.0f ms, %.0f tokens, $%.5f",
+                    (double) s.latencySumMs / p[0], (double) s.totalTokens() / p[0], s.costUsd / p[0]));
+        }
+        return sb.toString();
+    }
+
+    private static String bound(long ms) {
+        return ms < 0 ? ">" + LATENCY_BUCKETS_MS[LATENCY_BUCKETS_MS.length - 1] + "ms" : ms + "ms";
+    }
+
+    private long[] sessionProgress() {
+        long[] total = new long[2];
+        for (long[] p : progress.values()) {
+            total[0] += p[0];
+            total[1] += p[1];
+        }
+        return total;
+    }
+
+    /** Session, per-subject and per-series figures as JSON. */
+    public synchronized String toJson() {
+        JsonObject root = new JsonObject();
+        root.add("session", statsJson(totals(null), sessionProgress()));
+        JsonObject subjects = new JsonObject();
+        Map<String, Map<String, Stats>> byPurpose = new TreeMap<>();
+        Map<String, Map<String, Stats>> byAgent = new TreeMap<>();
+        for (Map.Entry<String, Stats> e : series.entrySet()) {
+            String[] key = e.getKey().split("\t");
+            byAgent.computeIfAbsent(key[0], k -> new TreeMap<>()).computeIfAbsent(key[1], k -> new Stats()).merge(e.getValue());
+            byPurpose.computeIfAbsent(key[0], k -> new TreeMap<>()).computeIfAbsent(key[2], k -> new Stats()).merge(e.getValue());
+        }
+        for (String subject : byPurpose.keySet()) {
+            JsonObject s = statsJson(totals(subject), progress.getOrDefault(subject, new long[2]));
+            s.add("byAgent", breakdown(byAgent.get(subject)));
+            s.add("byPurpose", breakdown(byPurpose.get(subject)));
+            subjects.add(subject, s);
+        }
+        root.add("subjects", subjects);
+        return new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(root);
+    }
+
+    /** One subject's totals and per-line figures, the same object {@link #toJson()} lists under "subjects". */
+    public synchronized JsonObject subjectJson(String subject) {
+        return statsJson(totals(subject), progress.getOrDefault(subject, new long[2]));
+    }
+
+    private static JsonObject breakdown(Map<String, Stats> parts) {
+        JsonObject out = new JsonObject();
+        for (Map.Entry<String, Stats> e : parts.entrySet()) out.add(e.getKey(), statsJson(e.getValue(), null));
+        return out;
+    }
+
+    private static JsonObject statsJson(Stats s, long[] progress) {
+        JsonObject o = new JsonObject();
+        o.addProperty("calls", s.calls);
+        o.addProperty("errors", s.errors);
+        o.addProperty("cacheHits", s.cacheHits);
+        o.addProperty("estimatedUsage", s.estimatedUsage);
+        o.addProperty("promptTokens", s.promptTokens);
+        o.addProperty("completionTokens", s.completionTokens);
+        o.addProperty("cachedPromptTokens", s.cachedPromptTokens);
+        o.addProperty("cachedPromptShare", s.cachedShare());
+        o.addProperty("costUsd", s.costUsd);
+        JsonObject latency = new JsonObject();
+        latency.addProperty("sumMs", s.latencySumMs);
+        latency.addProperty("meanMs", s.calls == 0 ? 0 : s.latencySumMs / s.calls);
+        latency.addProperty("p50Ms", s.quantileMs(0.5));
+        latency.addProperty("p95Ms", s.quantileMs(0.95));
+        if (s.firstTokenCount > 0) latency.addProperty("meanFirstTokenMs", s.firstTokenSumMs / s.firstTokenCount);
+        JsonArray buckets = new JsonArray();
+        for (int i = 0; i < s.buckets.length; i++) {
+            JsonObject b = new JsonObject();
+            b.addProperty("le", i < LATENCY_BUCKETS_MS.length ? String.valueOf(LATENCY_BUCKETS_MS[i]) : "+Inf");
+            b.addProperty("count", s.buckets[i]);
+            buckets.add(b);
+        }
+        latency.add("histogram", buckets);
+        o.add("latency", latency);
+        if (progress != null) {
+            JsonObject coverage = new JsonObject();
+            coverage.addProperty("newLines", progress[0]);
+            coverage.addProperty("newPaths", progress[1]);
+            if (progress[0] > 0) {
+                coverage.addProperty("msPerNewLine", (double) s.latencySumMs / progress[0]);
+                coverage.addProperty("tokensPerNewLine", (double) s.totalTokens() / progress[0]);
+                coverage.addProperty("costPerNewLineUsd", s.costUsd / progress[0]);
+            }
+            if (progress[1] > 0) coverage.addProperty("costPerNewPathUsd", s.costUsd / progress[1]);
+            o.add("coverage", coverage);
+        }
+        return o;
+    }
+
+    /** All series in the Prometheus text exposition format. */
+    public synchronized String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# HELP llm_request_duration_seconds LLM call latency as seen by the agent.\n")
+          .append("# TYPE llm_request_duration_seconds histogram\n");
+        for (Map.Entry<String, Stats> e : series.entrySet()) {
+            String labels = labels(e.getKey());
+            Stats s = e.getValue();
+            long cumulative = 0;
+            for (int i = 0; i < s.buckets.length; i++) {
+                cumulative += s.buckets[i];
+                String le = i < LATENCY_BUCKETS_MS.length ? String.valueOf(LATENCY_BUCKETS_MS[i] / 1000.0) : "+Inf";
+                sb.append("llm_request_duration_seconds_bucket{").append(labels).append(",le=\"").append(le).append("\"} ")
+                  .append(cumulative).append('\n');
+            }
+            sb.append("llm_request_duration_seconds_sum{").append(labels).append("} ").append(s.latencySumMs / 1000.0).append('\n');
+            sb.append("llm_request_duration_seconds_count{").append(labels).append("} ").append(s.calls).append('\n');
+        }
+        counter(sb, "llm_request_errors_total", "Failed LLM calls.", s -> s.errors);
+        counter(sb, "llm_cache_hits_total", "Calls answered by the response cache.", s -> s.cacheHits);
+        counter(sb, "llm_prompt_tokens_total", "Prompt tokens (reported, or estimated when missing).", s -> s.promptTokens);
+        counter(sb, "llm_cached_prompt_tokens_total", "Prompt tokens served from the provider's prefix cache.", s -> s.cachedPromptTokens);
+        counter(sb, "llm_first_token_seconds_sum", "Time to first streamed token, summed.", s -> s.firstTokenSumMs / 1000.0);
+        counter(sb, "llm_first_token_seconds_count", "Streamed calls with a first-token time.", s -> s.firstTokenCount);
+        counter(sb, "llm_completion_tokens_total", "Completion tokens (reported, or estimated when missing).", s -> s.completionTokens);
+        counter(sb, "llm_cost_usd_total", "Estimated cost in USD.", s -> s.costUsd);
+        sb.append("# HELP llm_covered_lines_total Lines covered for the first time.\n# TYPE llm_covered_lines_total counter\n");
+        for (Map.Entry<String, long[]> e : progress.entrySet()) {
+            sb.append("llm_covered_lines_total{subject=\"").append(escape(e.getKey())).append("\"} ").append(e.getValue()[0]).append('\n');
+        }
+        sb.append("# HELP llm_covered_paths_total Logic paths covered for the first time.\n# TYPE llm_covered_paths_total counter\n");
+        for (Map.Entry<String, long[]> e : progress.entrySet()) {
+            sb.append("llm_covered_paths_total{subject=\"").append(escape(e.getKey())).append("\"} ").append(e.getValue()[1]).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void counter(StringBuilder sb, String name, String help, java.util.function.ToDoubleFunction<Stats> value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append("\n# TYPE ").append(name).append(" counter\n");
+        for (Map.Entry<String, Stats> e : series.entrySet()) {
+            double v = value.applyAsDouble(e.getValue());
+            sb.append(name).append('{').append(labels(e.getKey())).append("} ")
+              .append(v == Math.rint(v) ? String.valueOf((long) v) : String.valueOf(v)).append('\n');
+        }
+    }
+
+    private static String labels(String seriesKey) {
+        String[] key = seriesKey.split("\t");
+        return "subject=\"" + escape(key[0]) + "\",agent=\"" + escape(key[1]) + "\",purpose=\"" + escape(key[2]) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Queues an export unless one is already waiting; that one will see this
+     * change too, since it reads the totals when it runs.
+     */
+    private void scheduleExport() {
+        if (exportBase == null || !exportPending.compareAndSet(false, true)) return;
+        exporter().schedule(() -> {
+            exportPending.set(false); // yazarken gelen değişiklik yeni bir dışa aktarım kuyruğa koyar
+            export();
+        }, EXPORT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService exporter() {
+        if (exporter == null) {
+            exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "llm-telemetry");
+                t.setDaemon(true); // JVM'in kapanmasını engellemesin
+                return t;
+            });
+            // Son aralıktaki çağrılar da dosyaya düşsün
+            Runtime.getRuntime().addShutdownHook(new Thread(this::export, "llm-telemetry-flush"));
+        }
+        return exporter;
+    }
+
+    /** Writes the JSON and Prometheus files now (no-op when exporting is off). */
+    public void export() {
+        if (exportBase == null) return;
+        String json;
+        String prom;
+        synchronized (this) {
+            json = toJson();
+            prom = toPrometheus();
+        }
+        try {
+            write(Paths.get(exportBase + ".json"), json);
+            write(Paths.get(exportBase + ".prom"), prom);
+        } catch (IOException e) {
+            System.err.println("[LLMTelemetry] Export failed: " + e.getMessage());
+        }
+    }
+
+    static synchronized void write(Path file, String content) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        // Okuyan (ör. textfile collector) yarım dosya görmesin: geçici dosyaya yaz, sonra taşı
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        Files.write(tmp, content.getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void serve(int port) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+            server.createContext("/metrics", exchange -> respond(exchange, "text/plain; version=0.0.4", toPrometheus()));
+            server.createContext("/telemetry.json", exchange -> respond(exchange, "application/json", toJson()));
+            server.setExecutor(null);
+            server.start();
+            System.out.println("[LLMTelemetry] Serving /metrics and /telemetry.json on port " + port);
+        } catch (IOException e) {
+            System.err.println("[LLMTelemetry] Cannot listen on port " + port + ": " + e.getMessage());
+        }
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, String type, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
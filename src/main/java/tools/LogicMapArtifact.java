@@ -1,7 +1,6 @@
 package tools;
 
 import cartago.*;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.stmt.IfStmt;
 import com.github.javaparser.ast.stmt.WhileStmt;
@@ -12,6 +11,7 @@ import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import com.github.javaparser.ast.NodeList;
 import java.util.*;
@@ -30,143 +30,118 @@ public class LogicMapArtifact extends Artifact {
     @OPERATION
     public void extractLogicPaths(String sourceCode, OpFeedbackParam<Object[]> paths) {
         try {
-            CompilationUnit cu = StaticJavaParser.parse(sourceCode);
-            List<String> foundPaths = new ArrayList<>();
+            // AST, runner ile paylaşılan önbellekten gelir; aynı kaynak ikinci kez ayrıştırılmaz
+            SourceCache.ParsedSource parsed = SourceCache.get(sourceCode);
+            CompilationUnit cu = parsed.getCompilationUnit();
+            PathTree tree = new PathTree(parsed); // yol kayıtları kaynak önbellekten düşünce silinir
             
             // İlk önce input parametrelerini ve değişken bağımlılıklarını topla
             extractInputParameters(cu);
             buildVariableDependencyMap(cu);
-            extractInputParameters(cu);
-            buildVariableDependencyMap(cu);
+            tree.setAssignmentCounts(countAssignments(cu));
 
-            // Ajanın anlayacağı şekilde hiyerarşiyi takip eden Visitor
-            cu.accept(new VoidVisitorAdapter<List<String>>() {
+            // Ajanın anlayacağı şekilde hiyerarşiyi takip eden Visitor.
+            // Yol artık kopyalanan bir string listesi değil: her dal ağaca tek bir düğüm ekler.
+            cu.accept(new VoidVisitorAdapter<Scope>() {
+
+                // Her metod kökten başlar (önceki metodun erken return koşulları sızmasın)
+                @Override
+                public void visit(MethodDeclaration n, Scope scope) {
+                    super.visit(n, new Scope(tree.root(), n));
+                }
                 
                 // --- 1. IF BLOKLARI (Mevcut Mantık) ---
                 @Override
-                public void visit(IfStmt n, List<String> currentPath) {
-                    String condition = n.getCondition().toString();
-                    String subLogic = buildSubLogic(condition);
+                public void visit(IfStmt n, Scope scope) {
+                    Expression condition = n.getCondition();
+                    Map<String, Expression> subLogic = buildSubLogic(condition);
 
                     // --- IF (THEN) DALI ---
-                    List<String> thenPath = new ArrayList<>(currentPath);
-                    String thenPathStr = "(" + condition + ")";
-                    if (!subLogic.isEmpty()) {
-                        thenPathStr += " [SUB_LOGIC: " + subLogic + "]";
-                    }
-                    thenPath.add(thenPathStr);
+                    PathTree.Node thenNode = tree.child(scope.head, condition, false, null, subLogic);
                     
                     Statement thenStmt = n.getThenStmt();
                     int thenTargetLine = getFirstLineInside(thenStmt);
 
                     if (thenTargetLine != -1) {
-                        foundPaths.add(thenTargetLine + "|" + "PATH_TO_IF: " + String.join(" && ", thenPath));
+                        tree.addPath(thenTargetLine, "PATH_TO_IF", thenNode, scope.method);
                     }
                     
                     // Then bloğunda return var mı kontrol et
                     boolean thenHasReturn = hasReturnStatement(thenStmt);
                     
-                    // Recursive: İçeriye girerken thenPath (condition=TRUE) ile devam et
-                    n.getThenStmt().accept(this, thenPath);
+                    // Recursive: İçeriye girerken thenNode (condition=TRUE) ile devam et
+                    n.getThenStmt().accept(this, new Scope(thenNode, scope.method));
 
                     // --- ELSE DALI ---
                     if (n.getElseStmt().isPresent()) {
-                        List<String> elsePath = new ArrayList<>(currentPath);
-                        String elsePathStr = "!(" + condition + ")";
-                        if (!subLogic.isEmpty()) {
-                            elsePathStr += " [SUB_LOGIC: " + subLogic + "]";
-                        }
-                        elsePath.add(elsePathStr);
+                        PathTree.Node elseNode = tree.child(scope.head, condition, true, null, subLogic);
                         Statement elseStmt = n.getElseStmt().get();
                         
                         int elseTargetLine = getFirstLineInside(elseStmt);
                         
                         if (!(elseStmt instanceof IfStmt) && elseTargetLine != -1) {
-                            foundPaths.add(elseTargetLine + "|" + "PATH_TO_ELSE: " + String.join(" && ", elsePath));
+                            tree.addPath(elseTargetLine, "PATH_TO_ELSE", elseNode, scope.method);
                         }
-                        // Recursive: Else içine girerken elsePath (condition=FALSE) ile devam et
-                        elseStmt.accept(this, elsePath);
+                        // Recursive: Else içine girerken elseNode (condition=FALSE) ile devam et
+                        elseStmt.accept(this, new Scope(elseNode, scope.method));
                     }
                     
                     // ÖNEMLİ: Eğer then bloğunda return varsa ve else bloğu yoksa,
                     // if'ten sonra gelen kodlar sadece condition=FALSE olduğunda çalışır.
-                    // Bu durumda, currentPath'e negated condition'ı ekliyoruz.
+                    // Bu durumda, mevcut kapsamın ucuna negated condition düğümünü ekliyoruz.
                     if (thenHasReturn && !n.getElseStmt().isPresent()) {
-                        String negatedCondition = "!(" + condition + ")";
-                        if (!subLogic.isEmpty()) {
-                            negatedCondition += " [SUB_LOGIC: " + subLogic + "]";
-                        }
-                        currentPath.add(negatedCondition);
+                        // Then bloğu her yolda dönmüyorsa bu koşul sadece bir varsayım (statik analizde kesin sayılmaz)
+                        scope.head = tree.child(scope.head, condition, true, null, subLogic, !alwaysExits(thenStmt));
                     }
                 }
 
                 // --- 2. WHILE DÖNGÜLERİ (YENİ - İKİYE BÖLME STRATEJİSİ) ---
                 @Override
-                public void visit(WhileStmt n, List<String> currentPath) {
-                    String condition = n.getCondition().toString();
-                    String subLogic = buildSubLogic(condition);
+                public void visit(WhileStmt n, Scope scope) {
+                    Expression condition = n.getCondition();
+                    Map<String, Expression> subLogic = buildSubLogic(condition);
 
                     // YOL A: Döngüye Girme (Condition == TRUE)
-                    List<String> enterPath = new ArrayList<>(currentPath);
-                    String enterPathStr = "(WHILE_ENTER: " + condition + ")";
-                    if (!subLogic.isEmpty()) {
-                        enterPathStr += " [SUB_LOGIC: " + subLogic + "]";
-                    }
-                    enterPath.add(enterPathStr);
+                    PathTree.Node enterNode = tree.child(scope.head, condition, false, "WHILE_ENTER", subLogic);
                     
                     int insideLine = getFirstLineInside(n.getBody());
                     if (insideLine != -1) {
-                        foundPaths.add(insideLine + "|" + "TARGET_LOOP_ENTER: " + String.join(" && ", enterPath));
+                        tree.addPath(insideLine, "TARGET_LOOP_ENTER", enterNode, scope.method);
                     }
 
                     // YOL B: Döngüyü Pas Geçme (Condition == FALSE)
-                    List<String> skipPath = new ArrayList<>(currentPath);
-                    String skipPathStr = "!(WHILE_ENTER: " + condition + ")";
-                    if (!subLogic.isEmpty()) {
-                        skipPathStr += " [SUB_LOGIC: " + subLogic + "]";
-                    }
-                    skipPath.add(skipPathStr);
+                    PathTree.Node skipNode = tree.child(scope.head, condition, true, "WHILE_ENTER", subLogic);
                     
                     // Hedef satır olarak döngünün başladığı satırı veriyoruz (Kapsama raporunda burası işaretlenmeli)
-                    foundPaths.add(n.getBegin().get().line + "|" + "TARGET_LOOP_SKIP: " + String.join(" && ", skipPath));
+                    tree.addPath(n.getBegin().get().line, "TARGET_LOOP_SKIP", skipNode, scope.method);
 
-                    // Recursive: Döngünün İÇİNİ analiz ederken "enterPath" kullanıyoruz.
+                    // Recursive: Döngünün İÇİNİ analiz ederken "enterNode" kullanıyoruz.
                     // Çünkü içerdeki kodlara ulaşmak için döngüye girmiş olmamız şart.
-                    super.visit(n, enterPath); 
+                    super.visit(n, new Scope(enterNode, scope.method)); 
                 }
 
                 // --- 3. FOR DÖNGÜLERİ (YENİ - İKİYE BÖLME STRATEJİSİ) ---
                 @Override
-                public void visit(ForStmt n, List<String> currentPath) {
+                public void visit(ForStmt n, Scope scope) {
                     // For döngüsünde koşul kısmı opsiyonel olabilir (örn: for(;;)). Yoksa "true" varsay.
-                    String condition = n.getCompare().isPresent() ? n.getCompare().get().toString() : "true";
-                    String subLogic = buildSubLogic(condition);
+                    Expression condition = n.getCompare().isPresent() ? n.getCompare().get() : new BooleanLiteralExpr(true);
+                    Map<String, Expression> subLogic = buildSubLogic(condition);
 
                     // YOL A: Döngüye Girme
-                    List<String> enterPath = new ArrayList<>(currentPath);
-                    String enterPathStr = "(FOR_ENTER: " + condition + ")";
-                    if (!subLogic.isEmpty()) {
-                        enterPathStr += " [SUB_LOGIC: " + subLogic + "]";
-                    }
-                    enterPath.add(enterPathStr);
+                    PathTree.Node enterNode = tree.child(scope.head, condition, false, "FOR_ENTER", subLogic);
                     
                     int insideLine = getFirstLineInside(n.getBody());
                     if (insideLine != -1) {
-                        foundPaths.add(insideLine + "|" + "TARGET_LOOP_ENTER: " + String.join(" && ", enterPath));
+                        tree.addPath(insideLine, "TARGET_LOOP_ENTER", enterNode, scope.method);
                     }
 
                     // YOL B: Döngüyü Pas Geçme
-                    List<String> skipPath = new ArrayList<>(currentPath);
-                    String skipPathStr = "!(FOR_ENTER: " + condition + ")";
-                    if (!subLogic.isEmpty()) {
-                        skipPathStr += " [SUB_LOGIC: " + subLogic + "]";
-                    }
-                    skipPath.add(skipPathStr);
+                    PathTree.Node skipNode = tree.child(scope.head, condition, true, "FOR_ENTER", subLogic);
                     
-                    foundPaths.add(n.getBegin().get().line + "|" + "TARGET_LOOP_SKIP: " + String.join(" && ", skipPath));
+                    tree.addPath(n.getBegin().get().line, "TARGET_LOOP_SKIP", skipNode, scope.method);
 
-                    // Recursive: İçerisi için enterPath kullan
-                    super.visit(n, enterPath);
+                    // Recursive: İçerisi için enterNode kullan
+                    super.visit(n, new Scope(enterNode, scope.method));
                 }
 
                 // --- YARDIMCI METOD (AYNI KALDI) ---
@@ -182,18 +157,127 @@ public class LogicMapArtifact extends Artifact {
                     return -1;
                 }
                 
+                // Statement her yürütmede return/throw ile bitiyor mu?
+                private boolean alwaysExits(Statement stmt) {
+                    if (stmt.isReturnStmt() || stmt.isThrowStmt()) {
+                        return true;
+                    }
+                    if (stmt.isBlockStmt()) {
+                        return stmt.asBlockStmt().getStatements().stream().anyMatch(this::alwaysExits);
+                    }
+                    if (stmt.isIfStmt() && stmt.asIfStmt().getElseStmt().isPresent()) {
+                        return alwaysExits(stmt.asIfStmt().getThenStmt()) && alwaysExits(stmt.asIfStmt().getElseStmt().get());
+                    }
+                    return false;
+                }
+
                 // --- YENİ YARDIMCI METOD: RETURN STATEMENT KONTROLÜ ---
                 private boolean hasReturnStatement(Statement stmt) {
                     // Statement içinde herhangi bir return ifadesi var mı kontrol et
                     return !stmt.findAll(ReturnStmt.class).isEmpty();
                 }
-            }, new ArrayList<>()); 
+            }, new Scope(tree.root(), null)); 
 
+            // Ajana tipli yol kayıtları gider: [hedef satır, yol ID, tür, durum].
+            // Koşul AST'leri ve SUB_LOGIC bağları kayıtta kalır (PathTree.lookup), metin sadece renderPath ile istenir.
+            // Durum: "feasible" (tanıklı), "infeasible" (çelişkili koşullar) veya "unknown"
+            // Çelişki kontrolü her yol için yapılır; çözücü ise denek başına bir süre bütçesiyle çalışır.
+            // Bütçe bitince kalan yollar "unknown" gider ve solvePath'te ilk istendiğinde çözülür.
+            long deadline = System.nanoTime() + solveBudgetMillis() * 1_000_000L;
+            List<Object[]> foundPaths = new ArrayList<>();
+            for (PathTree.LogicPath path : tree.getPaths()) {
+                PathFeasibility verdict = PathFeasibility.analyze(path.constraints(), deadline);
+                if (verdict != null) path.setFeasibility(verdict);
+                PathFeasibility.Verdict status = verdict != null ? verdict.getVerdict() : PathFeasibility.Verdict.UNKNOWN;
+                foundPaths.add(new Object[] { path.getTargetLine(), path.getId(), path.getKind(), status.label() });
+            }
             paths.set(foundPaths.toArray());
         } catch (Exception e) {
             failed("Logic extraction failed: " + e.getMessage());
         }
     }
+
+    /**
+     * Yolun metin gösterimini üretir (sadece prompt gerektiğinde çağrılır).
+     * Örnek: 31 -> "PATH_TO_IF: !(a <= 0 || b <= 0 || c <= 0) && (a + b < c || ...)"
+     */
+    @OPERATION
+    public void renderPath(int pathId, OpFeedbackParam<String> text) {
+        PathTree.LogicPath path = PathTree.lookup(pathId);
+        if (path == null) {
+            failed("Unknown path id: " + pathId);
+            return;
+        }
+        text.set(path.render());
+    }
+
+    /**
+     * Yol için LLM'e gitmeden girdi üretmeye çalışır.
+     * Koşullar input parametreleri cinsinden derlenir ve sınırlı bir aday değer
+     * uzayında geri izlemeli arama yapılır. Bulunursa JSON argüman dizisi döner
+     * (örn. "[3, 4, 5]"), karar verilemezse "UNKNOWN".
+     */
+    @OPERATION
+    public void solvePath(int pathId, OpFeedbackParam<String> inputJson) {
+        PathTree.LogicPath path = PathTree.lookup(pathId);
+        if (path == null) {
+            failed("Unknown path id: " + pathId);
+            return;
+        }
+        PathFeasibility known = path.getFeasibility();
+        if (known == null) {
+            // Harita çıkarılırken çözücü bütçesi bu yola yetmedi: şimdi çöz, sonucu yolda sakla
+            known = PathFeasibility.analyze(path.constraints());
+            path.setFeasibility(known);
+        }
+        inputJson.set(known.getWitness().orElse(PathSolver.UNKNOWN));
+    }
+
+    /**
+     * extractLogicPaths'te yerel çözücüye ayrılan toplam süre (ms):
+     * {@code logic.solveBudgetMillis} / {@code LOGIC_SOLVE_BUDGET_MILLIS}, varsayılan 2000
+     */
+    private static long solveBudgetMillis() {
+        return Math.max(0, Config.getInt("logic.solveBudgetMillis", "LOGIC_SOLVE_BUDGET_MILLIS", 2000));
+    }
+
+    /**
+     * Visitor kapsamı: o anki dalın ağaçtaki uç düğümü ve ait olduğu metod.
+     * Erken return sonrası negated koşul bu ucu ilerletir, kardeş ifadeler de onu görür.
+     */
+    private static class Scope {
+        PathTree.Node head;
+        final MethodDeclaration method;
+
+        Scope(PathTree.Node head, MethodDeclaration method) {
+            this.head = head;
+            this.method = method;
+        }
+    }
+
+    /**
+     * Her değişkenin (alan ve dizi elemanı dahil) kaç kez yazıldığını sayar.
+     * Tek atamalı yerel değişkenlerin SUB_LOGIC genişletmesi kesindir; birden fazla
+     * atanan (veya döngüde artırılan) değişkenlerinki sadece yaklaşıktır.
+     */
+    private Map<String, Integer> countAssignments(CompilationUnit cu) {
+        Map<String, Integer> counts = new HashMap<>();
+        cu.findAll(VariableDeclarator.class).forEach(var -> {
+            if (var.getInitializer().isPresent()) {
+                counts.merge(var.getNameAsString(), 1, Integer::sum);
+            }
+        });
+        cu.findAll(AssignExpr.class).forEach(assign ->
+            counts.merge(assign.getTarget().toString(), 1, Integer::sum));
+        cu.findAll(UnaryExpr.class).forEach(unary -> {
+            UnaryExpr.Operator op = unary.getOperator();
+            if (op == UnaryExpr.Operator.PREFIX_INCREMENT || op == UnaryExpr.Operator.POSTFIX_INCREMENT
+                    || op == UnaryExpr.Operator.PREFIX_DECREMENT || op == UnaryExpr.Operator.POSTFIX_DECREMENT) {
+                counts.merge(unary.getExpression().toString(), 1, Integer::sum);
+            }
+        });
+        return counts;
+    }
     
     /**
      * Method parametrelerini (input parametreleri) çıkarır
@@ -541,11 +625,9 @@ public class LogicMapArtifact extends Artifact {
      * Condition: diff > 0
      * Input params: a, b
      * Variable definitions: sum = a + b, product = a * b, diff = sum - product
-     * Output: "diff = (a + b) - (a * b)"
+     * Output: {diff -> (a + b) - (a * b)}  (metin hali: "diff = (a + b) - (a * b)")
      */
-    private String buildSubLogic(String condition) {
-        Expression conditionExpr = StaticJavaParser.parseExpression(condition);
-        
+    private Map<String, Expression> buildSubLogic(Expression conditionExpr) {
         Set<String> conditionVars = extractVariablesFromExpression(conditionExpr);
         
         // Field access'leri de ekle (p.age, box.area gibi)
@@ -560,7 +642,7 @@ public class LogicMapArtifact extends Artifact {
             conditionVars.add(arrayAccess.toString());
         }
         
-        List<String> subLogicParts = new ArrayList<>();
+        Map<String, Expression> subLogic = new LinkedHashMap<>();
         
         for (String var : conditionVars) {
             // Eğer değişken direkt input parametresi ise, sub-logic gerekmez
@@ -571,11 +653,11 @@ public class LogicMapArtifact extends Artifact {
             // Değişkenin expression'ını bul ve input parametrelerine kadar genişlet
             Expression expandedExpr = expandToInputs(var, new HashSet<>());
             if (expandedExpr != null) {
-                subLogicParts.add(var + " = " + expandedExpr.toString());
+                subLogic.put(var, expandedExpr);
             }
         }
         
-        return String.join("; ", subLogicParts);
+        return subLogic.isEmpty() ? Collections.emptyMap() : subLogic;
     }
     
     /**
@@ -0,0 +1,110 @@
+package tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * {@link LLMBackend} for any server speaking the OpenAI chat completions API:
+ * OpenAI itself, or a local llama.cpp / vLLM / Ollama server. Requests go
+ * through the shared {@link LLMHttp} client, so rate limiting, retries and
+ * the concurrency cap apply to every endpoint alike.
+ *
+ * Configuration (system property, then environment variable):
+ * <ul>
+ *   <li>{@code llm.baseUrl} / {@code LLM_BASE_URL}: e.g. {@code http://localhost:8000/v1};
+ *       {@code /chat/completions} is appended</li>
+ *   <li>{@code llm.url} / {@code LLM_URL}: the full chat completions URL (wins over the base URL)</li>
+ *   <li>{@code OPENAI_API_KEY}: only required for the hosted OpenAI endpoint</li>
+ * </ul>
+ */
+public final class OpenAICompatibleBackend implements LLMBackend {
+
+    public static final String OPENAI_BASE_URL = "https://api.openai.com/v1";
+    public static final String LOCAL_BASE_URL = "http://localhost:8080/v1";
+    public static final String DEFAULT_MODEL = "gpt-4o-mini";
+
+    private final String name;
+    private final String url;
+    private final String apiKey;
+    private final String model;
+
+    public OpenAICompatibleBackend(String name, String chatCompletionsUrl, String apiKey, String model) {
+        this.name = name;
+        this.url = chatCompletionsUrl;
+        this.apiKey = apiKey == null || apiKey.isBlank() ? null : apiKey;
+        this.model = model;
+    }
+
+    /** The hosted OpenAI API, or whatever base URL is configured. */
+    public static OpenAICompatibleBackend openAI(String model) {
+        return new OpenAICompatibleBackend("openai", configuredUrl(OPENAI_BASE_URL), apiKey(), model);
+    }
+
+    /** An OpenAI-compatible server on this machine; the API key is sent only if one is set. */
+    public static OpenAICompatibleBackend local(String model) {
+        return new OpenAICompatibleBackend("local", configuredUrl(LOCAL_BASE_URL), apiKey(), model);
+    }
+
+    private static String configuredUrl(String defaultBase) {
+        String url = Config.get("llm.url", "LLM_URL");
+        if (url != null) return url;
+        String base = Config.get("llm.baseUrl", "LLM_BASE_URL");
+        if (base == null) base = defaultBase;
+        return base.replaceAll("/+$", "") + "/chat/completions";
+    }
+
+    private static String apiKey() {
+        // Önce -DOPENAI_API_KEY=..., sonra ortam değişkeni
+        return Config.get("OPENAI_API_KEY", "OPENAI_API_KEY");
+    }
+
+    @Override
+    public String name() { return name; }
+
+    @Override
+    public String model() { return model; }
+
+    public String getUrl() { return url; }
+
+    @Override
+    public String configurationError() {
+        if (apiKey == null && url.startsWith(OPENAI_BASE_URL)) {
+            return "OPENAI_API_KEY is not set. Use env var or -DOPENAI_API_KEY=... JVM arg.";
+        }
+        return null;
+    }
+
+    @Override
+    public CompletableFuture<LLMCompletion> complete(JsonArray messages, double temperature, int maxTokens) {
+        JsonObject body = body(messages, temperature);
+        if (maxTokens > 0) body.addProperty("max_tokens", maxTokens);
+        long promptChars = messages.toString().length();
+        return LLMHttp.shared().postJsonAsync(url, apiKey, body.toString())
+                .thenApply(response -> completionOrThrow(response, promptChars));
+    }
+
+    @Override
+    public CompletableFuture<LLMCompletion> stream(JsonArray messages, double temperature, CompletionDetector detector) {
+        if (!detector.isStreamingUseful()) return LLMBackend.super.stream(messages, temperature, detector);
+        return LLMHttp.shared().streamChatAsync(url, apiKey, body(messages, temperature), detector);
+    }
+
+    private JsonObject body(JsonArray messages, double temperature) {
+        JsonObject body = new JsonObject();
+        body.addProperty("model", model);
+        body.add("messages", messages);
+        body.addProperty("temperature", temperature);
+        return body;
+    }
+
+    private static LLMCompletion completionOrThrow(HttpResponse<String> response, long promptChars) {
+        try {
+            return LLMHttp.completion(response, promptChars);
+        } catch (LLMHttp.StatusException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
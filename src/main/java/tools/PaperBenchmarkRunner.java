@@ -2,9 +2,6 @@ package tools;
 
 import java.io.*;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDateTime;
@@ -21,8 +18,6 @@ import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.runtime.*;
 
 import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 /**
  * Paper Benchmark Runner
@@ -42,11 +37,12 @@ import com.google.gson.JsonParser;
 public class PaperBenchmarkRunner {
 
     // ── Configuration ──────────────────────────────────────────────────────────
-    // Set the OPENAI_API_KEY environment variable before running.
-    private static final String API_KEY = System.getenv("OPENAI_API_KEY");
-    private static final String OPENAI_URL = "https://api.openai.com/v1/chat/completions";
-    private static final String MODEL_NAME = "gpt-4o-mini";
+    // Backend and model come from -Dllm.backend / -Dllm.model (see LLMBackend);
+    // the OpenAI backend needs the OPENAI_API_KEY environment variable.
+    private static final String MODEL_NAME = LLMBackends.shared().model();
     private static final int MAX_REFLECTION_STEPS = 5;
+    // Önekten (kurallar + kaynak) sonra tutulan son cevap/geri bildirim çifti sayısı (0: tümü)
+    private static final int HISTORY_WINDOW = ChatHistory.configuredWindow();
     private static final String SOURCE_DIR = "src/main/java/app/";
 
     // ── Benchmark Subject Definitions ──────────────────────────────────────────
@@ -143,16 +139,16 @@ public class PaperBenchmarkRunner {
         result.sourceLines = countSourceLines(sourceCode);
         result.branchCount = countBranches(sourceCode);
 
-        JsonArray messageHistory = new JsonArray();
-        addMessage(messageHistory, "user", createZeroShotPrompt(sourceCode));
+        // Kurallar ve kaynak her adımda aynı önek; sadece son adımlar arkasına eklenir (prompt önbelleği)
+        ChatHistory history = new ChatHistory(ZERO_SHOT_RULES, createSubjectPrompt(sourceCode), HISTORY_WINDOW);
 
         long startTime = System.currentTimeMillis();
 
         for (int step = 1; step <= MAX_REFLECTION_STEPS; step++) {
             System.out.printf("  Step #%d ... ", step);
             try {
-                String llmResponse = askLLM(messageHistory);
-                addMessage(messageHistory, "assistant", llmResponse);
+                String llmResponse = askLLM(history.messages());
+                history.addAssistant(llmResponse);
 
                 String testCode = extractTestCode(llmResponse);
                 CoverageResult coverage = runTestWithCoverage(sourceCode, testCode);
@@ -202,7 +198,7 @@ public class PaperBenchmarkRunner {
                 // Provide reflection feedback for next iteration
                 if (step < MAX_REFLECTION_STEPS) {
                     String feedback = buildReflectionFeedback(coverage, step);
-                    addMessage(messageHistory, "user", feedback);
+                    history.addUser(feedback);
                 }
 
             } catch (Exception e) {
@@ -221,18 +217,20 @@ public class PaperBenchmarkRunner {
 
     // ── Prompt Engineering ─────────────────────────────────────────────────────
 
-    private static String createZeroShotPrompt(String sourceCode) {
-        return "You are an expert Java test engineer. Write a JUnit 5 test class that achieves " +
-               "100% LINE COVERAGE for the following Java class.\n\n" +
-               "RULES:\n" +
-               "- Use ONLY JUnit 5 annotations (@Test, @BeforeEach, etc.)\n" +
-               "- Import from org.junit.jupiter.api.* and org.junit.jupiter.api.Assertions.*\n" +
-               "- The test class name MUST end with 'Test' (e.g., MyClassTest)\n" +
-               "- Test class must be in package 'app'\n" +
-               "- Cover ALL branches: if/else, loops (enter AND skip), exceptions\n" +
-               "- Use assertThrows for methods that throw exceptions\n" +
-               "- Return ONLY the Java code, no explanations\n\n" +
-               "```java\n" + sourceCode + "\n```";
+    private static final String ZERO_SHOT_RULES =
+            "You are an expert Java test engineer. Write a JUnit 5 test class that achieves " +
+            "100% LINE COVERAGE for the Java class given by the user.\n\n" +
+            "RULES:\n" +
+            "- Use ONLY JUnit 5 annotations (@Test, @BeforeEach, etc.)\n" +
+            "- Import from org.junit.jupiter.api.* and org.junit.jupiter.api.Assertions.*\n" +
+            "- The test class name MUST end with 'Test' (e.g., MyClassTest)\n" +
+            "- Test class must be in package 'app'\n" +
+            "- Cover ALL branches: if/else, loops (enter AND skip), exceptions\n" +
+            "- Use assertThrows for methods that throw exceptions\n" +
+            "- Return ONLY the Java code, no explanations";
+
+    private static String createSubjectPrompt(String sourceCode) {
+        return "```java\n" + sourceCode + "\n```";
     }
 
     private static String buildReflectionFeedback(CoverageResult coverage, int step) {
@@ -468,39 +466,8 @@ public class PaperBenchmarkRunner {
     // ── LLM Communication ──────────────────────────────────────────────────────
 
     private static String askLLM(JsonArray messages) throws Exception {
-        JsonObject body = new JsonObject();
-        body.addProperty("model", MODEL_NAME);
-        body.add("messages", messages);
-        body.addProperty("temperature", 0.2);
-        body.addProperty("max_tokens", 4096);
-
-        HttpClient client = HttpClient.newBuilder()
-                .connectTimeout(java.time.Duration.ofSeconds(30))
-                .build();
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(OPENAI_URL))
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + API_KEY)
-                .timeout(java.time.Duration.ofSeconds(120))
-                .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8))
-                .build();
-
-        HttpResponse<String> resp = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (resp.statusCode() != 200) {
-            throw new RuntimeException("OpenAI API Error: " + resp.statusCode() + " - " + resp.body());
-        }
-
-        return JsonParser.parseString(resp.body()).getAsJsonObject()
-                .getAsJsonArray("choices").get(0).getAsJsonObject()
-                .getAsJsonObject("message").get("content").getAsString();
-    }
-
-    private static void addMessage(JsonArray history, String role, String content) {
-        JsonObject msg = new JsonObject();
-        msg.addProperty("role", role);
-        msg.addProperty("content", content);
-        history.add(msg);
+        // Aynı istek tekrarlanırsa LLMResponseCache (record/replay) ağa çıkmadan cevaplar
+        return LLMBackends.complete(messages, 0.2, 4096);
     }
 
     // ── Compilation & Coverage ─────────────────────────────────────────────────
@@ -0,0 +1,266 @@
+package tools;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.stmt.ForStmt;
+import java.util.*;
+
+/**
+ * The path condition of a logic path expressed over the method inputs:
+ * one conjunct per branch node, with SUB_LOGIC variables substituted by their
+ * input-level expressions and compiled by {@link ExpressionCompiler}.
+ *
+ * A conjunct is "exact" when its substitution is sound: every local variable it
+ * went through is assigned once and no input it ends up reading is ever
+ * reassigned, and the branch itself is not an early-return guard that may fall
+ * through. Otherwise the flow-insensitive expansion is only an approximation.
+ */
+public final class PathConstraints {
+
+    /** One branch decision of the path. */
+    public static final class Conjunct {
+        final PathTree.Node node;
+        final Expression expanded;                  // condition over inputs, negation not applied
+        final ExpressionCompiler.CompiledExpr compiled; // negation applied; null when unsupported
+        final String unsupportedReason;
+        final boolean exact;
+        final Set<String> variables;                // layout paths the conjunct reads
+        final Map<String, ExpressionCompiler.CompiledExpr> bindings; // SUB_LOGIC değişkeni -> derlenmiş değer
+        final Map<String, ExpressionCompiler.CompiledExpr> arrayViews; // "values.length", "arr[0]" -> derlenmiş değer
+
+        Conjunct(PathTree.Node node, Expression expanded, ExpressionCompiler.CompiledExpr compiled,
+                 String unsupportedReason, boolean exact, Set<String> variables,
+                 Map<String, ExpressionCompiler.CompiledExpr> bindings,
+                 Map<String, ExpressionCompiler.CompiledExpr> arrayViews) {
+            this.node = node;
+            this.expanded = expanded;
+            this.compiled = compiled;
+            this.unsupportedReason = unsupportedReason;
+            this.exact = exact;
+            this.variables = variables;
+            this.bindings = bindings;
+            this.arrayViews = arrayViews;
+        }
+
+        public PathTree.Node getNode() { return node; }
+        public Expression getExpanded() { return expanded; }
+        public ExpressionCompiler.CompiledExpr getCompiled() { return compiled; }
+        public String getUnsupportedReason() { return unsupportedReason; }
+        public boolean isCompiled() { return compiled != null; }
+        public boolean isExact() { return exact; }
+        public Set<String> getVariables() { return variables; }
+
+        /** Compiled SUB_LOGIC values, in binding order; unsupported ones are left out. */
+        public Map<String, ExpressionCompiler.CompiledExpr> getBindings() { return bindings; }
+
+        /**
+         * Compiled {@code .length} and constant-index element reads of the
+         * expanded condition, keyed by their source text. They are not slots of
+         * the layout, so explanations read them through these.
+         */
+        public Map<String, ExpressionCompiler.CompiledExpr> getArrayViews() { return arrayViews; }
+
+        /**
+         * Evaluates the conjunct: TRUE/FALSE, or null when it could not be
+         * compiled. A runtime failure counts as FALSE (the branch is not reached).
+         */
+        public Boolean evaluate(ExpressionCompiler.Frame frame) {
+            if (compiled == null) return null;
+            try {
+                return compiled.test(frame);
+            } catch (ExpressionCompiler.EvalException e) {
+                return Boolean.FALSE;
+            }
+        }
+    }
+
+    private final PathTree.LogicPath path;
+    private final ExpressionCompiler.SlotLayout layout;
+    private final List<Conjunct> conjuncts;
+
+    private PathConstraints(PathTree.LogicPath path, ExpressionCompiler.SlotLayout layout, List<Conjunct> conjuncts) {
+        this.path = path;
+        this.layout = layout;
+        this.conjuncts = conjuncts;
+    }
+
+    public static PathConstraints of(PathTree.LogicPath path) {
+        PathTree tree = path.getTree();
+        ExpressionCompiler.SlotLayout layout = path.getMethod() != null
+                ? ExpressionCompiler.SlotLayout.forMethod(path.getMethod())
+                : new ExpressionCompiler.SlotLayout();
+        Set<String> paramNames = new HashSet<>();
+        if (path.getMethod() != null) {
+            for (Parameter p : path.getMethod().getParameters()) {
+                paramNames.add(p.getNameAsString());
+            }
+        }
+
+        List<Conjunct> conjuncts = new ArrayList<>();
+        for (PathTree.Node node : path.conditions()) {
+            conjuncts.add(buildConjunct(tree, node, layout, paramNames));
+        }
+        return new PathConstraints(path, layout, Collections.unmodifiableList(conjuncts));
+    }
+
+    private static Conjunct buildConjunct(PathTree tree, PathTree.Node node, ExpressionCompiler.SlotLayout layout,
+                                          Set<String> paramNames) {
+        boolean exact = !node.isAssumed();
+        for (String var : node.getSubLogic().keySet()) {
+            if (tree.assignmentCount(var) > 1) exact = false;
+        }
+
+        Expression expanded = substitute(node.getCondition(), node.getSubLogic());
+
+        // for (int i = 0; i < n; ...) -> ilk kontrolde i yerine başlangıç değeri
+        Map<String, Expression> loopInit = forInitializers(node);
+        if (!loopInit.isEmpty()) {
+            expanded = substitute(expanded, loopInit);
+        }
+
+        Set<String> variables = new LinkedHashSet<>();
+        for (Expression e : expanded.findAll(Expression.class)) {
+            if (!(e.isNameExpr() || e.isFieldAccessExpr() || e.isArrayAccessExpr())) continue;
+            String name = e.toString();
+            if (tree.assignmentCount(name) > 0) exact = false; // girdi ya da alanı metod içinde değişiyor
+            if (layout.kindOf(name) != null) {
+                variables.add(name);
+                String owner = layout.ownerOf(name);
+                if (owner != null) variables.add(owner);
+            }
+            if (e.isNameExpr() && !paramNames.contains(name) && !isStaticScope(e)) exact = false;
+        }
+
+        ExpressionCompiler.CompiledExpr compiled = null;
+        String reason = null;
+        try {
+            compiled = ExpressionCompiler.compileCondition(expanded, layout);
+            if (node.isNegated()) compiled = ExpressionCompiler.not(compiled);
+        } catch (ExpressionCompiler.UnsupportedExpressionException e) {
+            reason = e.getMessage();
+            exact = false;
+        }
+
+        Map<String, ExpressionCompiler.CompiledExpr> bindings = new LinkedHashMap<>();
+        for (Map.Entry<String, Expression> binding : node.getSubLogic().entrySet()) {
+            try {
+                bindings.put(binding.getKey(), ExpressionCompiler.compile(binding.getValue(), layout));
+            } catch (ExpressionCompiler.UnsupportedExpressionException e) {
+                // Gösterim için; koşulun kendisi zaten ayrı derlendi
+            }
+        }
+
+        Map<String, ExpressionCompiler.CompiledExpr> arrayViews = new LinkedHashMap<>();
+        for (Expression e : expanded.findAll(Expression.class)) {
+            if (!isArrayView(e) || arrayViews.containsKey(e.toString())) continue;
+            try {
+                arrayViews.put(e.toString(), ExpressionCompiler.compile(e, layout));
+            } catch (ExpressionCompiler.UnsupportedExpressionException ex) {
+                // i gibi döngü değişkenine bağlı erişimler gösterilmez
+            }
+        }
+        return new Conjunct(node, expanded, compiled, reason, exact, variables,
+                Collections.unmodifiableMap(bindings), Collections.unmodifiableMap(arrayViews));
+    }
+
+    private static boolean isArrayView(Expression e) {
+        if (e.isFieldAccessExpr() && e.asFieldAccessExpr().getNameAsString().equals("length")) return true;
+        return e.isArrayAccessExpr() && e.asArrayAccessExpr().getIndex().isIntegerLiteralExpr();
+    }
+
+    private static boolean isStaticScope(Expression e) {
+        // Math.abs(...) içindeki "Math" bir değişken değil
+        Optional<Node> parent = e.getParentNode();
+        return parent.isPresent() && parent.get() instanceof MethodCallExpr
+                && ((MethodCallExpr) parent.get()).getScope().map(s -> s == e).orElse(false)
+                && e.toString().equals("Math");
+    }
+
+    private static Map<String, Expression> forInitializers(PathTree.Node node) {
+        if (!"FOR_ENTER".equals(node.getLoopLabel())) return Collections.emptyMap();
+        Optional<Node> parent = node.getCondition().getParentNode();
+        if (!parent.isPresent() || !(parent.get() instanceof ForStmt)) return Collections.emptyMap();
+
+        Map<String, Expression> init = new HashMap<>();
+        for (Expression e : ((ForStmt) parent.get()).getInitialization()) {
+            if (!e.isVariableDeclarationExpr()) continue;
+            for (VariableDeclarator var : e.asVariableDeclarationExpr().getVariables()) {
+                var.getInitializer().ifPresent(value -> init.put(var.getNameAsString(), value));
+            }
+        }
+        return init;
+    }
+
+    /**
+     * Replaces variables, fields and array elements bound in {@code bindings}
+     * inside a copy of {@code expr}. Bound expressions are already in terms of
+     * the inputs, so one pass is enough.
+     */
+    static Expression substitute(Expression expr, Map<String, Expression> bindings) {
+        if (bindings.isEmpty()) return expr;
+        Expression root = bindings.get(expr.toString());
+        if (root != null && isSubstitutable(expr)) return enclose(root.clone());
+
+        Expression copy = expr.clone();
+        for (Expression e : copy.findAll(Expression.class)) {
+            if (!isSubstitutable(e) || e == copy) continue;
+            if (!isAttached(e, copy)) continue; // daha dıştaki bir ifade ile zaten değiştirildi
+            Expression replacement = bindings.get(e.toString());
+            if (replacement == null || replacement.toString().equals(e.toString())) continue;
+            e.replace(enclose(replacement.clone()));
+        }
+        return copy;
+    }
+
+    private static boolean isSubstitutable(Expression e) {
+        return e.isNameExpr() || e.isFieldAccessExpr() || e.isArrayAccessExpr();
+    }
+
+    private static boolean isAttached(Node n, Node root) {
+        for (Node cur = n; cur != null; cur = cur.getParentNode().orElse(null)) {
+            if (cur == root) return true;
+        }
+        return false;
+    }
+
+    private static Expression enclose(Expression e) {
+        if (e.isNameExpr() || e.isLiteralExpr() || e.isEnclosedExpr() || e.isFieldAccessExpr()
+                || e.isArrayAccessExpr() || e.isMethodCallExpr()) {
+            return e;
+        }
+        return new EnclosedExpr(e);
+    }
+
+    public PathTree.LogicPath getPath() { return path; }
+    public ExpressionCompiler.SlotLayout getLayout() { return layout; }
+    public List<Conjunct> getConjuncts() { return conjuncts; }
+
+    /** Every conjunct could be compiled. */
+    public boolean isFullyCompiled() {
+        for (Conjunct c : conjuncts) {
+            if (c.compiled == null) return false;
+        }
+        return true;
+    }
+
+    /** Every conjunct is compiled and its substitution is sound. */
+    public boolean isExact() {
+        for (Conjunct c : conjuncts) {
+            if (!c.exact) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates the compiled conjuncts on a frame. A runtime failure (null
+     * dereference, bad index, division by zero) means the branch is not reached.
+     */
+    public boolean holds(ExpressionCompiler.Frame frame) {
+        for (Conjunct c : conjuncts) {
+            if (c.evaluate(frame) == Boolean.FALSE) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,343 @@
+package tools;
+
+import com.github.javaparser.ast.expr.*;
+import java.util.*;
+
+/**
+ * Static feasibility verdict for a logic path.
+ *
+ * INFEASIBLE comes from interval reasoning: every exact conjunct is turned into
+ * an over-approximating set of intervals per input (x < 3, !(x > 5),
+ * x == 1 || x == 4, s == null ...). If some input ends up with an empty set
+ * the branch chain is contradictory and no input can reach the target.
+ * Inexact or unsupported conjuncts are simply left out, which only weakens
+ * the constraint and keeps the verdict sound.
+ *
+ * FEASIBLE needs a witness: the local solver found an input and every
+ * conjunct is exact. Everything else is UNKNOWN and left to the test loop.
+ */
+public final class PathFeasibility {
+
+    public enum Verdict {
+        FEASIBLE, INFEASIBLE, UNKNOWN;
+
+        /** Atom name used in the logic map sent to the agents. */
+        public String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final Verdict verdict;
+    private final String witness; // JSON input from the solver, may be null
+
+    private PathFeasibility(Verdict verdict, String witness) {
+        this.verdict = verdict;
+        this.witness = witness;
+    }
+
+    public Verdict getVerdict() { return verdict; }
+    public Optional<String> getWitness() { return Optional.ofNullable(witness); }
+
+    public static PathFeasibility analyze(PathConstraints constraints) {
+        return analyze(constraints, new PathSolver(constraints));
+    }
+
+    /**
+     * Like {@link #analyze(PathConstraints)}, but the solver stops at
+     * {@code deadline} ({@link System#nanoTime()}). Returns null when it ran
+     * out of time before deciding; the interval check always runs.
+     */
+    public static PathFeasibility analyze(PathConstraints constraints, long deadline) {
+        if (System.nanoTime() - deadline > 0) {
+            return isContradictory(constraints) ? new PathFeasibility(Verdict.INFEASIBLE, null) : null;
+        }
+        PathSolver solver = new PathSolver(constraints, deadline);
+        PathFeasibility result = analyze(constraints, solver);
+        return solver.isTimedOut() ? null : result;
+    }
+
+    private static PathFeasibility analyze(PathConstraints constraints, PathSolver solver) {
+        if (isContradictory(constraints)) {
+            return new PathFeasibility(Verdict.INFEASIBLE, null);
+        }
+        Optional<String> witness = solver.solve();
+        if (witness.isPresent() && constraints.isExact()) {
+            return new PathFeasibility(Verdict.FEASIBLE, witness.get());
+        }
+        return new PathFeasibility(Verdict.UNKNOWN, witness.orElse(null));
+    }
+
+    /** True when the exact conjuncts of the path cannot hold together. */
+    static boolean isContradictory(PathConstraints constraints) {
+        ExpressionCompiler.SlotLayout layout = constraints.getLayout();
+        ExpressionCompiler.Frame empty = layout.newFrame();
+        Map<String, IntervalSet> domains = new HashMap<>();
+
+        for (PathConstraints.Conjunct c : constraints.getConjuncts()) {
+            if (!c.isExact()) continue;
+            if (c.getVariables().isEmpty()) {
+                // Girdiye bağlı olmayan koşul (while (false), if (true) else ...)
+                try {
+                    if (!c.getCompiled().test(empty)) return true;
+                } catch (ExpressionCompiler.EvalException e) {
+                    return true;
+                }
+                continue;
+            }
+            Map<String, IntervalSet> implied = new Translator(layout).translate(c.getExpanded(), !c.getNode().isNegated());
+            if (implied == null) continue;
+            for (Map.Entry<String, IntervalSet> e : implied.entrySet()) {
+                IntervalSet merged = domains.containsKey(e.getKey())
+                        ? domains.get(e.getKey()).intersect(e.getValue())
+                        : e.getValue();
+                if (merged.isEmpty()) return true;
+                domains.put(e.getKey(), merged);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Turns a condition into per-variable interval constraints it implies.
+     * Returns null when nothing is known. References are encoded as 0 = null,
+     * 1 = non-null; booleans as 0 / 1.
+     */
+    private static final class Translator {
+        private final ExpressionCompiler.SlotLayout layout;
+
+        Translator(ExpressionCompiler.SlotLayout layout) {
+            this.layout = layout;
+        }
+
+        Map<String, IntervalSet> translate(Expression e, boolean positive) {
+            if (e.isEnclosedExpr()) return translate(e.asEnclosedExpr().getInner(), positive);
+            if (e.isUnaryExpr() && e.asUnaryExpr().getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
+                return translate(e.asUnaryExpr().getExpression(), !positive);
+            }
+            if (e.isNameExpr() || e.isFieldAccessExpr()) {
+                String var = e.toString();
+                if (layout.kindOf(var) == ExpressionCompiler.ValueKind.BOOLEAN) {
+                    return single(var, IntervalSet.point(positive ? 1 : 0, true));
+                }
+                return null;
+            }
+            if (!e.isBinaryExpr()) return null;
+
+            BinaryExpr b = e.asBinaryExpr();
+            BinaryExpr.Operator op = b.getOperator();
+            if (op == BinaryExpr.Operator.AND || op == BinaryExpr.Operator.OR) {
+                // De Morgan: !(A && B) == !A || !B
+                boolean conjunction = (op == BinaryExpr.Operator.AND) == positive;
+                Map<String, IntervalSet> left = translate(b.getLeft(), positive);
+                Map<String, IntervalSet> right = translate(b.getRight(), positive);
+                return conjunction ? meet(left, right) : join(left, right);
+            }
+            return atom(b, positive);
+        }
+
+        private Map<String, IntervalSet> atom(BinaryExpr b, boolean positive) {
+            BinaryExpr.Operator op = b.getOperator();
+            if (!positive) {
+                op = negate(op);
+                if (op == null) return null;
+            }
+
+            // x == null / x != null
+            if (b.getLeft().isNullLiteralExpr() || b.getRight().isNullLiteralExpr()) {
+                Expression other = b.getLeft().isNullLiteralExpr() ? b.getRight() : b.getLeft();
+                String var = other.toString();
+                if (layout.refSlot(var) == null) return null;
+                if (op == BinaryExpr.Operator.EQUALS) return single(var, IntervalSet.point(0, true));
+                if (op == BinaryExpr.Operator.NOT_EQUALS) return single(var, IntervalSet.point(1, true));
+                return null;
+            }
+
+            String var = numericVariable(b.getLeft());
+            Double constant = constantValue(b.getRight());
+            if (var == null || constant == null) {
+                var = numericVariable(b.getRight());
+                constant = constantValue(b.getLeft());
+                if (var == null || constant == null) return null;
+                op = mirror(op);
+                if (op == null) return null;
+            }
+            boolean integral = layout.kindOf(var) != ExpressionCompiler.ValueKind.REAL;
+            double c = constant;
+            IntervalSet set;
+            switch (op) {
+                case LESS: set = IntervalSet.below(c, true, integral); break;
+                case LESS_EQUALS: set = IntervalSet.below(c, false, integral); break;
+                case GREATER: set = IntervalSet.above(c, true, integral); break;
+                case GREATER_EQUALS: set = IntervalSet.above(c, false, integral); break;
+                case EQUALS: set = IntervalSet.point(c, integral); break;
+                case NOT_EQUALS: set = IntervalSet.point(c, integral).complement(integral); break;
+                default: return null;
+            }
+            if (var.endsWith(".length")) {
+                set = set.intersect(IntervalSet.above(0, false, true));
+            }
+            return single(var, set);
+        }
+
+        /** A plain numeric input, a boolean input, or arr.length of an array input. */
+        private String numericVariable(Expression e) {
+            while (e.isEnclosedExpr()) e = e.asEnclosedExpr().getInner();
+            if (!(e.isNameExpr() || e.isFieldAccessExpr())) return null;
+            String var = e.toString();
+            ExpressionCompiler.ValueKind kind = layout.kindOf(var);
+            if (kind != null) return kind.isNumericSlot() ? var : null;
+            if (e.isFieldAccessExpr() && e.asFieldAccessExpr().getNameAsString().equals("length")) {
+                ExpressionCompiler.ValueKind scope = layout.kindOf(e.asFieldAccessExpr().getScope().toString());
+                if (scope != null && scope != ExpressionCompiler.ValueKind.OBJECT && !scope.isNumericSlot()
+                        && scope != ExpressionCompiler.ValueKind.STRING) {
+                    return var;
+                }
+            }
+            return null;
+        }
+
+        private Double constantValue(Expression e) {
+            if (!e.findAll(NameExpr.class).isEmpty()) return null;
+            try {
+                ExpressionCompiler.CompiledExpr compiled = ExpressionCompiler.compile(e, layout);
+                if (compiled.isReference()) return null;
+                return compiled.num(layout.newFrame());
+            } catch (ExpressionCompiler.UnsupportedExpressionException | ExpressionCompiler.EvalException ex) {
+                return null;
+            }
+        }
+
+        private static Map<String, IntervalSet> single(String var, IntervalSet set) {
+            Map<String, IntervalSet> m = new HashMap<>();
+            m.put(var, set);
+            return m;
+        }
+
+        private static Map<String, IntervalSet> meet(Map<String, IntervalSet> a, Map<String, IntervalSet> b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            Map<String, IntervalSet> m = new HashMap<>(a);
+            for (Map.Entry<String, IntervalSet> e : b.entrySet()) {
+                m.merge(e.getKey(), e.getValue(), IntervalSet::intersect);
+            }
+            return m;
+        }
+
+        private static Map<String, IntervalSet> join(Map<String, IntervalSet> a, Map<String, IntervalSet> b) {
+            if (a == null || b == null) return null;
+            // Sadece iki tarafta da kısıtlanan değişkenler için bilgi kalır
+            Map<String, IntervalSet> m = new HashMap<>();
+            for (Map.Entry<String, IntervalSet> e : a.entrySet()) {
+                IntervalSet other = b.get(e.getKey());
+                if (other != null) m.put(e.getKey(), e.getValue().union(other));
+            }
+            return m.isEmpty() ? null : m;
+        }
+
+        private static BinaryExpr.Operator negate(BinaryExpr.Operator op) {
+            switch (op) {
+                case LESS: return BinaryExpr.Operator.GREATER_EQUALS;
+                case LESS_EQUALS: return BinaryExpr.Operator.GREATER;
+                case GREATER: return BinaryExpr.Operator.LESS_EQUALS;
+                case GREATER_EQUALS: return BinaryExpr.Operator.LESS;
+                case EQUALS: return BinaryExpr.Operator.NOT_EQUALS;
+                case NOT_EQUALS: return BinaryExpr.Operator.EQUALS;
+                default: return null;
+            }
+        }
+
+        private static BinaryExpr.Operator mirror(BinaryExpr.Operator op) {
+            switch (op) {
+                case LESS: return BinaryExpr.Operator.GREATER;
+                case LESS_EQUALS: return BinaryExpr.Operator.GREATER_EQUALS;
+                case GREATER: return BinaryExpr.Operator.LESS;
+                case GREATER_EQUALS: return BinaryExpr.Operator.LESS_EQUALS;
+                case EQUALS:
+                case NOT_EQUALS: return op;
+                default: return null;
+            }
+        }
+    }
+
+    /** Union of disjoint, sorted intervals over the reals (or the integers). */
+    static final class IntervalSet {
+        private static final class Interval {
+            final double lo, hi;
+            final boolean loOpen, hiOpen;
+
+            Interval(double lo, boolean loOpen, double hi, boolean hiOpen) {
+                this.lo = lo;
+                this.loOpen = loOpen;
+                this.hi = hi;
+                this.hiOpen = hiOpen;
+            }
+
+            boolean isEmpty() {
+                return lo > hi || (lo == hi && (loOpen || hiOpen));
+            }
+        }
+
+        private final List<Interval> parts;
+
+        private IntervalSet(List<Interval> parts) {
+            this.parts = parts;
+        }
+
+        static IntervalSet below(double c, boolean strict, boolean integral) {
+            if (integral) return of(new Interval(Double.NEGATIVE_INFINITY, true, strict ? Math.ceil(c) - 1 : Math.floor(c), false));
+            return of(new Interval(Double.NEGATIVE_INFINITY, true, c, strict));
+        }
+
+        static IntervalSet above(double c, boolean strict, boolean integral) {
+            if (integral) return of(new Interval(strict ? Math.floor(c) + 1 : Math.ceil(c), false, Double.POSITIVE_INFINITY, true));
+            return of(new Interval(c, strict, Double.POSITIVE_INFINITY, true));
+        }
+
+        static IntervalSet point(double c, boolean integral) {
+            if (integral && c != Math.rint(c)) return new IntervalSet(Collections.emptyList());
+            return of(new Interval(c, false, c, false));
+        }
+
+        private static IntervalSet of(Interval i) {
+            return new IntervalSet(i.isEmpty() ? Collections.emptyList() : Collections.singletonList(i));
+        }
+
+        boolean isEmpty() {
+            return parts.isEmpty();
+        }
+
+        IntervalSet intersect(IntervalSet other) {
+            List<Interval> out = new ArrayList<>();
+            for (Interval a : parts) {
+                for (Interval b : other.parts) {
+                    double lo = Math.max(a.lo, b.lo);
+                    boolean loOpen = a.lo == b.lo ? a.loOpen || b.loOpen : (a.lo > b.lo ? a.loOpen : b.loOpen);
+                    double hi = Math.min(a.hi, b.hi);
+                    boolean hiOpen = a.hi == b.hi ? a.hiOpen || b.hiOpen : (a.hi < b.hi ? a.hiOpen : b.hiOpen);
+                    Interval i = new Interval(lo, loOpen, hi, hiOpen);
+                    if (!i.isEmpty()) out.add(i);
+                }
+            }
+            out.sort(Comparator.comparingDouble(i -> i.lo));
+            return new IntervalSet(out);
+        }
+
+        /** Over-approximating union: kept as separate parts, overlaps are harmless. */
+        IntervalSet union(IntervalSet other) {
+            List<Interval> out = new ArrayList<>(parts);
+            out.addAll(other.parts);
+            out.sort(Comparator.comparingDouble(i -> i.lo));
+            return new IntervalSet(out);
+        }
+
+        /** Complement of a single point set (used for !=). */
+        IntervalSet complement(boolean integral) {
+            if (parts.size() != 1 || parts.get(0).lo != parts.get(0).hi) {
+                return new IntervalSet(Collections.singletonList(
+                        new Interval(Double.NEGATIVE_INFINITY, true, Double.POSITIVE_INFINITY, true)));
+            }
+            double c = parts.get(0).lo;
+            return below(c, true, integral).union(above(c, true, integral));
+        }
+    }
+}
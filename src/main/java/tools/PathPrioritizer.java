@@ -0,0 +1,153 @@
+package tools;
+
+import java.util.*;
+
+/**
+ * Ranks open logic paths by expected new coverage per unit of cost, so the
+ * orchestrator spends LLM calls where they buy the most.
+ *
+ * <ul>
+ *   <li>gain: the path itself plus every other open path whose branch lies on
+ *       its condition chain. Reaching a deep path executes the targets of the
+ *       branches it is nested in, so a dominating path is worth more.</li>
+ *   <li>cost: the branch decisions on the chain that no covered path has taken
+ *       yet. A path next to a covered branch needs one new decision. A path the
+ *       static analysis already solved costs a fraction, because its input
+ *       comes without an LLM call.</li>
+ *   <li>hit chance: Laplace-smoothed hit rate of earlier attempts on the path
+ *       and on the paths sharing its chain (ancestors or descendants).</li>
+ * </ul>
+ *
+ * score = gain * hitChance / cost. Ties go to the deeper path, then to the
+ * lower id, so the order is deterministic.
+ *
+ * A ranking walks each chain once: O(paths * depth) for the candidates, the
+ * covered paths and the paths with recorded attempts together.
+ */
+final class PathPrioritizer {
+
+    /** Cost of a path whose input the static analysis already knows (no LLM call). */
+    static final double SOLVED_COST = 0.25;
+
+    private final Map<Integer, int[]> outcomes = new HashMap<>(); // yol ID -> {deneme, isabet}
+
+    /** One attempt on {@code pathId}: the report either hit its target line or not. */
+    synchronized void record(int pathId, boolean hit) {
+        int[] o = outcomes.computeIfAbsent(pathId, k -> new int[2]);
+        o[0]++;
+        if (hit) o[1]++;
+    }
+
+    /** A ranked candidate with the figures behind its score. */
+    static final class Ranked {
+        final int pathId;
+        final double score;
+        final int gain;
+        final double cost;
+        final double hitChance;
+
+        Ranked(int pathId, double score, int gain, double cost, double hitChance) {
+            this.pathId = pathId;
+            this.score = score;
+            this.gain = gain;
+            this.cost = cost;
+            this.hitChance = hitChance;
+        }
+    }
+
+    /**
+     * Ranks {@code candidates}, best first. Paths that are neither covered nor
+     * blocked count towards the gain; unknown ids are skipped.
+     */
+    synchronized List<Ranked> rank(Collection<Integer> candidates, Set<Integer> covered, Set<Integer> blocked) {
+        List<PathTree.LogicPath> paths = new ArrayList<>();
+        for (int id : candidates) {
+            PathTree.LogicPath p = PathTree.lookup(id);
+            if (p != null) paths.add(p);
+        }
+        if (paths.isEmpty()) return Collections.emptyList();
+
+        // Kapsanan yolların zincirindeki düğümlere girdi zaten ulaşıyor
+        Set<Integer> reached = new HashSet<>();
+        for (int id : covered) {
+            PathTree.LogicPath p = PathTree.lookup(id);
+            if (p != null) reached.addAll(chain(p));
+        }
+        Map<Integer, PathTree.LogicPath> open = new HashMap<>();
+        for (PathTree.LogicPath p : paths.get(0).getTree().getPaths()) {
+            if (!covered.contains(p.getId()) && !blocked.contains(p.getId())) open.put(p.getLeaf().getId(), p);
+        }
+
+        Tallies tallies = tallies(paths.get(0).getTree());
+        Map<Integer, Integer> depth = new HashMap<>();
+        List<Ranked> ranked = new ArrayList<>();
+        for (PathTree.LogicPath p : paths) {
+            Set<Integer> chain = chain(p);
+            depth.put(p.getId(), p.getLeaf().getDepth());
+            int gain = 1;
+            int unresolved = 0;
+            for (int node : chain) {
+                PathTree.LogicPath nested = open.get(node);
+                if (nested != null && nested.getId() != p.getId()) gain++;
+                if (!reached.contains(node)) unresolved++;
+            }
+            PathFeasibility feasibility = p.getFeasibility();
+            double cost = feasibility != null && feasibility.getWitness().isPresent()
+                    ? SOLVED_COST : Math.max(1, unresolved);
+            double hitChance = tallies.hitChance(p, chain);
+            ranked.add(new Ranked(p.getId(), gain * hitChance / cost, gain, cost, hitChance));
+        }
+        ranked.sort(Comparator.comparingDouble((Ranked r) -> -r.score)
+                .thenComparingInt(r -> -depth.get(r.pathId))
+                .thenComparingInt(r -> r.pathId));
+        return ranked;
+    }
+
+    /**
+     * Recorded attempts of one tree, summed per node so a path's hit chance
+     * needs only its own chain instead of every other path's.
+     */
+    private static final class Tallies {
+        final Map<Integer, int[]> atLeaf = new HashMap<>(); // düğüm -> o düğümde biten yolların {deneme, isabet}
+        final Map<Integer, int[]> below = new HashMap<>(); // düğüm -> zinciri düğümden geçen yolların {deneme, isabet}
+
+        /**
+         * Laplace-smoothed hit rate over the paths on {@code p}'s chain: those
+         * ending on it (ancestors and {@code p}) plus those passing through its
+         * leaf (descendants). Paths ending on the leaf itself are in both sums.
+         */
+        double hitChance(PathTree.LogicPath p, Set<Integer> chain) {
+            int leaf = p.getLeaf().getId();
+            int[] sum = new int[2];
+            // Aynı zincirdeki (üst veya alt dal) yolların ıskalamaları bu yolun da zor olduğunu gösterir
+            for (int node : chain) add(sum, atLeaf.get(node), 1);
+            add(sum, below.get(leaf), 1);
+            add(sum, atLeaf.get(leaf), -1);
+            return (sum[1] + 1.0) / (sum[0] + 2.0);
+        }
+
+        private static void add(int[] sum, int[] o, int sign) {
+            if (o == null) return;
+            sum[0] += sign * o[0];
+            sum[1] += sign * o[1];
+        }
+    }
+
+    private Tallies tallies(PathTree tree) {
+        Tallies t = new Tallies();
+        for (Map.Entry<Integer, int[]> e : outcomes.entrySet()) {
+            PathTree.LogicPath q = PathTree.lookup(e.getKey());
+            if (q == null || q.getTree() != tree) continue;
+            Tallies.add(t.atLeaf.computeIfAbsent(q.getLeaf().getId(), k -> new int[2]), e.getValue(), 1);
+            for (int node : chain(q)) Tallies.add(t.below.computeIfAbsent(node, k -> new int[2]), e.getValue(), 1);
+        }
+        return t;
+    }
+
+    /** Node ids from the leaf up to (not including) the root. */
+    private static Set<Integer> chain(PathTree.LogicPath p) {
+        Set<Integer> ids = new HashSet<>();
+        for (PathTree.Node n = p.getLeaf(); n != null && !n.isRoot(); n = n.getParent()) ids.add(n.getId());
+        return ids;
+    }
+}
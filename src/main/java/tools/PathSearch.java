@@ -0,0 +1,349 @@
+package tools;
+
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.UnaryExpr;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import java.util.*;
+
+/**
+ * Search-based input generation for a logic path (Alternating Variable
+ * Method with hill climbing, in the style of EvoSuite / AVM).
+ *
+ * Fitness is the classic approach level + normalised branch distance over the
+ * path's conjuncts: the first unsatisfied conjunct decides the approach level
+ * and its branch distance says how far the input is from flipping it. Each
+ * input variable is probed with +/- steps; a step that improves the fitness is
+ * repeated with doubled size until it stops helping. When a full pass over the
+ * variables brings no improvement the search restarts from a random point.
+ * Everything runs on the compiled conditions, so thousands of evaluations take
+ * a few milliseconds and no LLM call is needed when the search succeeds.
+ */
+public class PathSearch {
+
+    public static final String UNKNOWN = "UNKNOWN";
+
+    private static final int MAX_EVALUATIONS = 50_000;
+    private static final long MAX_MILLIS = 500;
+    private static final double FAILED = 1e6;      // runtime exception before the branch, or a NaN/Inf distance
+    private static final double REAL_EPSILON = 1e-3;
+
+    /** Distance of a condition from being true; 0 when it holds. */
+    interface Distance {
+        double of(ExpressionCompiler.Frame frame);
+    }
+
+    private final PathConstraints constraints;
+    private final ExpressionCompiler.SlotLayout layout;
+    private final List<Distance> distances = new ArrayList<>();
+    private final Set<String> variables = new LinkedHashSet<>();
+    private final PathSolver.Domains domains;
+    private final Random random;
+    private int evaluations;
+
+    public PathSearch(PathConstraints constraints) {
+        this.constraints = constraints;
+        this.layout = constraints.getLayout();
+        for (PathConstraints.Conjunct c : constraints.getConjuncts()) {
+            if (!c.isCompiled()) continue;
+            try {
+                distances.add(distance(c.getExpanded(), c.getNode().isNegated()));
+            } catch (ExpressionCompiler.UnsupportedExpressionException e) {
+                // Derlenebilen koşul mesafe için de derlenir; buraya düşmemeli
+                ExpressionCompiler.CompiledExpr compiled = c.getCompiled();
+                distances.add(f -> compiled.test(f) ? 0 : 1);
+            }
+            variables.addAll(c.getVariables());
+        }
+        this.domains = new PathSolver.Domains(constraints.getConjuncts());
+        this.random = new Random(constraints.getPath().getId());
+    }
+
+    public int getEvaluations() { return evaluations; }
+
+    /**
+     * Searches from {@code seedJson} (a previous, missing input) or from a
+     * default point when the seed is absent or unparsable.
+     */
+    public Optional<String> search(String seedJson) {
+        if (constraints.getPath().getMethod() == null || distances.isEmpty()) return Optional.empty();
+        ExpressionCompiler.Frame current = seed(seedJson);
+        double best = fitness(current);
+        long deadline = System.currentTimeMillis() + MAX_MILLIS;
+
+        while (evaluations < MAX_EVALUATIONS && System.currentTimeMillis() < deadline) {
+            if (best == 0) {
+                // Mesafeler yaklaşıktır; girdi ancak yol koşulu gerçekten sağlanıyorsa döner
+                if (constraints.holds(current)) return Optional.of(layout.toJson(current));
+                current = randomFrame();
+                best = fitness(current);
+                continue;
+            }
+            boolean improved = false;
+            for (Move move : moves(current)) {
+                Step result = move.climb(current, best);
+                if (result.fitness < best) {
+                    current = result.frame;
+                    best = result.fitness;
+                    improved = true;
+                    if (best == 0) break;
+                }
+            }
+            if (!improved && best > 0) {
+                // Yerel minimum: rastgele bir noktadan yeniden başla
+                ExpressionCompiler.Frame restart = randomFrame();
+                double f = fitness(restart);
+                current = restart;
+                best = f;
+            }
+        }
+        return best == 0 && constraints.holds(current) ? Optional.of(layout.toJson(current)) : Optional.empty();
+    }
+
+    /** Approach level of the first unsatisfied conjunct plus its normalised branch distance. */
+    double fitness(ExpressionCompiler.Frame frame) {
+        evaluations++;
+        int n = distances.size();
+        for (int i = 0; i < n; i++) {
+            double d = safe(distances.get(i), frame);
+            if (!(d <= 0)) return (n - 1 - i) + d / (d + 1);
+        }
+        return 0;
+    }
+
+    // ── Seeds ───────────────────────────────────────────────────────────────
+
+    private ExpressionCompiler.Frame seed(String seedJson) {
+        if (seedJson != null) {
+            try {
+                JsonArray args = new Gson().fromJson(seedJson, JsonArray.class);
+                if (args != null && args.size() == layout.getParams().size()) return layout.fromJson(args);
+            } catch (RuntimeException e) {
+                // "none" veya bozuk JSON: varsayılandan başla
+            }
+        }
+        ExpressionCompiler.Frame frame = layout.newFrame();
+        for (String var : layout.numPaths()) {
+            frame.nums[layout.numSlot(var)] = layout.kindOf(var) == ExpressionCompiler.ValueKind.BOOLEAN ? 0 : 1;
+        }
+        for (String var : layout.refPaths()) {
+            frame.refs[layout.refSlot(var)] = domains.refValues(layout.kindOf(var)).get(0);
+        }
+        return frame;
+    }
+
+    private ExpressionCompiler.Frame randomFrame() {
+        ExpressionCompiler.Frame frame = layout.newFrame();
+        for (String var : layout.numPaths()) {
+            ExpressionCompiler.ValueKind kind = layout.kindOf(var);
+            double[] values = domains.numValues(kind);
+            double value = random.nextBoolean() || kind == ExpressionCompiler.ValueKind.BOOLEAN
+                    ? values[random.nextInt(values.length)]
+                    : random.nextInt(201) - 100;
+            frame.nums[layout.numSlot(var)] = value;
+        }
+        for (String var : layout.refPaths()) {
+            List<Object> values = domains.refValues(layout.kindOf(var));
+            frame.refs[layout.refSlot(var)] = values.get(random.nextInt(values.size()));
+        }
+        return frame;
+    }
+
+    // ── Moves ───────────────────────────────────────────────────────────────
+
+    private static final class Step {
+        final ExpressionCompiler.Frame frame;
+        final double fitness;
+
+        Step(ExpressionCompiler.Frame frame, double fitness) {
+            this.frame = frame;
+            this.fitness = fitness;
+        }
+    }
+
+    /** One search dimension: a number, an array element, an array length or a categorical slot. */
+    private interface Move {
+        Step climb(ExpressionCompiler.Frame from, double fitness);
+    }
+
+    private List<Move> moves(ExpressionCompiler.Frame frame) {
+        List<Move> moves = new ArrayList<>();
+        for (String var : variables) {
+            ExpressionCompiler.ValueKind kind = layout.kindOf(var);
+            if (kind == ExpressionCompiler.ValueKind.BOOLEAN) {
+                int slot = layout.numSlot(var);
+                moves.add(categorical((f, v) -> f.nums[slot] = (Double) v, Arrays.asList(0.0, 1.0)));
+            } else if (kind.isNumericSlot()) {
+                int slot = layout.numSlot(var);
+                moves.add(numeric(kind == ExpressionCompiler.ValueKind.INTEGRAL,
+                        f -> f.nums[slot], (f, v) -> f.nums[slot] = v));
+            } else {
+                int slot = layout.refSlot(var);
+                moves.add(categorical((f, v) -> f.refs[slot] = v, domains.refValues(kind)));
+                if (frame.refs[slot] instanceof double[]) {
+                    addArrayMoves(moves, slot, kind, ((double[]) frame.refs[slot]).length);
+                }
+            }
+        }
+        return moves;
+    }
+
+    private void addArrayMoves(List<Move> moves, int slot, ExpressionCompiler.ValueKind kind, int length) {
+        boolean integral = kind != ExpressionCompiler.ValueKind.REAL_ARRAY;
+        // Uzunluk: kopyalayarak büyüt/küçült
+        moves.add(numeric(true,
+                f -> f.refs[slot] instanceof double[] ? ((double[]) f.refs[slot]).length : 0,
+                (f, v) -> {
+                    double[] old = f.refs[slot] instanceof double[] ? (double[]) f.refs[slot] : new double[0];
+                    double[] resized = Arrays.copyOf(old, (int) Math.max(0, Math.min(v, 64)));
+                    for (int i = old.length; i < resized.length; i++) resized[i] = old.length > 0 ? old[old.length - 1] : 1;
+                    f.refs[slot] = resized;
+                }));
+        for (int i = 0; i < length; i++) {
+            int index = i;
+            moves.add(numeric(integral,
+                    f -> f.refs[slot] instanceof double[] && ((double[]) f.refs[slot]).length > index
+                            ? ((double[]) f.refs[slot])[index] : 0,
+                    (f, v) -> {
+                        if (!(f.refs[slot] instanceof double[]) || ((double[]) f.refs[slot]).length <= index) return;
+                        double[] copy = ((double[]) f.refs[slot]).clone(); // frame kopyaları diziyi paylaşır
+                        copy[index] = kind == ExpressionCompiler.ValueKind.BOOLEAN_ARRAY ? (v != 0 ? 1 : 0) : v;
+                        f.refs[slot] = copy;
+                    }));
+        }
+    }
+
+    private interface NumGetter { double get(ExpressionCompiler.Frame f); }
+    private interface NumSetter { void set(ExpressionCompiler.Frame f, double v); }
+    private interface RefSetter { void set(ExpressionCompiler.Frame f, Object v); }
+
+    /** AVM on one numeric dimension: exploratory +/- step, then accelerating pattern moves. */
+    private Move numeric(boolean integral, NumGetter get, NumSetter set) {
+        return (from, fitness) -> {
+            ExpressionCompiler.Frame best = from;
+            double bestFitness = fitness;
+            double[] baseSteps = integral ? new double[] { 1 } : new double[] { 1, 0.1, 0.01 };
+            for (double base : baseSteps) {
+                for (double direction : new double[] { 1, -1 }) {
+                    double step = base * direction;
+                    while (evaluations < MAX_EVALUATIONS) {
+                        ExpressionCompiler.Frame next = best.copy();
+                        double value = get.get(best) + step;
+                        set.set(next, integral ? Math.rint(value) : value);
+                        double f = fitness(next);
+                        if (f >= bestFitness) break;
+                        best = next;
+                        bestFitness = f;
+                        if (f == 0) return new Step(best, 0);
+                        step *= 2;
+                    }
+                }
+            }
+            return new Step(best, bestFitness);
+        };
+    }
+
+    /** Tries every domain value of a slot that has no useful order (strings, null, booleans). */
+    private Move categorical(RefSetter set, List<?> values) {
+        return (from, fitness) -> {
+            ExpressionCompiler.Frame best = from;
+            double bestFitness = fitness;
+            for (Object value : values) {
+                ExpressionCompiler.Frame next = from.copy();
+                set.set(next, value);
+                double f = fitness(next);
+                if (f < bestFitness) {
+                    best = next;
+                    bestFitness = f;
+                    if (f == 0) break;
+                }
+            }
+            return new Step(best, bestFitness);
+        };
+    }
+
+    // ── Branch distance ─────────────────────────────────────────────────────
+
+    private Distance distance(Expression e, boolean negate) throws ExpressionCompiler.UnsupportedExpressionException {
+        while (e.isEnclosedExpr()) e = e.asEnclosedExpr().getInner();
+
+        if (e.isUnaryExpr() && e.asUnaryExpr().getOperator() == UnaryExpr.Operator.LOGICAL_COMPLEMENT) {
+            return distance(e.asUnaryExpr().getExpression(), !negate);
+        }
+        if (e.isBinaryExpr()) {
+            BinaryExpr b = e.asBinaryExpr();
+            BinaryExpr.Operator op = b.getOperator();
+            if (op == BinaryExpr.Operator.AND || op == BinaryExpr.Operator.OR) {
+                // De Morgan: !(x && y) = !x || !y
+                boolean conjunction = (op == BinaryExpr.Operator.AND) != negate;
+                Distance l = distance(b.getLeft(), negate);
+                Distance r = distance(b.getRight(), negate);
+                if (conjunction) {
+                    // Kısa devre: sol taraf sağlanmadan sağ taraf değerlendirilmez (null kontrolü vb.)
+                    return f -> {
+                        double left = safe(l, f);
+                        return !(left <= 0) ? left + 1 : safe(r, f);
+                    };
+                }
+                return f -> Math.min(safe(l, f), safe(r, f));
+            }
+            Distance relational = relational(b, negate);
+            if (relational != null) return relational;
+        }
+
+        ExpressionCompiler.CompiledExpr compiled = ExpressionCompiler.compileCondition(e, layout);
+        if (negate) compiled = ExpressionCompiler.not(compiled);
+        ExpressionCompiler.CompiledExpr condition = compiled;
+        return f -> condition.test(f) ? 0 : 1;
+    }
+
+    private Distance relational(BinaryExpr b, boolean negate) throws ExpressionCompiler.UnsupportedExpressionException {
+        BinaryExpr.Operator op = b.getOperator();
+        switch (op) {
+            case LESS: case LESS_EQUALS: case GREATER: case GREATER_EQUALS: case EQUALS: case NOT_EQUALS:
+                break;
+            default:
+                return null;
+        }
+        ExpressionCompiler.CompiledExpr l = ExpressionCompiler.compile(b.getLeft(), layout);
+        ExpressionCompiler.CompiledExpr r = ExpressionCompiler.compile(b.getRight(), layout);
+        if (l.isReference() || r.isReference() || l.isBoolean() || r.isBoolean()) return null;
+
+        double k = l.integral && r.integral ? 1 : REAL_EPSILON;
+        if (negate) op = invert(op);
+        switch (op) {
+            case LESS:           return f -> { double d = l.num(f) - r.num(f); return d < 0 ? 0 : d + k; };
+            case LESS_EQUALS:    return f -> { double d = l.num(f) - r.num(f); return d <= 0 ? 0 : d; };
+            case GREATER:        return f -> { double d = r.num(f) - l.num(f); return d < 0 ? 0 : d + k; };
+            case GREATER_EQUALS: return f -> { double d = r.num(f) - l.num(f); return d <= 0 ? 0 : d; };
+            case EQUALS:         return f -> Math.abs(l.num(f) - r.num(f));
+            default:             return f -> l.num(f) != r.num(f) ? 0 : k;
+        }
+    }
+
+    private static BinaryExpr.Operator invert(BinaryExpr.Operator op) {
+        switch (op) {
+            case LESS: return BinaryExpr.Operator.GREATER_EQUALS;
+            case LESS_EQUALS: return BinaryExpr.Operator.GREATER;
+            case GREATER: return BinaryExpr.Operator.LESS_EQUALS;
+            case GREATER_EQUALS: return BinaryExpr.Operator.LESS;
+            case EQUALS: return BinaryExpr.Operator.NOT_EQUALS;
+            default: return BinaryExpr.Operator.EQUALS;
+        }
+    }
+
+    /**
+     * The distance, or FAILED when evaluating it throws or yields NaN/Inf
+     * (0/0, sqrt of a negative, x/0): such an input does not satisfy the
+     * condition, and an infinite distance would turn the fitness into NaN.
+     */
+    private static double safe(Distance d, ExpressionCompiler.Frame f) {
+        try {
+            double v = d.of(f);
+            return Double.isFinite(v) ? v : FAILED;
+        } catch (ExpressionCompiler.EvalException e) {
+            return FAILED;
+        }
+    }
+}
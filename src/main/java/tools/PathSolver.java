@@ -0,0 +1,247 @@
+package tools;
+
+import com.github.javaparser.ast.expr.*;
+import java.util.*;
+
+/**
+ * Finds concrete inputs for a logic path without asking the LLM.
+ *
+ * Each input slot gets a small candidate domain built from the constants that
+ * appear in the path (c and -c, each +/- 1) plus a few everyday values. The
+ * solver assigns slots in the order the conjuncts first read them and checks a
+ * conjunct as soon as all of its slots are assigned, so a long chain of
+ * single-variable guards costs roughly the sum of the domain sizes instead of
+ * their product. The search is bounded by a step count and optionally by a
+ * deadline; running out of budget or domain means "don't know", never
+ * "infeasible".
+ */
+public class PathSolver {
+
+    public static final String UNKNOWN = "UNKNOWN";
+
+    private static final int MAX_STEPS = 2_000_000;
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    private static final double[] DEFAULT_NUMBERS = { 0, 1, -1, 2, 3, 4, 5, 10, 100 };
+
+    private final PathConstraints constraints;
+    private final long deadline; // System.nanoTime() değeri
+    private int steps;
+    private boolean timedOut;
+
+    public PathSolver(PathConstraints constraints) {
+        this(constraints, NO_DEADLINE);
+    }
+
+    /** A solver that gives up once {@link System#nanoTime()} passes {@code deadline}. */
+    public PathSolver(PathConstraints constraints, long deadline) {
+        this.constraints = constraints;
+        this.deadline = deadline;
+    }
+
+    /** True when the last {@link #solve()} stopped at the deadline rather than deciding. */
+    public boolean isTimedOut() { return timedOut; }
+
+    /** JSON argument vector satisfying every conjunct, or empty if undecided. */
+    public Optional<String> solve() {
+        if (constraints.getPath().getMethod() == null || !constraints.isFullyCompiled()) {
+            return Optional.empty();
+        }
+        ExpressionCompiler.SlotLayout layout = constraints.getLayout();
+        List<PathConstraints.Conjunct> conjuncts = constraints.getConjuncts();
+
+        // Slotları koşulların ilk okuduğu sırayla diz
+        List<String> order = new ArrayList<>();
+        for (PathConstraints.Conjunct c : conjuncts) {
+            for (String var : c.getVariables()) {
+                String owner = layout.ownerOf(var);
+                if (owner != null && !order.contains(owner)) order.add(owner);
+                if (!order.contains(var)) order.add(var);
+            }
+        }
+
+        // Her koşul, okuduğu son slot atandığında kontrol edilir
+        List<List<PathConstraints.Conjunct>> checksAt = new ArrayList<>();
+        for (int i = 0; i <= order.size(); i++) checksAt.add(new ArrayList<>());
+        for (PathConstraints.Conjunct c : conjuncts) {
+            int last = 0;
+            for (String var : c.getVariables()) {
+                last = Math.max(last, order.indexOf(var) + 1);
+            }
+            checksAt.get(last).add(c);
+        }
+
+        Domains domains = new Domains(conjuncts);
+        ExpressionCompiler.Frame frame = layout.newFrame();
+        // Koşullarda geçmeyen slotlar için varsayılan değerler
+        for (String var : layout.numPaths()) {
+            frame.nums[layout.numSlot(var)] = layout.kindOf(var) == ExpressionCompiler.ValueKind.BOOLEAN ? 0 : 1;
+        }
+        for (String var : layout.refPaths()) {
+            frame.refs[layout.refSlot(var)] = domains.refValues(layout.kindOf(var)).get(0);
+        }
+
+        if (!check(checksAt.get(0), frame)) return Optional.empty();
+        steps = 0;
+        timedOut = false;
+        if (search(0, order, checksAt, domains, layout, frame)) {
+            return Optional.of(layout.toJson(frame));
+        }
+        return Optional.empty();
+    }
+
+    private boolean search(int index, List<String> order, List<List<PathConstraints.Conjunct>> checksAt,
+                           Domains domains, ExpressionCompiler.SlotLayout layout, ExpressionCompiler.Frame frame) {
+        if (index == order.size()) return true;
+        String var = order.get(index);
+        ExpressionCompiler.ValueKind kind = layout.kindOf(var);
+        List<PathConstraints.Conjunct> checks = checksAt.get(index + 1);
+
+        if (kind.isNumericSlot()) {
+            int slot = layout.numSlot(var);
+            for (double value : domains.numValues(kind)) {
+                if (outOfBudget()) return false;
+                frame.nums[slot] = value;
+                if (check(checks, frame) && search(index + 1, order, checksAt, domains, layout, frame)) return true;
+            }
+        } else {
+            int slot = layout.refSlot(var);
+            for (Object value : domains.refValues(kind)) {
+                if (outOfBudget()) return false;
+                frame.refs[slot] = value;
+                if (check(checks, frame) && search(index + 1, order, checksAt, domains, layout, frame)) return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean outOfBudget() {
+        if (++steps > MAX_STEPS || timedOut) return true;
+        // Saat her adımda okunmaz
+        if (deadline != NO_DEADLINE && (steps & 0xFFF) == 0 && System.nanoTime() - deadline > 0) timedOut = true;
+        return timedOut;
+    }
+
+    private static boolean check(List<PathConstraints.Conjunct> checks, ExpressionCompiler.Frame frame) {
+        for (PathConstraints.Conjunct c : checks) {
+            try {
+                if (!c.getCompiled().test(frame)) return false;
+            } catch (ExpressionCompiler.EvalException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Candidate values per slot kind, simplest first so that the first
+     * solution found is also the easiest to read in a test.
+     */
+    static final class Domains {
+        private final double[] integral;
+        private final double[] real;
+        private final List<Object> strings;
+        private final Map<ExpressionCompiler.ValueKind, List<Object>> arrays = new EnumMap<>(ExpressionCompiler.ValueKind.class);
+
+        Domains(List<PathConstraints.Conjunct> conjuncts) {
+            Set<Double> ints = new TreeSet<>(SIMPLEST_FIRST);
+            Set<Double> reals = new TreeSet<>(SIMPLEST_FIRST);
+            Set<String> literals = new LinkedHashSet<>();
+            for (double d : DEFAULT_NUMBERS) {
+                ints.add(d);
+                reals.add(d);
+            }
+            for (PathConstraints.Conjunct c : conjuncts) {
+                for (LiteralExpr lit : c.getExpanded().findAll(LiteralExpr.class)) {
+                    if (lit.isStringLiteralExpr()) {
+                        String s = lit.asStringLiteralExpr().asString();
+                        literals.add(s);
+                        literals.add(s.toLowerCase());
+                        literals.add(s.toUpperCase());
+                        continue;
+                    }
+                    Double v = numericValue(lit);
+                    if (v == null) continue;
+                    for (double d : new double[] { v, v - 1, v + 1, -v, -v - 1, -v + 1 }) {
+                        ints.add((double) Math.round(d));
+                        reals.add(d);
+                    }
+                    reals.add(v - 0.5);
+                    reals.add(v + 0.5);
+                }
+            }
+            integral = toArray(ints);
+            real = toArray(reals);
+
+            strings = new ArrayList<>();
+            strings.add("a");
+            strings.add("");
+            strings.addAll(literals);
+            strings.add(null);
+
+            List<Object> intArrays = numberArrays(integral);
+            arrays.put(ExpressionCompiler.ValueKind.INTEGRAL_ARRAY, intArrays);
+            arrays.put(ExpressionCompiler.ValueKind.REAL_ARRAY, numberArrays(real));
+            arrays.put(ExpressionCompiler.ValueKind.BOOLEAN_ARRAY, numberArrays(new double[] { 0, 1 }));
+            List<Object> stringArrays = new ArrayList<>();
+            stringArrays.add(new String[] { "a" });
+            stringArrays.add(new String[0]);
+            for (String s : literals) stringArrays.add(new String[] { s });
+            stringArrays.add(new String[] { "a", "b", "c" });
+            stringArrays.add(null);
+            arrays.put(ExpressionCompiler.ValueKind.STRING_ARRAY, stringArrays);
+        }
+
+        double[] numValues(ExpressionCompiler.ValueKind kind) {
+            switch (kind) {
+                case BOOLEAN: return new double[] { 0, 1 };
+                case INTEGRAL: return integral;
+                default: return real;
+            }
+        }
+
+        List<Object> refValues(ExpressionCompiler.ValueKind kind) {
+            switch (kind) {
+                case STRING: return strings;
+                case OBJECT: return Arrays.asList(ExpressionCompiler.PRESENT, null);
+                default: return arrays.get(kind);
+            }
+        }
+
+        private static List<Object> numberArrays(double[] values) {
+            List<Object> result = new ArrayList<>();
+            result.add(new double[] { 1 });
+            result.add(new double[0]);
+            result.add(new double[] { 1, 2, 3 });
+            result.add(new double[] { 3, 2, 1 });
+            for (int len = 1; len <= 3; len++) {
+                for (double v : values) {
+                    double[] arr = new double[len];
+                    Arrays.fill(arr, v);
+                    result.add(arr);
+                }
+            }
+            result.add(null);
+            return result;
+        }
+
+        private static Double numericValue(LiteralExpr lit) {
+            if (lit.isIntegerLiteralExpr()) return lit.asIntegerLiteralExpr().asNumber().doubleValue();
+            if (lit.isLongLiteralExpr()) return lit.asLongLiteralExpr().asNumber().doubleValue();
+            if (lit.isDoubleLiteralExpr()) return lit.asDoubleLiteralExpr().asDouble();
+            if (lit.isCharLiteralExpr()) return (double) lit.asCharLiteralExpr().asChar();
+            return null;
+        }
+
+        private static double[] toArray(Set<Double> values) {
+            double[] out = new double[values.size()];
+            int i = 0;
+            for (double d : values) out[i++] = d;
+            return out;
+        }
+
+        private static final Comparator<Double> SIMPLEST_FIRST = (a, b) -> {
+            int byMagnitude = Double.compare(Math.abs(a), Math.abs(b));
+            return byMagnitude != 0 ? byMagnitude : Double.compare(b, a);
+        };
+    }
+}
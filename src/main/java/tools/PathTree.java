@@ -0,0 +1,236 @@
+package tools;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Logic map paths stored as a tree of condition nodes with shared prefixes.
+ *
+ * Every branch adds exactly one node (parent pointer + one condition), so a
+ * deeply nested subject no longer produces a quadratic amount of duplicated
+ * prefix text. A path is a target line plus the leaf node it hangs from.
+ * The textual "PATH_TO_IF: ... [SUB_LOGIC: ...]" form is only rendered when a
+ * prompt actually needs it.
+ *
+ * Paths are typed records (target line, kind, condition ASTs, SUB_LOGIC
+ * bindings) registered JVM-wide by ID, so other artifacts such as the
+ * condition evaluator resolve a path ID directly instead of re-parsing text.
+ * A tree belongs to the {@link SourceCache} entry it was extracted from and
+ * its paths are unregistered when that entry is evicted: the condition ASTs
+ * point into the cached CompilationUnit, so keeping them would pin it.
+ */
+public class PathTree {
+
+    // IDs are unique per JVM so paths from several extractions never collide
+    private static final AtomicInteger NEXT_NODE_ID = new AtomicInteger(1);
+    private static final AtomicInteger NEXT_PATH_ID = new AtomicInteger(1);
+    private static final Map<Integer, LogicPath> REGISTRY = new ConcurrentHashMap<>();
+
+    private final SourceCache.ParsedSource source;
+    private final Node root = new Node(0, null, null, false, null, Collections.emptyMap(), false);
+    private final List<LogicPath> paths = new ArrayList<>();
+    private final Map<Integer, LogicPath> pathsById = new HashMap<>();
+    // "x", "emp.salary", "arr[0]" -> kaç kez atandığı (akışa duyarsız genişletmenin güvenilirliği için)
+    private Map<String, Integer> assignmentCounts = Collections.emptyMap();
+
+    /**
+     * A single branch decision. The root node carries no condition.
+     */
+    public static final class Node {
+        final int id;
+        final Node parent;
+        final int depth;
+        final Expression condition;              // AST shared with the parsed source, never copied
+        final boolean negated;                   // true -> the FALSE side of the condition
+        final String loopLabel;                  // "WHILE_ENTER" / "FOR_ENTER" or null for if-statements
+        final Map<String, Expression> subLogic;  // variable -> expression in terms of the inputs
+        final boolean assumed;                   // early-return guard whose then-block may fall through
+
+        private Node(int id, Node parent, Expression condition, boolean negated,
+                     String loopLabel, Map<String, Expression> subLogic, boolean assumed) {
+            this.id = id;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.condition = condition;
+            this.negated = negated;
+            this.loopLabel = loopLabel;
+            this.subLogic = subLogic;
+            this.assumed = assumed;
+        }
+
+        public int getId() { return id; }
+        public Node getParent() { return parent; }
+        public int getDepth() { return depth; }
+        public Expression getCondition() { return condition; }
+        public boolean isNegated() { return negated; }
+        public String getLoopLabel() { return loopLabel; }
+        public Map<String, Expression> getSubLogic() { return subLogic; }
+        public boolean isAssumed() { return assumed; }
+        public boolean isRoot() { return parent == null; }
+
+        /** "(c)", "!(c)", "(WHILE_ENTER: c)" ... with the optional SUB_LOGIC suffix. */
+        public String render() {
+            StringBuilder sb = new StringBuilder();
+            if (negated) sb.append('!');
+            sb.append('(');
+            if (loopLabel != null) sb.append(loopLabel).append(": ");
+            sb.append(condition);
+            sb.append(')');
+            String sub = renderSubLogic();
+            if (!sub.isEmpty()) {
+                sb.append(" [SUB_LOGIC: ").append(sub).append(']');
+            }
+            return sb.toString();
+        }
+
+        /** "diff = (a + b) - (a * b); product = a * b" */
+        public String renderSubLogic() {
+            if (subLogic.isEmpty()) return "";
+            StringJoiner joiner = new StringJoiner("; ");
+            for (Map.Entry<String, Expression> entry : subLogic.entrySet()) {
+                joiner.add(entry.getKey() + " = " + entry.getValue());
+            }
+            return joiner.toString();
+        }
+    }
+
+    /**
+     * A logic path: target line, kind (PATH_TO_IF, PATH_TO_ELSE, TARGET_LOOP_ENTER,
+     * TARGET_LOOP_SKIP) and the leaf node of its condition chain.
+     */
+    public static final class LogicPath {
+        final int id;
+        final int targetLine;
+        final String kind;
+        final Node leaf;
+        final MethodDeclaration method; // method the path belongs to (parameters = solver inputs)
+        final PathTree tree;
+        private String rendered; // lazily built, see render()
+        private volatile PathFeasibility feasibility;
+        private volatile PathConstraints constraints; // compiled once, see constraints()
+
+        private LogicPath(PathTree tree, int id, int targetLine, String kind, Node leaf, MethodDeclaration method) {
+            this.tree = tree;
+            this.id = id;
+            this.targetLine = targetLine;
+            this.kind = kind;
+            this.leaf = leaf;
+            this.method = method;
+        }
+
+        public int getId() { return id; }
+        public int getTargetLine() { return targetLine; }
+        public String getKind() { return kind; }
+        public Node getLeaf() { return leaf; }
+        public MethodDeclaration getMethod() { return method; }
+        public PathTree getTree() { return tree; }
+
+        /** Static verdict, null until the logic map has analyzed the path. */
+        public PathFeasibility getFeasibility() { return feasibility; }
+        void setFeasibility(PathFeasibility feasibility) { this.feasibility = feasibility; }
+
+        /**
+         * The compiled path condition. Built on first use and shared by the
+         * solver, the feasibility check and the condition evaluator, so a
+         * candidate input is checked without recompiling anything.
+         */
+        public PathConstraints constraints() {
+            PathConstraints c = constraints;
+            if (c == null) {
+                synchronized (this) {
+                    c = constraints;
+                    if (c == null) constraints = c = PathConstraints.of(this);
+                }
+            }
+            return c;
+        }
+
+        /** Conditions from the outermost branch to the innermost one. */
+        public List<Node> conditions() {
+            Node[] chain = new Node[leaf.depth];
+            for (Node n = leaf; !n.isRoot(); n = n.parent) {
+                chain[n.depth - 1] = n;
+            }
+            return Arrays.asList(chain);
+        }
+
+        /**
+         * Renders the legacy text form, e.g. "PATH_TO_IF: !(a <= 0) && (a + b > c)".
+         * Built once per path and only on demand (prompts).
+         */
+        public String render() {
+            if (rendered == null) {
+                StringJoiner joiner = new StringJoiner(" && ");
+                for (Node n : conditions()) {
+                    joiner.add(n.render());
+                }
+                rendered = kind + ": " + joiner;
+            }
+            return rendered;
+        }
+    }
+
+    /** A tree for paths extracted from {@code source}; lives as long as its cache entry. */
+    public PathTree(SourceCache.ParsedSource source) {
+        this.source = source;
+        source.attach(this);
+    }
+
+    public SourceCache.ParsedSource getSource() {
+        return source;
+    }
+
+    public Node root() {
+        return root;
+    }
+
+    public Node child(Node parent, Expression condition, boolean negated, String loopLabel,
+                      Map<String, Expression> subLogic) {
+        return child(parent, condition, negated, loopLabel, subLogic, false);
+    }
+
+    public Node child(Node parent, Expression condition, boolean negated, String loopLabel,
+                      Map<String, Expression> subLogic, boolean assumed) {
+        return new Node(NEXT_NODE_ID.getAndIncrement(), parent, condition, negated, loopLabel, subLogic, assumed);
+    }
+
+    public LogicPath addPath(int targetLine, String kind, Node leaf, MethodDeclaration method) {
+        LogicPath path = new LogicPath(this, NEXT_PATH_ID.getAndIncrement(), targetLine, kind, leaf, method);
+        paths.add(path);
+        pathsById.put(path.id, path);
+        REGISTRY.put(path.id, path);
+        return path;
+    }
+
+    public List<LogicPath> getPaths() {
+        return Collections.unmodifiableList(paths);
+    }
+
+    public LogicPath getPath(int pathId) {
+        return pathsById.get(pathId);
+    }
+
+    /** Resolves a path ID from any extraction whose source is still cached, or null. */
+    public static LogicPath lookup(int pathId) {
+        return REGISTRY.get(pathId);
+    }
+
+    /** Drops this tree's paths from the registry (its source left the cache). */
+    void unregister() {
+        for (LogicPath path : paths) {
+            REGISTRY.remove(path.id, path);
+        }
+    }
+
+    public void setAssignmentCounts(Map<String, Integer> counts) {
+        this.assignmentCounts = counts;
+    }
+
+    /** How many times the variable (or field / array element) is written anywhere in the source. */
+    public int assignmentCount(String variable) {
+        return assignmentCounts.getOrDefault(variable, 0);
+    }
+}
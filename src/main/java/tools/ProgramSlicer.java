@@ -0,0 +1,318 @@
+package tools;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.stmt.*;
+import java.util.*;
+
+/**
+ * Static backward slice of a logic path: the source lines an input
+ * generator needs to see to steer execution along the path.
+ *
+ * The slice starts from the path record of the logic map: the branch
+ * conditions (and loop headers) on the chain, the variables they read and
+ * the SUB_LOGIC bindings computed for them. Every statement of the method
+ * that writes one of those variables joins the slice, together with the
+ * variables it reads and the conditions of the branches and loops around
+ * it (control dependence), until nothing new is added. The method signature,
+ * the target line and the fields of parameter types declared in the same
+ * source are always part of it.
+ *
+ * A wanted field of the enclosing class is also looked up outside the
+ * method: field initializers, initializer blocks, constructors and the other
+ * methods (e.g. the constructor that sets {@code balance} for
+ * {@code withdraw}). Such a write brings its member's header line, the
+ * fields it reads and the fields its guards read; the member's own locals
+ * and parameters stay out.
+ *
+ * The analysis is flow-insensitive (any write counts, wherever it is), so
+ * the slice may be larger than a precise one. It sees the direct writes in
+ * the class; writes through other objects (a setter called on a parameter,
+ * an alias) or in other classes are not followed.
+ */
+public final class ProgramSlicer {
+
+    private ProgramSlicer() {}
+
+    /** Line numbers (1-based) in the slice of {@code path}, or empty when the path has no method. */
+    public static SortedSet<Integer> slice(PathTree.LogicPath path) {
+        SortedSet<Integer> lines = new TreeSet<>();
+        MethodDeclaration method = path.getMethod();
+        if (method == null || method.getBegin().isEmpty()) return lines;
+
+        lines.add(method.getBegin().get().line);
+        lines.add(path.getTargetLine());
+
+        Set<String> wanted = new HashSet<>();
+        for (PathTree.Node node : path.conditions()) {
+            addLines(lines, node.getCondition());
+            Node owner = node.getCondition().getParentNode().orElse(null);
+            if (owner instanceof Statement && ((Statement) owner).getBegin().isPresent()) {
+                lines.add(((Statement) owner).getBegin().get().line); // "} else if (" / "for (" satırı
+            }
+            wanted.addAll(readVariables(node.getCondition()));
+            for (String variable : node.getSubLogic().keySet()) {
+                wanted.add(scoped(node.getCondition(), variable.split("[.\\[]")[0]));
+            }
+        }
+        // Hedef satırın kendisinin okuduğu değişkenler de (ör. return a + b)
+        for (Statement s : method.findAll(Statement.class)) {
+            if (!s.isBlockStmt() && s.getBegin().isPresent() && s.getBegin().get().line == path.getTargetLine()) {
+                wanted.addAll(readVariables(s));
+            }
+        }
+
+        List<Write> writes = writes(method);
+        Set<String> fields = new HashSet<>();
+        TypeDeclaration<?> type = enclosingType(method);
+        if (type != null) writes.addAll(fieldWrites(type, method, fields));
+        Set<Write> taken = new HashSet<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Write w : writes) {
+                if (taken.contains(w) || !wanted.contains(w.variable)) continue;
+                taken.add(w);
+                changed = true;
+                addLines(lines, w.statement);
+                wanted.addAll(w.reads);
+                if (w.member != method) w.member.getBegin().ifPresent(p -> lines.add(p.line)); // ör. kurucu başlığı
+                for (Expression guard : guards(w.statement, w.member, lines)) {
+                    addLines(lines, guard);
+                    guard.getParentNode().filter(p -> p instanceof Statement)
+                            .flatMap(Node::getBegin).ifPresent(p -> lines.add(p.line));
+                    wanted.addAll(w.member == method ? readVariables(guard) : fieldReads(readVariables(guard), w.member, fields));
+                }
+            }
+        }
+        addParameterTypes(method, lines);
+        return lines;
+    }
+
+    /** Header and field lines of parameter types declared in the same source (e.g. Employee). */
+    private static void addParameterTypes(MethodDeclaration method, SortedSet<Integer> lines) {
+        Optional<CompilationUnit> cu = method.findCompilationUnit();
+        if (cu.isEmpty()) return;
+        for (Parameter parameter : method.getParameters()) {
+            String type = parameter.getType().getElementType().asString();
+            for (ClassOrInterfaceDeclaration c : cu.get().findAll(ClassOrInterfaceDeclaration.class)) {
+                if (!c.getNameAsString().equals(type) || c.getBegin().isEmpty()) continue;
+                lines.add(c.getBegin().get().line);
+                for (FieldDeclaration f : c.getFields()) addLines(lines, f);
+            }
+        }
+    }
+
+    /** A statement writing one variable (base name: "arr" for arr[i], "emp" for emp.salary). */
+    private static final class Write {
+        final String variable;
+        final Node statement;
+        final Set<String> reads;
+        final Node member; // yazmanın bulunduğu metod, kurucu, blok ya da alan bildirimi
+        final boolean onThis; // this.x = ... (parametre gölgelese de alana yazar)
+
+        Write(String variable, Node statement, Set<String> reads, Node member, boolean onThis) {
+            this.variable = variable;
+            this.statement = statement;
+            this.reads = reads;
+            this.member = member;
+            this.onThis = onThis;
+        }
+    }
+
+    private static List<Write> writes(Node member) {
+        List<Write> writes = new ArrayList<>();
+        for (VariableDeclarator v : member.findAll(VariableDeclarator.class)) {
+            if (v.getInitializer().isPresent()) {
+                writes.add(new Write(scoped(v, v.getNameAsString()), statementOf(v), readVariables(v.getInitializer().get()), member, false));
+            }
+        }
+        for (AssignExpr a : member.findAll(AssignExpr.class)) {
+            Set<String> reads = readVariables(a.getValue());
+            if (a.getOperator() != AssignExpr.Operator.ASSIGN) reads.add(baseName(a.getTarget()));
+            // arr[i] = ... indeksi de okur
+            if (a.getTarget().isArrayAccessExpr()) reads.addAll(readVariables(a.getTarget().asArrayAccessExpr().getIndex()));
+            writes.add(new Write(baseName(a.getTarget()), statementOf(a), reads, member, onThis(a.getTarget())));
+        }
+        for (UnaryExpr u : member.findAll(UnaryExpr.class)) {
+            if (u.getOperator().isPostfix() || u.getOperator() == UnaryExpr.Operator.PREFIX_INCREMENT
+                    || u.getOperator() == UnaryExpr.Operator.PREFIX_DECREMENT) {
+                String name = baseName(u.getExpression());
+                writes.add(new Write(name, statementOf(u), new HashSet<>(Collections.singleton(name)), member, onThis(u.getExpression())));
+            }
+        }
+        for (ForEachStmt f : member.findAll(ForEachStmt.class)) {
+            for (VariableDeclarator v : f.getVariable().getVariables()) {
+                writes.add(new Write(scoped(v, v.getNameAsString()), f.getIterable(), readVariables(f.getIterable()), member, false));
+            }
+        }
+        return writes;
+    }
+
+    /** The class, enum or record declaring {@code method}; null for a detached method. */
+    private static TypeDeclaration<?> enclosingType(MethodDeclaration method) {
+        for (Node n = method.getParentNode().orElse(null); n != null; n = n.getParentNode().orElse(null)) {
+            if (n instanceof TypeDeclaration<?>) return (TypeDeclaration<?>) n;
+        }
+        return null;
+    }
+
+    /**
+     * Writes to the fields of {@code type} outside {@code method}; the field
+     * names are collected into {@code fields}. Reads of each write are cut
+     * down to fields, since the member's locals mean nothing in the slice.
+     */
+    private static List<Write> fieldWrites(TypeDeclaration<?> type, MethodDeclaration method, Set<String> fields) {
+        for (FieldDeclaration f : type.getFields()) {
+            for (VariableDeclarator v : f.getVariables()) fields.add(v.getNameAsString());
+        }
+        fields.removeAll(parameters(method)); // metodda bu ad parametreyi gösterir
+
+        List<Write> writes = new ArrayList<>();
+        for (BodyDeclaration<?> member : type.getMembers()) {
+            if (member == method || !(member instanceof CallableDeclaration || member instanceof InitializerDeclaration
+                    || member instanceof FieldDeclaration)) continue;
+            for (Write w : writes(member)) {
+                if (!fields.contains(w.variable)) continue;
+                // Parametre alanı gölgeliyorsa "balance = x" parametreye yazar
+                if (!w.onThis && parameters(member).contains(w.variable)) continue;
+                writes.add(new Write(w.variable, w.statement, fieldReads(w.reads, member, fields), member, true));
+            }
+        }
+        return writes;
+    }
+
+    /** The names in {@code reads} that are fields as seen from {@code member} (not shadowed by a parameter). */
+    private static Set<String> fieldReads(Set<String> reads, Node member, Set<String> fields) {
+        Set<String> result = new HashSet<>();
+        for (String name : reads) {
+            if (fields.contains(name) && !parameters(member).contains(name)) result.add(name);
+        }
+        return result;
+    }
+
+    private static Set<String> parameters(Node member) {
+        Set<String> names = new HashSet<>();
+        if (member instanceof CallableDeclaration) {
+            for (Parameter p : ((CallableDeclaration<?>) member).getParameters()) names.add(p.getNameAsString());
+        }
+        return names;
+    }
+
+    /** True for this.x, this.arr[i] and the like. */
+    private static boolean onThis(Expression e) {
+        while (e.isArrayAccessExpr() || e.isEnclosedExpr()) {
+            e = e.isArrayAccessExpr() ? e.asArrayAccessExpr().getName() : e.asEnclosedExpr().getInner();
+        }
+        return e.isFieldAccessExpr() && e.asFieldAccessExpr().getScope().isThisExpr();
+    }
+
+    /** The statement (or for-header expression) a write belongs to, for its line range. */
+    private static Node statementOf(Node n) {
+        Node current = n;
+        while (current.getParentNode().isPresent()) {
+            Node parent = current.getParentNode().get();
+            // for (int i = 0; ...; i++) başlığındaki ifadeler: sadece başlık satırı
+            if (parent instanceof ForStmt && !(current instanceof Statement)) return current;
+            if (current instanceof Statement) return current;
+            current = parent;
+        }
+        return n;
+    }
+
+    /**
+     * Conditions of the branches and loops enclosing {@code n} inside {@code member}.
+     * When {@code n} sits in an else branch, the "else" line joins {@code lines}.
+     */
+    private static List<Expression> guards(Node n, Node member, SortedSet<Integer> lines) {
+        List<Expression> guards = new ArrayList<>();
+        Node child = n;
+        for (Node p = n.getParentNode().orElse(null); p != null && p != member; child = p, p = p.getParentNode().orElse(null)) {
+            if (p instanceof IfStmt) {
+                IfStmt ifStmt = (IfStmt) p;
+                if (child == ifStmt.getCondition()) continue;
+                guards.add(ifStmt.getCondition());
+                Statement elseStmt = ifStmt.getElseStmt().orElse(null);
+                if (elseStmt == child && elseStmt.getBegin().isPresent()) lines.add(elseStmt.getBegin().get().line);
+            } else if (p instanceof WhileStmt && child != ((WhileStmt) p).getCondition()) guards.add(((WhileStmt) p).getCondition());
+            else if (p instanceof DoStmt) guards.add(((DoStmt) p).getCondition());
+            else if (p instanceof ForStmt && ((ForStmt) p).getCompare().isPresent()
+                    && child != ((ForStmt) p).getCompare().get()) guards.add(((ForStmt) p).getCompare().get());
+            else if (p instanceof ForEachStmt && child != ((ForEachStmt) p).getIterable()) guards.add(((ForEachStmt) p).getIterable());
+            else if (p instanceof SwitchStmt) guards.add(((SwitchStmt) p).getSelector());
+        }
+        return guards;
+    }
+
+    /** Base names of the variables {@code n} reads: "emp" for emp.salary, "arr" for arr[i], "x" for this.x. */
+    static Set<String> readVariables(Node n) {
+        Set<String> names = new HashSet<>();
+        for (NameExpr name : n.findAll(NameExpr.class)) names.add(scoped(name, name.getNameAsString()));
+        for (FieldAccessExpr f : n.findAll(FieldAccessExpr.class)) {
+            if (f.getScope().isThisExpr()) names.add(f.getNameAsString());
+        }
+        return names;
+    }
+
+    private static String baseName(Expression e) {
+        while (true) {
+            if (e.isArrayAccessExpr()) e = e.asArrayAccessExpr().getName();
+            else if (e.isFieldAccessExpr() && !e.asFieldAccessExpr().getScope().isThisExpr()) e = e.asFieldAccessExpr().getScope();
+            else if (e.isFieldAccessExpr()) return e.asFieldAccessExpr().getNameAsString();
+            else if (e.isEnclosedExpr()) e = e.asEnclosedExpr().getInner();
+            else return scoped(e, e.toString());
+        }
+    }
+
+    /**
+     * {@code name} as seen from {@code at}: a local declared in an enclosing block or
+     * loop header gets that scope's position as suffix ("i@43:14"), so the {@code i}
+     * of one loop is not confused with the {@code i} of another. Parameters and
+     * fields keep their plain name.
+     */
+    private static String scoped(Node at, String name) {
+        for (Node p = at; p != null && !(p instanceof CallableDeclaration); p = p.getParentNode().orElse(null)) {
+            boolean declares = false;
+            if (p instanceof ForStmt) {
+                for (Expression init : ((ForStmt) p).getInitialization()) declares |= declares(init, name);
+            } else if (p instanceof ForEachStmt) {
+                declares = declares(((ForEachStmt) p).getVariable(), name);
+            } else if (p instanceof BlockStmt) {
+                for (Statement st : ((BlockStmt) p).getStatements()) {
+                    declares |= st.isExpressionStmt() && declares(st.asExpressionStmt().getExpression(), name);
+                }
+            }
+            if (declares && p.getBegin().isPresent()) {
+                return name + "@" + p.getBegin().get().line + ":" + p.getBegin().get().column;
+            }
+        }
+        return name;
+    }
+
+    private static boolean declares(Expression e, String name) {
+        return e.isVariableDeclarationExpr() && e.asVariableDeclarationExpr().getVariables().stream()
+                .anyMatch(v -> v.getNameAsString().equals(name));
+    }
+
+    private static void addLines(SortedSet<Integer> lines, Node n) {
+        if (n.getBegin().isEmpty() || n.getEnd().isEmpty()) return;
+        int begin = n.getBegin().get().line;
+        int end = n.getEnd().get().line;
+        if (n instanceof IfStmt || n instanceof WhileStmt || n instanceof ForStmt
+                || n instanceof ForEachStmt || n instanceof DoStmt || n instanceof BlockStmt) {
+            lines.add(begin); // bileşik ifadelerin gövdesi dilime girmez
+            return;
+        }
+        for (int line = begin; line <= end; line++) lines.add(line);
+    }
+}
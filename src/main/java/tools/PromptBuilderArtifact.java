@@ -0,0 +1,219 @@
+package tools;
+
+import cartago.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Analyzer prompt'larının değişken kısımlarını bir token bütçesi içinde kuran Artifact.
+ *
+ * Eskiden her prompt tüm kaynak kodu, tüm görsel kapsama dökümünü, bütün başarısız
+ * denemeleri ve current_inputs listesinin tamamını taşıyordu; boyut (gecikme ve maliyet)
+ * her iterasyonda büyüyordu. Burada:
+ * <ul>
+ *   <li>Kod: hedef yolun geriye dönük dilimi (ProgramSlicer), kapsama işaretleriyle ([HIT]/[MISS])
+ *       aynı görünümde; aradaki satırlar "..." ile atlanır</li>
+ *   <li>Başarısız denemeler: son birkaçı olduğu gibi, eskileri tek satırlık özet</li>
+ *   <li>Tekrar edilmemesi gereken girdiler: en yenileri, eskilerin sadece sayısı</li>
+ * </ul>
+ * Toplam bütçe (yaklaşık token, 4 karakter ≈ 1 token) makeArtifact parametresiyle verilir.
+ *
+ * Prompt'lar önek sabit düzende kurulur: deneğin satır numaralı kaynağı (subjectContext) ve
+ * ajanın sabit kuralları her çağrıda bayt bayt aynı bir önek (sistem mesajı) olur, yukarıdaki
+ * değişken kısımlar bunun ardından gelir. Sağlayıcı öneki prompt önbelleğinden okur; bütçe
+ * yalnızca değişken kısım içindir.
+ */
+public class PromptBuilderArtifact extends Artifact {
+
+    private static final int RECENT_FAILURES = 3;
+    private static final int MAX_REASON_CHARS = 400;
+    private static final int RECENT_INPUTS = 20;
+    private static final Pattern COVERAGE_LINE = Pattern.compile("^(\\[HIT\\]|\\[MISS\\])?\\s*(\\d+): ?(.*)$");
+
+    private int tokenBudget;
+    private long promptsBuilt;
+    private long tokensSaved;
+
+    void init(int tokenBudget) {
+        this.tokenBudget = tokenBudget;
+    }
+
+    /**
+     * Girdi üretim prompt'u için kod görünümü, başarısızlık özeti ve tekrar yasağı listesi.
+     *
+     * @param sourceCode Deneğin kaynak kodu
+     * @param strategy Yol ID'si veya "INITIAL_EXPLORATION" gibi bir strateji (o zaman dilim yok)
+     * @param visualCoverage Son koşunun görsel kapsaması ("[HIT]  12: ..." satırları), boş olabilir
+     * @param failedAttempts [[Input, Reason], ...], en yenisi başta (boş olabilir)
+     * @param currentInputs Şimdiye kadar denenen girdiler, en yenisi başta
+     * @param codeView OUT: dilim + kapsama işaretleri
+     * @param failureText OUT: başarısız denemeler (yoksa "")
+     * @param avoidText OUT: tekrar edilmemesi gereken girdiler
+     */
+    @OPERATION
+    void buildInputContext(String sourceCode, Object strategy, String visualCoverage, Object[] failedAttempts,
+                           Object[] currentInputs, OpFeedbackParam<String> codeView,
+                           OpFeedbackParam<String> failureText, OpFeedbackParam<String> avoidText) {
+        SourceCache.ParsedSource parsed = SourceCache.get(sourceCode);
+        Map<Integer, String> markers = coverageMarkers(visualCoverage);
+
+        String avoid = avoidList(currentInputs, RECENT_INPUTS);
+        String failures = failures(failedAttempts, RECENT_FAILURES);
+        // Bütçe aşılırsa önce geçmiş kısaltılır, kod en son
+        if (tokens(avoid) + tokens(failures) > tokenBudget / 2) {
+            avoid = avoidList(currentInputs, 5);
+            failures = failures(failedAttempts, 1);
+        }
+        int codeBudget = Math.max(tokenBudget / 4, tokenBudget - tokens(avoid) - tokens(failures));
+
+        PathTree.LogicPath path = strategy instanceof Number ? PathTree.lookup(((Number) strategy).intValue()) : null;
+        SortedSet<Integer> lines = path != null ? ProgramSlicer.slice(path) : new TreeSet<>();
+        String code;
+        if (lines.isEmpty()) {
+            // Yol yok (ilk keşif): tüm kaynak, bütçeye sığdığı kadar
+            SortedSet<Integer> all = new TreeSet<>();
+            for (int i = 1; i <= parsed.getLineCount(); i++) all.add(i);
+            code = render(parsed, all, markers, codeBudget, parsed.getLineCount());
+        } else {
+            code = render(parsed, lines, markers, codeBudget, path.getTargetLine());
+        }
+
+        synchronized (this) {
+            promptsBuilt++;
+            tokensSaved += Math.max(0, tokens(sourceCode) + tokens(visualCoverage) + tokens(Arrays.deepToString(failedAttempts))
+                    + tokens(Arrays.toString(currentInputs)) - tokens(code) - tokens(failures) - tokens(avoid));
+        }
+        codeView.set(code);
+        failureText.set(failures);
+        avoidText.set(avoid);
+    }
+
+    /**
+     * Deneğin tüm ajanlarca paylaşılan sabit bağlamı: satır numaralı kaynak kod. Aynı kaynak
+     * için her zaman aynı metni döndürür; ajanlar kendi sabit kurallarını bunun arkasına ekler.
+     */
+    @OPERATION
+    void subjectContext(String sourceCode, OpFeedbackParam<String> context) {
+        context.set(subjectContext(sourceCode));
+    }
+
+    static String subjectContext(String sourceCode) {
+        SourceCache.ParsedSource parsed = SourceCache.get(sourceCode);
+        StringBuilder sb = new StringBuilder("=== SOURCE CODE UNDER TEST (line-numbered) ===\n");
+        for (int line = 1; line <= parsed.getLineCount(); line++) {
+            sb.append(String.format("%3d: %s\n", line, parsed.getLine(line)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Kaç prompt kuruldu ve tam bağlama göre yaklaşık kaç token tasarruf edildi
+     */
+    @OPERATION
+    void promptBuilderStats(OpFeedbackParam<Long> built, OpFeedbackParam<Long> saved) {
+        synchronized (this) {
+            built.set(promptsBuilt);
+            saved.set(tokensSaved);
+        }
+    }
+
+    /** Yaklaşık token sayısı (LLMRateControl ile aynı kaba ölçü: 4 karakter ≈ 1 token). */
+    static int tokens(String text) {
+        return text == null ? 0 : (text.length() + 3) / 4;
+    }
+
+    private static Map<Integer, String> coverageMarkers(String visualCoverage) {
+        Map<Integer, String> markers = new HashMap<>();
+        if (visualCoverage == null) return markers;
+        for (String line : visualCoverage.split("\n")) {
+            Matcher m = COVERAGE_LINE.matcher(line);
+            if (m.matches() && m.group(1) != null) markers.put(Integer.parseInt(m.group(2)), m.group(1));
+        }
+        return markers;
+    }
+
+    /**
+     * Satırları kapsama görünümündeki biçimde yazar. Bütçeyi aşarsa hedef satırdan en uzak
+     * satırlar atılır (imza ve hedef satır hep kalır).
+     */
+    private static String render(SourceCache.ParsedSource parsed, SortedSet<Integer> lines, Map<Integer, String> markers,
+                                 int budget, int targetLine) {
+        List<Integer> kept = new ArrayList<>(lines);
+        String text = format(parsed, kept, markers);
+        if (tokens(text) <= budget) return text;
+
+        int first = kept.get(0);
+        List<Integer> byDistance = new ArrayList<>(kept);
+        byDistance.sort(Comparator.comparingInt((Integer l) -> Math.abs(l - targetLine)).reversed());
+        for (Integer line : byDistance) {
+            if (tokens(text) <= budget) break;
+            if (line == first || line == targetLine) continue;
+            kept.remove(line);
+            text = format(parsed, kept, markers);
+        }
+        return text;
+    }
+
+    private static String format(SourceCache.ParsedSource parsed, List<Integer> lines, Map<Integer, String> markers) {
+        StringBuilder sb = new StringBuilder();
+        int previous = -1;
+        for (int line : lines) {
+            if (line < 1 || line > parsed.getLineCount()) continue;
+            if (previous != -1 && line > previous + 1) sb.append("        ...\n");
+            String marker = markers.get(line);
+            sb.append(String.format("%s %2d: %s\n", marker == null ? "      " : marker + " ", line, parsed.getLine(line)));
+            previous = line;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@code attempts} is newest first (the agents prepend): the first
+     * {@code recent} are shown as they are, the rest as one summary line.
+     */
+    static String failures(Object[] attempts, int recent) {
+        if (attempts == null || attempts.length == 0) return "";
+        StringBuilder sb = new StringBuilder();
+        int shown = Math.min(recent, attempts.length);
+        for (int i = 0; i < shown; i++) {
+            Object[] pair = (Object[]) attempts[i];
+            sb.append("\n   • Input: ").append(pair[0])
+              .append("\n     Reason: ").append(clip(String.valueOf(pair[1]).replaceAll("\\s*\n\\s*", " "), MAX_REASON_CHARS));
+        }
+        int older = attempts.length - shown;
+        if (older > 0) {
+            // Eski denemeler: girdiler ve en sık tekrar eden sebep
+            List<String> inputs = new ArrayList<>();
+            Map<String, Integer> reasons = new LinkedHashMap<>();
+            for (int i = shown; i < attempts.length; i++) {
+                Object[] pair = (Object[]) attempts[i];
+                inputs.add(String.valueOf(pair[0]));
+                reasons.merge(firstLine(String.valueOf(pair[1])), 1, Integer::sum);
+            }
+            String common = Collections.max(reasons.entrySet(), Map.Entry.comparingByValue()).getKey();
+            sb.append("\n   • ").append(older).append(" earlier attempts also failed: ").append(String.join(", ", inputs))
+              .append("\n     Most common reason: ").append(clip(common, MAX_REASON_CHARS));
+        }
+        return sb.toString();
+    }
+
+    /** {@code inputs} is newest first: the first {@code recent} are listed, the rest only counted. */
+    static String avoidList(Object[] inputs, int recent) {
+        if (inputs == null || inputs.length == 0) return "[]";
+        int shown = Math.min(recent, inputs.length);
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < shown; i++) joiner.add(String.valueOf(inputs[i]));
+        int older = inputs.length - shown;
+        return older == 0 ? joiner.toString() : joiner + " (and " + older + " earlier inputs)";
+    }
+
+    private static String firstLine(String text) {
+        int nl = text.indexOf('\n');
+        return nl < 0 ? text : text.substring(0, nl);
+    }
+
+    private static String clip(String text, int max) {
+        return text.length() <= max ? text : text.substring(0, max) + "...";
+    }
+}
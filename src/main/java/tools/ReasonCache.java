@@ -0,0 +1,102 @@
+package tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU of miss explanations keyed by path ID and canonical input.
+ *
+ * The orchestrator asks for a reason when an input is recorded and again when
+ * it misses, and LLM retries often repeat an input that was already tried. An
+ * explanation only depends on the path's compiled constraints and the input
+ * values, so it is computed once per (path, input) pair. Inputs are
+ * canonicalized first: "[1, 2.0,3]" and "[1,2,3]" share an entry.
+ */
+public final class ReasonCache {
+
+    private final int maxEntries;
+    private final Map<String, String> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ReasonCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                if (size() > ReasonCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** The cached explanation, or the one {@code compute} produces (then stored). */
+    public synchronized String get(int pathId, String inputJson, Supplier<String> compute) {
+        String key = pathId + "|" + canonicalize(inputJson);
+        String reason = entries.get(key);
+        if (reason != null) {
+            hits++;
+            return reason;
+        }
+        misses++;
+        reason = compute.get();
+        entries.put(key, reason);
+        return reason;
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Whitespace-free JSON with numbers in their shortest exact form. Text
+     * that is not JSON is keyed as is (trimmed).
+     */
+    static String canonicalize(String inputJson) {
+        if (inputJson == null) return "null";
+        try {
+            return normalize(JsonParser.parseString(inputJson)).toString();
+        } catch (RuntimeException e) {
+            return inputJson.trim();
+        }
+    }
+
+    private static JsonElement normalize(JsonElement e) {
+        if (e.isJsonArray()) {
+            JsonArray out = new JsonArray();
+            for (JsonElement item : e.getAsJsonArray()) out.add(normalize(item));
+            return out;
+        }
+        if (e.isJsonObject()) {
+            // Alan sırası anlamsız: anahtarlara göre sırala
+            JsonObject out = new JsonObject();
+            new TreeMap<>(e.getAsJsonObject().asMap()).forEach((k, v) -> out.add(k, normalize(v)));
+            return out;
+        }
+        if (e.isJsonPrimitive() && e.getAsJsonPrimitive().isNumber()) {
+            try {
+                BigDecimal n = new BigDecimal(e.getAsString()).stripTrailingZeros();
+                return new JsonPrimitive(new BigDecimal(n.toPlainString()));
+            } catch (NumberFormatException ex) {
+                return e;
+            }
+        }
+        return e;
+    }
+}
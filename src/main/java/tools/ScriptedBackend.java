@@ -0,0 +1,224 @@
+package tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process {@link LLMBackend} that answers without a network or a model,
+ * so the whole MAS can run at full speed in load tests and offline.
+ *
+ * Answers come from the scripted rules first: each rule is a regular
+ * expression searched in the conversation (all message contents, so the
+ * system prefix is included) and the answers to give,
+ * cycled in order. Prompts no rule matches get a rule-based answer shaped
+ * like what the agents ask for:
+ * <ul>
+ *   <li>input prompts ("exactly N arguments"): a JSON array of N values
+ *       matching the "Parameter Types" line</li>
+ *   <li>the batch prompt ("PATH id: ..." lines): a JSON object of such arrays keyed by path ID</li>
+ *   <li>test class prompts (JUnit): a compilable class with the requested number of test methods</li>
+ *   <li>the semantic review: STATUS CORRECT, CONFIDENCE 0%</li>
+ * </ul>
+ * Values are drawn from a random generator seeded with the prompt and how
+ * often it was asked, so runs are reproducible and a retried prompt still
+ * gets a different input.
+ *
+ * Configuration: {@code llm.fakeScript} / {@code LLM_FAKE_SCRIPT}, a JSON file
+ * {@code [{"match": "regex", "responses": ["...", ...]}, ...]}, and
+ * {@code llm.fakeLatencyMillis} / {@code LLM_FAKE_LATENCY_MILLIS} to simulate
+ * a slow model (default 0).
+ */
+public final class ScriptedBackend implements LLMBackend {
+
+    private static final Pattern ARG_COUNT = Pattern.compile("exactly (\\d+) arguments");
+    private static final Pattern PARAM_TYPES = Pattern.compile("Parameter Types: *([^\\n]*)");
+    private static final Pattern BATCH_PATH = Pattern.compile("\\n PATH (\\d+):");
+    private static final Pattern CLASS_NAME = Pattern.compile("Name the class '(\\w+)'");
+    private static final Pattern TEST_COUNT = Pattern.compile("EXACTLY (\\d+) test methods");
+
+    private static final class Rule {
+        final Pattern match;
+        final List<String> responses;
+        int next;
+
+        Rule(Pattern match, List<String> responses) {
+            this.match = match;
+            this.responses = responses;
+        }
+    }
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final long latencyMillis;
+    private final Map<String, Integer> asked = new HashMap<>(); // istem kaç kez soruldu
+    private long calls;
+
+    public ScriptedBackend(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    static ScriptedBackend fromConfig() {
+        ScriptedBackend backend = new ScriptedBackend(Config.getInt("llm.fakeLatencyMillis", "LLM_FAKE_LATENCY_MILLIS", 0));
+        String script = Config.get("llm.fakeScript", "LLM_FAKE_SCRIPT");
+        if (script != null) {
+            try {
+                backend.loadScript(new String(Files.readAllBytes(Paths.get(script)), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot read llm.fakeScript " + script, e);
+            }
+        }
+        return backend;
+    }
+
+    /** Adds a rule: prompts containing a match of {@code regex} get {@code responses} in turn. */
+    public synchronized ScriptedBackend when(String regex, String... responses) {
+        rules.add(new Rule(Pattern.compile(regex, Pattern.DOTALL), List.of(responses)));
+        return this;
+    }
+
+    /** Adds the rules of a script: {@code [{"match": ..., "responses": [...]}]} ("response" for one answer). */
+    public ScriptedBackend loadScript(String json) {
+        for (JsonElement e : JsonParser.parseString(json).getAsJsonArray()) {
+            JsonObject rule = e.getAsJsonObject();
+            List<String> responses = new ArrayList<>();
+            if (rule.has("responses")) {
+                for (JsonElement r : rule.getAsJsonArray("responses")) responses.add(r.getAsString());
+            } else {
+                responses.add(rule.get("response").getAsString());
+            }
+            when(rule.get("match").getAsString(), responses.toArray(new String[0]));
+        }
+        return this;
+    }
+
+    @Override
+    public String name() { return "fake"; }
+
+    @Override
+    public String model() { return "scripted"; }
+
+    public synchronized long getCalls() { return calls; }
+
+    @Override
+    public CompletableFuture<LLMCompletion> complete(JsonArray messages, double temperature, int maxTokens) {
+        LLMCompletion answer;
+        try {
+            // Kullanım bilgisi yok: token sayıları metin uzunluğundan tahmin edilir
+            answer = LLMCompletion.estimated(answer(conversation(messages)), messages.toString().length());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (latencyMillis <= 0) return CompletableFuture.completedFuture(answer);
+        return CompletableFuture.supplyAsync(() -> answer,
+                CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private synchronized String answer(String prompt) {
+        calls++;
+        for (Rule rule : rules) {
+            if (rule.match.matcher(prompt).find()) {
+                String response = rule.responses.get(rule.next % rule.responses.size());
+                rule.next++;
+                return response;
+            }
+        }
+        int occurrence = asked.merge(prompt, 1, Integer::sum);
+        Random random = new Random(prompt.hashCode() * 31L + occurrence);
+        String[] types = parameterTypes(prompt);
+
+        Matcher count = ARG_COUNT.matcher(prompt);
+        int arity = count.find() ? Integer.parseInt(count.group(1)) : -1;
+
+        // Toplu istem de "exactly N arguments" içerir; önce yol listesine bak
+        Set<String> pathIds = new LinkedHashSet<>();
+        Matcher path = BATCH_PATH.matcher(prompt);
+        while (path.find()) pathIds.add(path.group(1));
+        if (!pathIds.isEmpty()) {
+            JsonObject keyed = new JsonObject();
+            for (String id : pathIds) keyed.add(id, arguments(types, arity >= 0 ? arity : types.length, random));
+            return keyed.toString();
+        }
+        if (arity >= 0) return arguments(types, arity, random).toString();
+
+        if (prompt.contains("JUnit")) return testClass(prompt);
+        if (prompt.contains("STATUS: CORRECT / INCORRECT")) {
+            return "- INTENT: as written\n- IMPLEMENTATION: as written\n- STATUS: CORRECT\n- CONFIDENCE: 0%\n- EVIDENCE: none";
+        }
+        return "OK";
+    }
+
+    private static String conversation(JsonArray messages) {
+        StringBuilder sb = new StringBuilder();
+        for (JsonElement e : messages) {
+            JsonObject m = e.getAsJsonObject();
+            if (m.has("content") && !m.get("content").isJsonNull()) sb.append(m.get("content").getAsString()).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    private static String[] parameterTypes(String prompt) {
+        Matcher m = PARAM_TYPES.matcher(prompt);
+        if (!m.find() || m.group(1).isBlank()) return new String[0];
+        return m.group(1).trim().split("\\s*,\\s*");
+    }
+
+    private static JsonArray arguments(String[] types, int count, Random random) {
+        JsonArray args = new JsonArray();
+        for (int i = 0; i < count; i++) args.add(value(i < types.length ? types[i] : "int", random));
+        return args;
+    }
+
+    private static JsonElement value(String type, Random random) {
+        if (type.endsWith("[]")) {
+            JsonArray array = new JsonArray();
+            int length = random.nextInt(4);
+            for (int i = 0; i < length; i++) array.add(value(type.substring(0, type.length() - 2), random));
+            return array;
+        }
+        switch (type) {
+            case "int": case "long": case "short": case "byte": case "Integer": case "Long":
+                return new JsonPrimitive(random.nextInt(201) - 100);
+            case "double": case "float": case "Double": case "Float":
+                return new JsonPrimitive((random.nextInt(2001) - 1000) / 10.0);
+            case "boolean": case "Boolean":
+                return new JsonPrimitive(random.nextBoolean());
+            case "char": case "Character":
+                return new JsonPrimitive(String.valueOf((char) ('a' + random.nextInt(26))));
+            case "String":
+                return new JsonPrimitive(random.nextInt(5) == 0 ? "" : "s" + random.nextInt(100));
+            default:
+                // Özel sınıf: alanları bilinmiyor, boş nesne (varsayılan kurucuyla oluşturulur)
+                return new JsonObject();
+        }
+    }
+
+    private static String testClass(String prompt) {
+        Matcher name = CLASS_NAME.matcher(prompt);
+        Matcher count = TEST_COUNT.matcher(prompt);
+        int tests = count.find() ? Integer.parseInt(count.group(1)) : 1;
+        StringBuilder code = new StringBuilder("import org.junit.jupiter.api.Test;\n")
+                .append("import static org.junit.jupiter.api.Assertions.*;\n\n")
+                .append("public class ").append(name.find() ? name.group(1) : "GeneratedTest").append(" {\n");
+        for (int i = 1; i <= tests; i++) {
+            code.append("\n    @Test\n    void testCase").append(i).append("() {\n        assertTrue(true);\n    }\n");
+        }
+        return code.append("}\n").toString();
+    }
+}
@@ -0,0 +1,148 @@
+package tools;
+
+import cartago.*;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Çok denekli oturumun (session.jcm) tek sonuç dosyasını tutan Artifact.
+ *
+ * session_manager her deneği ayrı bir ajan takımıyla koşturur; takımın orchestrator'ı kapsama
+ * sonucunu, executor'ı JUnit sonucunu bildirir. Burada her denek için bunlar, süre, bitiş durumu
+ * (completed / timeout) ve LLMTelemetry'deki o deneğin çağrı/token/maliyet özeti tek bir JSON
+ * dosyasında toplanır. Dosya her güncellemede atomik olarak yeniden yazılır: oturum yarıda
+ * kesilse bile o ana kadar biten denekler dosyadadır.
+ */
+public class SessionResultsArtifact extends Artifact {
+
+    private static final Pattern JUNIT_TOTALS = Pattern.compile("Total: (\\d+) \\| Passed: (\\d+) \\| Failed: (\\d+)");
+
+    private Path resultFile;
+    private String sessionStartedAt;
+    private final Map<String, JsonObject> subjects = new LinkedHashMap<>();
+    private final Map<String, Long> startNanos = new HashMap<>();
+
+    void init(String resultFile) {
+        this.resultFile = Paths.get(resultFile);
+        this.sessionStartedAt = Instant.now().toString();
+    }
+
+    @OPERATION
+    void subjectStarted(String subject) {
+        JsonObject s = entry(subject);
+        s.addProperty("startedAt", Instant.now().toString());
+        startNanos.put(subject, System.nanoTime());
+        write();
+    }
+
+    /**
+     * Orchestrator'ın analiz sonu: kapsanan, engellenen ve toplam mantıksal yol sayısı
+     */
+    @OPERATION
+    void recordCoverage(String subject, int covered, int blocked, int total) {
+        JsonObject coverage = new JsonObject();
+        coverage.addProperty("coveredPaths", covered);
+        coverage.addProperty("blockedPaths", blocked);
+        coverage.addProperty("totalPaths", total);
+        coverage.addProperty("pathCoverage", total == 0 ? 0 : (double) covered / total);
+        entry(subject).add("coverage", coverage);
+        write();
+    }
+
+    /**
+     * Executor'ın JUnit sonucu; test sayıları rapordaki "Total: .. | Passed: .. | Failed: .." satırından okunur
+     */
+    @OPERATION
+    void recordTests(String subject, String status, int inputs, int contributingInputs, String report) {
+        JsonObject tests = new JsonObject();
+        tests.addProperty("status", status);
+        tests.addProperty("inputs", inputs);
+        tests.addProperty("coverageContributingInputs", contributingInputs);
+        Matcher m = JUNIT_TOTALS.matcher(report);
+        if (m.find()) {
+            tests.addProperty("total", Integer.parseInt(m.group(1)));
+            tests.addProperty("passed", Integer.parseInt(m.group(2)));
+            tests.addProperty("failed", Integer.parseInt(m.group(3)));
+        }
+        entry(subject).add("tests", tests);
+        write();
+    }
+
+    /**
+     * Deneği kapatır: süre ve LLM telemetrisi eklenir
+     *
+     * @param outcome "completed" veya "timeout"
+     */
+    @OPERATION
+    void subjectFinished(String subject, String outcome) {
+        JsonObject s = entry(subject);
+        s.addProperty("outcome", outcome);
+        Long started = startNanos.remove(subject);
+        if (started != null) s.addProperty("durationMs", (System.nanoTime() - started) / 1_000_000);
+        s.add("llm", LLMTelemetry.shared().subjectJson(subject));
+        write();
+    }
+
+    /**
+     * Konsol için her deneğe bir satır: durum, yol kapsaması, geçen testler, süre
+     */
+    @OPERATION
+    void sessionSummary(OpFeedbackParam<String> summary) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, JsonObject> e : subjects.entrySet()) {
+            JsonObject s = e.getValue();
+            sb.append("\n  ").append(e.getKey()).append(": ").append(s.get("outcome").getAsString());
+            if (s.has("coverage")) {
+                JsonObject c = s.getAsJsonObject("coverage");
+                sb.append(", paths ").append(c.get("coveredPaths")).append("/").append(c.get("totalPaths"))
+                  .append(" (").append(c.get("blockedPaths")).append(" blocked)");
+            }
+            if (s.has("tests") && s.getAsJsonObject("tests").has("total")) {
+                JsonObject t = s.getAsJsonObject("tests");
+                sb.append(", tests ").append(t.get("passed")).append("/").append(t.get("total")).append(" passed");
+            }
+            if (s.has("durationMs")) sb.append(", ").append(s.get("durationMs").getAsLong() / 1000).append(" s");
+        }
+        sb.append("\n  Results: ").append(resultFile.toAbsolutePath());
+        summary.set(sb.toString());
+    }
+
+    private JsonObject entry(String subject) {
+        return subjects.computeIfAbsent(subject, k -> {
+            JsonObject s = new JsonObject();
+            s.addProperty("outcome", "running");
+            return s;
+        });
+    }
+
+    private int finishedCount() {
+        int n = 0;
+        for (JsonObject s : subjects.values()) {
+            if (!"running".equals(s.get("outcome").getAsString())) n++;
+        }
+        return n;
+    }
+
+    private void write() {
+        JsonObject root = new JsonObject();
+        root.addProperty("startedAt", sessionStartedAt);
+        root.addProperty("updatedAt", Instant.now().toString());
+        root.addProperty("subjectsFinished", finishedCount());
+        JsonObject all = new JsonObject();
+        subjects.forEach(all::add);
+        root.add("subjects", all);
+        root.add("llm", LLMTelemetry.shared().subjectJson(null));
+        try {
+            LLMTelemetry.write(resultFile, new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(root));
+        } catch (IOException e) {
+            System.err.println("[Session] Sonuç dosyası yazılamadı: " + e.getMessage());
+        }
+    }
+}
@@ -2,9 +2,6 @@ package tools;
 
 import java.io.*;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDateTime;
@@ -20,15 +17,11 @@ import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.runtime.*;
 
 import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 public class SimpleLLMBenchmark {
 
-    // Set the OPENAI_API_KEY environment variable before running.
-    private static final String API_KEY = System.getenv("OPENAI_API_KEY");
-   
-    private static final String OPENAI_URL = "https://api.openai.com/v1/chat/completions";
+    // Backend and model come from -Dllm.backend / -Dllm.model (see LLMBackend);
+    // the OpenAI backend needs the OPENAI_API_KEY environment variable.
     private static final int MAX_REFLECTION_STEPS = 2; 
 
     public static void main(String[] args) {
@@ -72,17 +65,17 @@ public class SimpleLLMBenchmark {
         BenchmarkResult res = new BenchmarkResult();
         res.fileName = fileName;
         
-        JsonArray messageHistory = new JsonArray();
-        addMessage(messageHistory, "user", createSimplePrompt(sourceCode));
+        // Talimat ve kod sabit önek (prompt önbelleği), arkasına cevaplar ve geri bildirimler
+        ChatHistory history = new ChatHistory(SIMPLE_RULES, "Code:\n" + sourceCode, ChatHistory.configuredWindow());
 
         long startTime = System.currentTimeMillis();
 
         for (int step = 1; step <= MAX_REFLECTION_STEPS; step++) {
             System.out.println("🤖 Adım #" + step + " çalışıyor...");
             try {
-                String llmResponse = askLLM(messageHistory);
+                String llmResponse = askLLM(history.messages());
                 System.out.println("✅ LLM yanıtı alındı");
-                addMessage(messageHistory, "assistant", llmResponse);
+                history.addAssistant(llmResponse);
                 
                 String testCode = extractTestCode(llmResponse);
                 CoverageResult coverage = runTestWithCoverage(sourceCode, testCode);
@@ -113,7 +106,7 @@ public class SimpleLLMBenchmark {
 
                 if (step < MAX_REFLECTION_STEPS) {
                     String feedback = "Hataları düzelt:\n" + coverage.errorLog + "\nCoverage: %" + coverage.coverage;
-                    addMessage(messageHistory, "user", feedback);
+                    history.addUser(feedback);
                 }
             } catch (Exception e) {
                 System.err.println("❌ Hata (Adım #" + step + "): " + e.getMessage());
@@ -231,28 +224,8 @@ public class SimpleLLMBenchmark {
     }
 
     private static String askLLM(JsonArray messages) throws Exception {
-        JsonObject body = new JsonObject();
-        body.addProperty("model", "gpt-4o-mini");
-        body.add("messages", messages);
-        body.addProperty("temperature", 0.1);
-
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(OPENAI_URL))
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + API_KEY)
-                .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8))
-                .build();
-
-        HttpResponse<String> resp = client.send(request, HttpResponse.BodyHandlers.ofString());
-        
-        if (resp.statusCode() != 200) {
-            throw new RuntimeException("API Hatası: " + resp.statusCode() + " - " + resp.body());
-        }
-        
-        return JsonParser.parseString(resp.body()).getAsJsonObject()
-                .getAsJsonArray("choices").get(0).getAsJsonObject()
-                .getAsJsonObject("message").get("content").getAsString();
+        // Aynı istek tekrarlanırsa LLMResponseCache (record/replay) ağa çıkmadan cevaplar
+        return LLMBackends.complete(messages, 0.1, 0);
     }
 
     private static Map<String, byte[]> compileMultipleFiles(Map<String, String> sources) throws Exception {
@@ -336,13 +309,8 @@ public class SimpleLLMBenchmark {
         return sc.contains("package app") ? "app." + n : n;
     }
 
-    private static String createSimplePrompt(String sc) {
-        return "Write JUnit 5 tests for 100% coverage. If code has bugs, assert CORRECT logic (fail test). Return ONLY Java code. Code:\n" + sc;
-    }
-
-    private static void addMessage(JsonArray h, String r, String c) {
-        JsonObject m = new JsonObject(); m.addProperty("role", r); m.addProperty("content", c); h.add(m);
-    }
+    private static final String SIMPLE_RULES =
+        "Write JUnit 5 tests for 100% coverage. If code has bugs, assert CORRECT logic (fail test). Return ONLY Java code.";
 
     private static void printSummary(List<BenchmarkResult> results) {
         System.out.println("\n📊 ÖZET:");
@@ -2,9 +2,6 @@ package tools;
 
 import java.io.*;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDateTime;
@@ -22,7 +19,6 @@ import org.jacoco.core.runtime.*;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 /**
  * Basit LLM Benchmark Aracı
@@ -34,9 +30,8 @@ import com.google.gson.JsonParser;
  */
 public class SimpleLLMBenchmark2 {
     
-    // Set the OPENAI_API_KEY environment variable before running.
-    private static final String API_KEY = System.getenv("OPENAI_API_KEY");
-    private static final String OPENAI_URL = "https://api.openai.com/v1/chat/completions";
+    // Backend and model come from -Dllm.backend / -Dllm.model (see LLMBackend);
+    // the OpenAI backend needs the OPENAI_API_KEY environment variable.
     
     public static void main(String[] args) {
         System.out.println("=".repeat(80));
@@ -74,9 +69,6 @@ public class SimpleLLMBenchmark2 {
                 BenchmarkResult result = runBenchmarkForFile(file.getName(), sourceCode);
                 results.add(result);
                 
-                // Her testten sonra biraz bekle (rate limit için)
-                Thread.sleep(2000);
-                
             } catch (Exception e) {
                 System.err.println("❌ Hata: " + e.getMessage());
                 e.printStackTrace();
@@ -141,12 +133,11 @@ public class SimpleLLMBenchmark2 {
         return result;
     }
     
-    private static String createSimplePrompt(String sourceCode) {
-        return String.format(
+    // Talimatlar tüm denekler için aynı: sistem mesajı olarak önce gider (sağlayıcı prompt önbelleği),
+    // değişen kaynak kod arkasından kullanıcı mesajında
+    private static final String SIMPLE_RULES =
             "Role: Java Test Engineer.\n" +
-            "Task: Write a comprehensive JUnit 5 test class for the provided Java code to achieve 100%% line and branch coverage in a single execution.\n\n" +
-            "Source Code:\n" +
-            "```java\n%s\n```\n\n" +
+            "Task: Write a comprehensive JUnit 5 test class for the Java code given by the user to achieve 100% line and branch coverage in a single execution.\n\n" +
             "Instructions & Rules:\n" +
             "1. Analyze the Logic: Identify all possible execution paths, including edge cases, boundary values, and potential error conditions within the code.\n" +
             "2. Coverage Goal: Create a sufficient number of @Test methods to ensure every line and every logical branch is executed.\n" +
@@ -159,45 +150,27 @@ public class SimpleLLMBenchmark2 {
             "Constraints:\n" +
             " - **No Null Primitives:** Do not pass `null` values to primitive types (like `int`, `double`), as this will cause compilation errors.\n" +
             " - Self-Contained: The output must be valid, compilable Java code only. Do not include any explanations or markdown prose outside the code block.\n" +
-            " - Output Format: Provide ONLY the complete Java source code for the test class.",
-            sourceCode
-        );
+            " - Output Format: Provide ONLY the complete Java source code for the test class.";
+
+    private static String createSimplePrompt(String sourceCode) {
+        return "Source Code:\n```java\n" + sourceCode + "\n```";
     }
     
     private static String askLLM(String prompt) throws Exception {
+        JsonObject systemMessage = new JsonObject();
+        systemMessage.addProperty("role", "system");
+        systemMessage.addProperty("content", SIMPLE_RULES);
+
         JsonObject userMessage = new JsonObject();
         userMessage.addProperty("role", "user");
         userMessage.addProperty("content", prompt);
         
         JsonArray messages = new JsonArray();
+        messages.add(systemMessage);
         messages.add(userMessage);
         
-        JsonObject requestBody = new JsonObject();
-        requestBody.addProperty("model", "gpt-4o-mini");
-        requestBody.add("messages", messages);
-        requestBody.addProperty("temperature", 0.7);
-        
-        String jsonBody = requestBody.toString();
-        
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(OPENAI_URL))
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + API_KEY)
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8))
-                .build();
-        
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("API Hatası: " + response.statusCode() + " - " + response.body());
-        }
-        
-        JsonObject jsonResponse = JsonParser.parseString(response.body()).getAsJsonObject();
-        JsonArray choices = jsonResponse.getAsJsonArray("choices");
-        return choices.get(0).getAsJsonObject()
-                .getAsJsonObject("message")
-                .get("content").getAsString();
+        // Aynı istek tekrarlanırsa LLMResponseCache (record/replay) ağa çıkmadan cevaplar
+        return LLMBackends.complete(messages, 0.7, 0);
     }
     
     private static String extractTestCode(String llmResponse) {
@@ -0,0 +1,229 @@
+package tools;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JVM-wide cache of everything the tools derive from a subject's source text.
+ *
+ * The analyzer hands the same source string to the logic mapper and to the
+ * coverage runner on every iteration; both used to parse it, split it into
+ * lines and regex out the class name on their own. A {@link ParsedSource} does
+ * each of those once per distinct source text and every artifact in the
+ * workspace reads the shared result. The AST is shared as well, so callers
+ * must clone nodes before modifying them. Logic path trees extracted from a
+ * source hang off its entry and are released with it.
+ */
+public final class SourceCache {
+
+    private static final int MAX_ENTRIES = 32;
+
+    // Erişim sırasına göre LRU: birkaç denek aynı JVM'de analiz edilebilir
+    private static final Map<String, ParsedSource> CACHE = new LinkedHashMap<String, ParsedSource>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedSource> eldest) {
+            if (size() <= MAX_ENTRIES) return false;
+            eldest.getValue().release();
+            return true;
+        }
+    };
+
+    private SourceCache() {}
+
+    /** The parsed form of {@code sourceCode}, built on first use. */
+    public static ParsedSource get(String sourceCode) {
+        synchronized (CACHE) {
+            ParsedSource parsed = CACHE.get(sourceCode);
+            if (parsed == null) {
+                parsed = new ParsedSource(sourceCode);
+                CACHE.put(sourceCode, parsed);
+            }
+            return parsed;
+        }
+    }
+
+    /** Name, parameter names and declared parameter types of a method. */
+    public static final class MethodSignature {
+        final String name;
+        final boolean isPublic;
+        final boolean isStatic;
+        final List<String> paramNames;
+        final List<String> paramTypes;   // kaynakta yazıldığı gibi: "int", "int[]", "Employee"
+        final MethodDeclaration declaration;
+
+        MethodSignature(MethodDeclaration m) {
+            this.name = m.getNameAsString();
+            this.isPublic = m.hasModifier(Modifier.Keyword.PUBLIC);
+            this.isStatic = m.hasModifier(Modifier.Keyword.STATIC);
+            List<String> names = new ArrayList<>();
+            List<String> types = new ArrayList<>();
+            for (Parameter p : m.getParameters()) {
+                names.add(p.getNameAsString());
+                types.add(p.getType().asString() + (p.isVarArgs() ? "[]" : ""));
+            }
+            this.paramNames = Collections.unmodifiableList(names);
+            this.paramTypes = Collections.unmodifiableList(types);
+            this.declaration = m;
+        }
+
+        public String getName() { return name; }
+        public boolean isPublic() { return isPublic; }
+        public boolean isStatic() { return isStatic; }
+        public List<String> getParamNames() { return paramNames; }
+        public List<String> getParamTypes() { return paramTypes; }
+        public int getParamCount() { return paramNames.size(); }
+        public MethodDeclaration getDeclaration() { return declaration; }
+    }
+
+    /**
+     * One source text with its AST, line index, class name and method
+     * signatures. Compiled class bytes are attached lazily by whoever compiles
+     * the source first.
+     */
+    public static final class ParsedSource {
+        private final String source;
+        private final String[] lines;
+        private final CompilationUnit cu;
+        private final RuntimeException parseError;
+        private final String packageName;
+        private final String simpleClassName;
+        private final List<MethodSignature> methods;
+        private volatile Map<String, byte[]> classBytes;
+        private volatile BranchTracer.Instrumented tracedClass;
+        private final List<PathTree> pathTrees = new ArrayList<>();
+
+        private ParsedSource(String source) {
+            this.source = source;
+            this.lines = source.split("\n");
+
+            CompilationUnit parsed = null;
+            RuntimeException error = null;
+            try {
+                parsed = StaticJavaParser.parse(source);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            this.cu = parsed;
+            this.parseError = error;
+
+            if (parsed != null) {
+                this.packageName = parsed.getPackageDeclaration().map(p -> p.getNameAsString()).orElse("");
+                TypeDeclaration<?> primary = primaryType(parsed);
+                this.simpleClassName = primary != null ? primary.getNameAsString() : "Hesaplama";
+                List<MethodSignature> sigs = new ArrayList<>();
+                if (primary != null) {
+                    for (MethodDeclaration m : primary.getMethods()) sigs.add(new MethodSignature(m));
+                }
+                this.methods = Collections.unmodifiableList(sigs);
+            } else {
+                // JavaParser'ın desteklemediği sözdizimi: derleyici yine de çalışabilsin diye eski regex
+                Matcher pkg = Pattern.compile("package\\s+([\\w.]+);").matcher(source);
+                this.packageName = pkg.find() ? pkg.group(1) : "";
+                Matcher cls = Pattern.compile("class\\s+(\\w+)").matcher(source);
+                this.simpleClassName = cls.find() ? cls.group(1) : "Hesaplama";
+                this.methods = Collections.emptyList();
+            }
+        }
+
+        private static TypeDeclaration<?> primaryType(CompilationUnit cu) {
+            // Önce public üst düzey tip, yoksa ilk tip
+            for (TypeDeclaration<?> t : cu.getTypes()) {
+                if (t.hasModifier(Modifier.Keyword.PUBLIC)) return t;
+            }
+            return cu.getTypes().isEmpty() ? null : cu.getType(0);
+        }
+
+        public String getSource() { return source; }
+
+        /** The shared AST; throws the original parse error if the source did not parse. */
+        public CompilationUnit getCompilationUnit() {
+            if (cu == null) throw parseError;
+            return cu;
+        }
+
+        public boolean isParsed() { return cu != null; }
+
+        /** Source lines, split the same way the runner's coverage report always did. */
+        public String[] getLines() { return lines; }
+
+        public int getLineCount() { return lines.length; }
+
+        /** 1-based line text, or an empty string outside the file. */
+        public String getLine(int lineNo) {
+            return lineNo >= 1 && lineNo <= lines.length ? lines[lineNo - 1] : "";
+        }
+
+        public String getPackageName() { return packageName; }
+        public String getSimpleClassName() { return simpleClassName; }
+
+        public String getFullClassName() {
+            return packageName.isEmpty() ? simpleClassName : packageName + "." + simpleClassName;
+        }
+
+        /** Methods of the primary class in declaration order. */
+        public List<MethodSignature> getMethods() { return methods; }
+
+        /** The method under test: the first public method in declaration order. */
+        public Optional<MethodSignature> getTargetMethod() {
+            for (MethodSignature m : methods) {
+                if (m.isPublic) return Optional.of(m);
+            }
+            return Optional.empty();
+        }
+
+        /** Registers a path tree extracted from this source (see {@link #release()}). */
+        synchronized void attach(PathTree tree) {
+            pathTrees.add(tree);
+        }
+
+        /** Evicted from the cache: unregisters the path trees and branch-tracer sites so they can be collected. */
+        synchronized void release() {
+            for (PathTree tree : pathTrees) tree.unregister();
+            pathTrees.clear();
+            if (tracedClass != null) BranchTracer.release(tracedClass);
+        }
+
+        /**
+         * Class bytes keyed by binary name, compiled on first request. A failed
+         * compilation is not cached so the next call reports it again.
+         */
+        public Map<String, byte[]> classBytes(Function<ParsedSource, Map<String, byte[]>> compiler) {
+            Map<String, byte[]> bytes = classBytes;
+            if (bytes == null) {
+                synchronized (this) {
+                    bytes = classBytes;
+                    if (bytes == null) {
+                        bytes = compiler.apply(this);
+                        if (bytes != null && bytes.containsKey(getFullClassName())) {
+                            classBytes = bytes = Collections.unmodifiableMap(bytes);
+                        }
+                    }
+                }
+            }
+            return bytes;
+        }
+
+        /**
+         * The branch-traced copy of the primary class, instrumented on first
+         * request; every trace of this source reuses it and its jump sites.
+         */
+        public BranchTracer.Instrumented tracedClass(Function<ParsedSource, BranchTracer.Instrumented> instrumenter) {
+            BranchTracer.Instrumented traced = tracedClass;
+            if (traced == null) {
+                synchronized (this) {
+                    traced = tracedClass;
+                    if (traced == null) tracedClass = traced = instrumenter.apply(this);
+                }
+            }
+            return traced;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The instrumented copy takes the same branches as the original class, also
+ * for the floating-point corner cases (-0.0, NaN) the comparison helpers see.
+ */
+class BranchTracerTest {
+
+    /** Subject compiled with the tests; its class file is instrumented below. */
+    public static final class Subject {
+        public static int below(double x) {
+            if (x < 0.0) return 1;
+            return 0;
+        }
+
+        public static int above(double x) {
+            if (x > 0.0) return 1;
+            return 0;
+        }
+
+        public static int same(float x) {
+            if (x == 0.0f) return 1;
+            return 0;
+        }
+    }
+
+    /** Loads the instrumented bytes of {@link Subject} next to the original. */
+    private static Class<?> tracedSubject() throws Exception {
+        String name = Subject.class.getName();
+        byte[] original;
+        try (InputStream in = Subject.class.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            original = in.readAllBytes();
+        }
+        BranchTracer.Instrumented traced = BranchTracer.instrument(original, BranchTracerTest.class.getClassLoader());
+        ClassLoader loader = new ClassLoader(BranchTracerTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+                if (!className.equals(name)) return super.loadClass(className, resolve);
+                synchronized (getClassLoadingLock(className)) {
+                    Class<?> c = findLoadedClass(className);
+                    return c != null ? c : defineClass(className, traced.getBytes(), 0, traced.getBytes().length);
+                }
+            }
+        };
+        return loader.loadClass(name);
+    }
+
+    private static int run(Method m, Object arg) throws Exception {
+        BranchTracer.begin();
+        try {
+            return (int) m.invoke(null, arg);
+        } finally {
+            BranchTracer.end();
+        }
+    }
+
+    @Test
+    void negativeZeroComparesEqualToZero() throws Exception {
+        Class<?> traced = tracedSubject();
+        Method below = traced.getMethod("below", double.class);
+        Method above = traced.getMethod("above", double.class);
+        Method same = traced.getMethod("same", float.class);
+        for (double x : new double[] { -0.0, 0.0, -1.0, 1.0, Double.NaN }) {
+            assertEquals(Subject.below(x), run(below, x), "below(" + x + ")");
+            assertEquals(Subject.above(x), run(above, x), "above(" + x + ")");
+            assertEquals(Subject.same((float) x), run(same, (float) x), "same(" + x + ")");
+        }
+        assertNotSame(Subject.class, traced);
+    }
+}
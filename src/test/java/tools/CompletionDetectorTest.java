@@ -0,0 +1,80 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Completion detection on text fed in small chunks, the way a stream
+ * delivers it.
+ */
+class CompletionDetectorTest {
+
+    /** Feeds {@code text} in chunks of {@code size}; returns the detector. */
+    private static CompletionDetector feed(String kind, String text, int size) {
+        CompletionDetector detector = CompletionDetector.forKind(kind);
+        for (int i = 0; i < text.length() && !detector.isComplete(); i += size) {
+            detector.feed(text.substring(i, Math.min(text.length(), i + size)));
+        }
+        return detector;
+    }
+
+    @Test
+    void jsonArrayIsCutRightAfterTheClosingBracket() {
+        for (int size = 1; size <= 7; size++) {
+            CompletionDetector d = feed("json_array", "Sure! [note] Inputs: [[1, \"a]b\"], [3, {\"k\": [4]}]] Explanation follows.", size);
+            assertTrue(d.isComplete());
+            assertEquals("Sure! [note] Inputs: [[1, \"a]b\"], [3, {\"k\": [4]}]]", d.text());
+        }
+    }
+
+    @Test
+    void unfinishedJsonArrayIsNotComplete() {
+        CompletionDetector d = feed("json_array", "[[1, 2], [3", 2);
+        assertFalse(d.isComplete());
+        assertEquals("[[1, 2], [3", d.text());
+    }
+
+    @Test
+    void javaClassEndsAtItsClosingBrace() {
+        String cls = "public class FooTest {\n"
+                + "    char open = '{';\n"
+                + "    String close = \"}\";\n"
+                + "    // }\n"
+                + "    /* { */\n"
+                + "    void t() { if (true) { } }\n"
+                + "}";
+        for (int size = 1; size <= 5; size++) {
+            CompletionDetector d = feed("java_class", "```java\n" + cls + "\n```\nThis test covers every branch.", size);
+            assertTrue(d.isComplete());
+            assertEquals("```java\n" + cls, d.text());
+        }
+    }
+
+    @Test
+    void typeKeywordInProseDoesNotHideTheRealClass() {
+        String cls = "public class FooTest {\n    void t() { }\n}";
+        String prose = "Here's the test class for Foo, it's short:\n\n```java\n";
+        for (int size = 1; size <= 5; size++) {
+            CompletionDetector d = feed("java_class", prose + cls + "\n```\nIt's done.", size);
+            assertTrue(d.isComplete(), "chunk size " + size);
+            assertEquals(prose + cls, d.text());
+        }
+    }
+
+    @Test
+    void genericHeaderAndRecordComponentsAreAccepted() {
+        String cls = "record Pair<A, B>(A first, B[] second) implements java.io.Serializable {\n}";
+        CompletionDetector d = feed("java_class", cls + " trailing", 3);
+        assertTrue(d.isComplete());
+        assertEquals(cls, d.text());
+    }
+
+    @Test
+    void noneReadsEverything() {
+        CompletionDetector d = feed("none", "[1] class X { }", 2);
+        assertFalse(d.isComplete());
+        assertFalse(d.isStreamingUseful());
+        assertEquals("[1] class X { }", d.text());
+    }
+}
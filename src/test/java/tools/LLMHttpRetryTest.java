@@ -0,0 +1,138 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Retries, Retry-After and the adaptive concurrency cap against a stub
+ * server that injects 429 and 5xx answers.
+ */
+class LLMHttpRetryTest {
+
+    private static final String BODY = "{\"model\":\"stub\",\"messages\":[]}";
+
+    private static LLMHttp client(LLMRateControl control, int maxConcurrency) {
+        return new LLMHttp(Duration.ofSeconds(5), Duration.ofSeconds(30), maxConcurrency, control);
+    }
+
+    @Test
+    void transientErrorsAreRetriedUntilSuccess() throws Exception {
+        int[] statuses = { 502, 504, 200 };
+        try (StubServer server = new StubServer((exchange, i) -> {
+            StubServer.body(exchange);
+            StubServer.respond(exchange, statuses[i], statuses[i] == 200 ? StubServer.chatCompletion("ok") : "{\"error\":\"busy\"}");
+        })) {
+            LLMRateControl control = new LLMRateControl(2, 0, 0, 3);
+            HttpResponse<String> response = client(control, 2).postJson(server.url(), null, BODY);
+            assertEquals(200, response.statusCode());
+            assertEquals(3, server.requestCount());
+            assertEquals(2, control.getRetries());
+            assertEquals(0, control.getThrottled(), "502/504 are not throttling answers");
+        }
+    }
+
+    @Test
+    void lastAnswerIsReturnedWhenRetriesRunOut() throws Exception {
+        try (StubServer server = new StubServer((exchange, i) -> {
+            StubServer.body(exchange);
+            StubServer.respond(exchange, 503, "{\"error\":\"overloaded\"}");
+        })) {
+            LLMRateControl control = new LLMRateControl(2, 0, 0, 2);
+            LLMHttp http = client(control, 2);
+            HttpResponse<String> response = http.postJson(server.url(), null, BODY);
+            assertEquals(503, response.statusCode());
+            assertEquals(3, server.requestCount(), "first try plus maxRetries");
+            assertEquals(2, control.getRetries());
+            assertThrows(LLMHttp.StatusException.class, () -> LLMHttp.completionContent(response));
+            assertEquals(0, http.getInFlight());
+        }
+    }
+
+    @Test
+    void streamedCallFailsWithTheStatusWhenRetriesRunOut() throws Exception {
+        try (StubServer server = new StubServer((exchange, i) -> {
+            StubServer.body(exchange);
+            StubServer.respond(exchange, 500, "{\"error\":\"boom\"}");
+        })) {
+            LLMRateControl control = new LLMRateControl(2, 0, 0, 1);
+            JsonObject request = new JsonObject();
+            request.add("messages", new JsonArray());
+            CompletableFuture<LLMCompletion> call = client(control, 2)
+                    .streamChatAsync(server.url(), null, request, CompletionDetector.forKind("json_array"));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(LLMHttp.StatusException.class, e.getCause());
+            assertEquals(500, ((LLMHttp.StatusException) e.getCause()).getStatusCode());
+            assertEquals(2, server.requestCount());
+        }
+    }
+
+    @Test
+    void retryAfterIsHonoured() throws Exception {
+        try (StubServer server = new StubServer((exchange, i) -> {
+            StubServer.body(exchange);
+            if (i == 0) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                StubServer.respond(exchange, 429, "{\"error\":\"rate limited\"}");
+            } else {
+                StubServer.respond(exchange, 200, StubServer.chatCompletion("ok"));
+            }
+        })) {
+            LLMRateControl control = new LLMRateControl(2, 0, 0, 3);
+            long start = System.nanoTime();
+            HttpResponse<String> response = client(control, 2).postJson(server.url(), null, BODY);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(200, response.statusCode());
+            assertTrue(elapsed >= 1000, "waited for Retry-After, took " + elapsed + " ms");
+            assertTrue(elapsed < 3000, "did not wait much longer, took " + elapsed + " ms");
+            assertEquals(1, control.getThrottled());
+        }
+    }
+
+    @Test
+    void throttleHalvesTheCapAndQueuedCallsAreReadmitted() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        try (StubServer server = new StubServer((exchange, i) -> {
+            StubServer.body(exchange);
+            if (i == 0) {
+                exchange.getResponseHeaders().set("Retry-After", "0");
+                StubServer.respond(exchange, 429, "{\"error\":\"rate limited\"}");
+                return;
+            }
+            gate.await(10, TimeUnit.SECONDS);
+            StubServer.respond(exchange, 200, StubServer.chatCompletion("ok"));
+        })) {
+            LLMRateControl control = new LLMRateControl(4, 0, 0, 3);
+            LLMHttp http = client(control, 4);
+            List<CompletableFuture<HttpResponse<String>>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) calls.add(http.postJsonAsync(server.url(), null, BODY));
+
+            // 4 istek kabul edildi, biri 429 aldı: sınır 2'ye iner, uçuşta 3 istek kalır
+            LLMHttpTest.waitUntil(() -> control.getThrottled() == 1 && server.requestCount() == 4);
+            assertEquals(2, control.currentLimit());
+            Thread.sleep(300);
+            assertEquals(4, server.requestCount(), "nothing admitted while in flight >= the halved cap");
+            assertEquals(3, http.getInFlight());
+            assertEquals(5, http.getWaiting(), "4 never started plus the retry of the throttled call");
+
+            gate.countDown();
+            for (CompletableFuture<HttpResponse<String>> call : calls) {
+                assertEquals(200, call.get(10, TimeUnit.SECONDS).statusCode());
+            }
+            assertEquals(9, server.requestCount());
+            assertEquals(0, http.getInFlight());
+            assertEquals(0, http.getWaiting());
+            assertTrue(control.currentLimit() >= 2 && control.currentLimit() <= 4);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Streamed completions against a local SSE stub that keeps talking after
+ * the answer is complete: the client must cut the text and close the stream.
+ */
+class LLMHttpStreamingTest {
+
+    private static final int TRAILING_EVENTS = 250;
+
+    private static JsonObject request() {
+        JsonObject user = new JsonObject();
+        user.addProperty("role", "user");
+        user.addProperty("content", "inputs please");
+        JsonArray messages = new JsonArray();
+        messages.add(user);
+        JsonObject body = new JsonObject();
+        body.addProperty("model", "stub");
+        body.add("messages", messages);
+        return body;
+    }
+
+    @Test
+    void streamIsCancelledOnceTheArrayIsComplete() throws Exception {
+        CountDownLatch disconnected = new CountDownLatch(1);
+        AtomicInteger trailingSent = new AtomicInteger();
+        try (StubServer server = new StubServer((exchange, i) -> {
+            StubServer.body(exchange);
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            try {
+                for (String chunk : new String[] { "Inputs: [[1, ", "2], [3", "]]" }) {
+                    write(out, StubServer.deltaEvent(chunk));
+                }
+                // Cevap tamamlandı; gerçek bir model açıklamaya devam ederdi
+                for (int n = 0; n < TRAILING_EVENTS; n++) {
+                    Thread.sleep(20);
+                    write(out, StubServer.deltaEvent(" and this is why the inputs work"));
+                    trailingSent.incrementAndGet();
+                }
+                write(out, "data: [DONE]\n\n");
+            } catch (IOException e) {
+                disconnected.countDown(); // istemci akışı kapattı
+            }
+        })) {
+            LLMHttp http = new LLMHttp(Duration.ofSeconds(5), Duration.ofSeconds(30), 2, new LLMRateControl(2, 0, 0, 0));
+            LLMCompletion completion = http.streamChatAsync(server.url(), null, request(),
+                    CompletionDetector.forKind("json_array")).get(10, TimeUnit.SECONDS);
+
+            assertEquals("Inputs: [[1, 2], [3]]", completion.getText());
+            assertTrue(completion.isEstimated(), "cut before the usage event, so usage is estimated");
+            assertTrue(disconnected.await(5, TimeUnit.SECONDS), "server saw the stream closed");
+            assertTrue(trailingSent.get() < TRAILING_EVENTS, "request cancelled before the model finished");
+            assertEquals(0, http.getInFlight());
+        }
+    }
+
+    @Test
+    void streamWithoutCompletePartIsReadToTheEnd() throws Exception {
+        try (StubServer server = new StubServer((exchange, i) -> {
+            StubServer.body(exchange);
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                write(out, ": keep-alive comment\n\n");
+                write(out, StubServer.deltaEvent("no array "));
+                write(out, StubServer.deltaEvent("here"));
+                write(out, "data: {\"choices\":[],\"usage\":{\"prompt_tokens\":7,\"completion_tokens\":3}}\n\n");
+                write(out, "data: [DONE]\n\n");
+            }
+        })) {
+            LLMHttp http = new LLMHttp(Duration.ofSeconds(5), Duration.ofSeconds(30), 2, new LLMRateControl(2, 0, 0, 0));
+            LLMCompletion completion = http.streamChatAsync(server.url(), null, request(),
+                    CompletionDetector.forKind("json_array")).get(10, TimeUnit.SECONDS);
+
+            assertEquals("no array here", completion.getText());
+            assertFalse(completion.isEstimated());
+            assertEquals(7, completion.getPromptTokens());
+            assertEquals(3, completion.getCompletionTokens());
+        }
+    }
+
+    private static void write(OutputStream out, String data) throws IOException {
+        out.write(data.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
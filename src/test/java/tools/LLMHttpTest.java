@@ -0,0 +1,120 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The pooled client against a local stub server: connection reuse, the
+ * FIFO concurrency cap and the request timeout.
+ */
+class LLMHttpTest {
+
+    private static final String BODY = "{\"model\":\"stub\",\"messages\":[]}";
+
+    /** No rate limits and no retries, so each call is exactly one request. */
+    private static LLMHttp client(int maxConcurrency, Duration requestTimeout) {
+        return new LLMHttp(Duration.ofSeconds(5), requestTimeout, maxConcurrency,
+                new LLMRateControl(maxConcurrency, 0, 0, 0));
+    }
+
+    @Test
+    void sequentialCallsReuseOneConnection() throws Exception {
+        try (StubServer server = new StubServer((exchange, i) -> {
+            StubServer.body(exchange);
+            StubServer.respond(exchange, 200, StubServer.chatCompletion("answer " + i));
+        })) {
+            LLMHttp http = client(4, Duration.ofSeconds(5));
+            for (int i = 0; i < 3; i++) {
+                HttpResponse<String> response = http.postJson(server.url(), "key", BODY);
+                assertEquals("answer " + i, LLMHttp.completionContent(response));
+            }
+            assertEquals(3, server.requestCount());
+            assertEquals(1, new HashSet<>(server.clientPorts()).size(), "keep-alive: one connection for all calls");
+        }
+    }
+
+    @Test
+    void concurrencyIsCappedAndTheRestWait() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        try (StubServer server = new StubServer((exchange, i) -> {
+            StubServer.body(exchange);
+            gate.await(5, TimeUnit.SECONDS);
+            StubServer.respond(exchange, 200, StubServer.chatCompletion("ok"));
+        })) {
+            LLMHttp http = client(2, Duration.ofSeconds(10));
+            List<CompletableFuture<HttpResponse<String>>> calls = new ArrayList<>();
+            for (int i = 0; i < 6; i++) calls.add(http.postJsonAsync(server.url(), null, BODY));
+
+            waitUntil(() -> server.requestCount() == 2);
+            Thread.sleep(200); // kuyruktakiler sızacaksa şimdi sızar
+            assertEquals(2, server.requestCount());
+            assertEquals(2, http.getInFlight());
+            assertEquals(4, http.getWaiting());
+
+            gate.countDown();
+            for (CompletableFuture<HttpResponse<String>> call : calls) {
+                assertEquals(200, call.get(10, TimeUnit.SECONDS).statusCode());
+            }
+            assertEquals(6, server.requestCount());
+            assertEquals(2, server.peakConcurrency());
+            assertEquals(0, http.getInFlight());
+            assertEquals(0, http.getWaiting());
+        }
+    }
+
+    @Test
+    void queuedCallsStartInSubmissionOrder() throws Exception {
+        List<String> arrived = Collections.synchronizedList(new ArrayList<>());
+        try (StubServer server = new StubServer((exchange, i) -> {
+            arrived.add(StubServer.body(exchange));
+            Thread.sleep(50);
+            StubServer.respond(exchange, 200, StubServer.chatCompletion("ok"));
+        })) {
+            LLMHttp http = client(1, Duration.ofSeconds(10));
+            List<CompletableFuture<HttpResponse<String>>> calls = new ArrayList<>();
+            List<String> sent = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                String body = "{\"n\":" + i + "}";
+                sent.add(body);
+                calls.add(http.postJsonAsync(server.url(), null, body));
+            }
+            for (CompletableFuture<HttpResponse<String>> call : calls) call.get(10, TimeUnit.SECONDS);
+            assertEquals(sent, arrived);
+            assertEquals(1, server.peakConcurrency());
+        }
+    }
+
+    @Test
+    void slowAnswerFailsWithTheRequestTimeout() throws Exception {
+        try (StubServer server = new StubServer((exchange, i) -> {
+            StubServer.body(exchange);
+            Thread.sleep(3000);
+            StubServer.respond(exchange, 200, StubServer.chatCompletion("too late"));
+        })) {
+            LLMHttp http = client(1, Duration.ofMillis(300));
+            long start = System.nanoTime();
+            assertThrows(HttpTimeoutException.class, () -> http.postJson(server.url(), null, BODY));
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2000), "gave up near the timeout");
+            assertEquals(0, http.getInFlight(), "the slot is released after a timeout");
+        }
+    }
+
+    static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("condition not reached in 5 s");
+            Thread.sleep(10);
+        }
+    }
+}
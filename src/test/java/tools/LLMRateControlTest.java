@@ -0,0 +1,74 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import org.junit.jupiter.api.Test;
+
+/**
+ * AIMD concurrency cap, Retry-After parsing and backoff bounds.
+ */
+class LLMRateControlTest {
+
+    @Test
+    void throttleHalvesTheCapOncePerQuietPeriod() {
+        LLMRateControl control = new LLMRateControl(8, 0, 0, 3);
+        assertEquals(8, control.currentLimit());
+        control.onThrottle();
+        assertEquals(4, control.currentLimit());
+        control.onThrottle(); // aynı pencereden gelen ikinci 429 tekrar yarıya indirmez
+        assertEquals(4, control.currentLimit());
+        assertEquals(2, control.getThrottled());
+    }
+
+    @Test
+    void successesGrowTheCapBackUpToTheMaximum() {
+        LLMRateControl control = new LLMRateControl(8, 0, 0, 3);
+        control.onThrottle();
+        int successes = 0;
+        while (control.currentLimit() == 4) {
+            control.onSuccess();
+            successes++;
+        }
+        assertEquals(5, control.currentLimit());
+        assertEquals(5, successes, "about one step per window of successes");
+        for (int i = 0; i < 1000; i++) control.onSuccess();
+        assertEquals(8, control.currentLimit());
+    }
+
+    @Test
+    void capNeverDropsBelowOne() throws InterruptedException {
+        LLMRateControl control = new LLMRateControl(2, 0, 0, 3);
+        control.onThrottle();
+        Thread.sleep(1100);
+        control.onThrottle();
+        assertEquals(1, control.currentLimit());
+    }
+
+    @Test
+    void retryAfterIsParsedAndCapped() {
+        assertEquals(2000L, LLMRateControl.parseRetryAfter("2"));
+        assertEquals(1500L, LLMRateControl.parseRetryAfter(" 1.5 "));
+        assertEquals(0L, LLMRateControl.parseRetryAfter("-4"));
+        assertEquals(30_000L, LLMRateControl.parseRetryAfter("3600"));
+        String past = ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(5).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        assertEquals(0L, LLMRateControl.parseRetryAfter(past));
+        String farFuture = ZonedDateTime.now(ZoneOffset.UTC).plusHours(2).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        assertEquals(30_000L, LLMRateControl.parseRetryAfter(farFuture));
+        assertNull(LLMRateControl.parseRetryAfter("soon"));
+        assertNull(LLMRateControl.parseRetryAfter(null));
+    }
+
+    @Test
+    void backoffStaysWithinItsBounds() {
+        for (int i = 0; i < 200; i++) {
+            long withHeader = LLMRateControl.backoffMillis(0, "3600");
+            assertTrue(withHeader >= 30_000 && withHeader < 30_250, "capped Retry-After plus jitter");
+            assertTrue(LLMRateControl.backoffMillis(0, null) <= 500);
+            assertTrue(LLMRateControl.backoffMillis(2, null) <= 2000);
+            assertTrue(LLMRateControl.backoffMillis(30, null) <= 30_000);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Repeated requests keep their own slot when their answers complete out of
+ * order, and an empty slot replays as a miss.
+ */
+class LLMResponseCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private static JsonArray messages() {
+        JsonObject user = new JsonObject();
+        user.addProperty("role", "user");
+        user.addProperty("content", "same prompt");
+        JsonArray messages = new JsonArray();
+        messages.add(user);
+        return messages;
+    }
+
+    @Test
+    void laterOccurrenceCompletingFirstKeepsItsSlot() throws Exception {
+        LLMResponseCache record = new LLMResponseCache(LLMResponseCache.Mode.RECORD, dir);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        CompletableFuture<String> a = record.completeAsync("m", 0.7, messages(), () -> first);
+        CompletableFuture<String> b = record.completeAsync("m", 0.7, messages(), () -> second);
+        second.complete("answer 2");
+        first.complete("answer 1");
+        assertEquals("answer 1", a.get(5, TimeUnit.SECONDS));
+        assertEquals("answer 2", b.get(5, TimeUnit.SECONDS));
+
+        LLMResponseCache replay = new LLMResponseCache(LLMResponseCache.Mode.REPLAY, dir);
+        assertEquals("answer 1", replay.complete("m", 0.7, messages(), () -> fail("replay must not call")));
+        assertEquals("answer 2", replay.complete("m", 0.7, messages(), () -> fail("replay must not call")));
+    }
+
+    @Test
+    void emptySlotIsAMiss() throws Exception {
+        LLMResponseCache record = new LLMResponseCache(LLMResponseCache.Mode.RECORD, dir);
+        CompletableFuture<String> lost = record.completeAsync("m", 0.7, messages(),
+                () -> CompletableFuture.failedFuture(new java.io.IOException("connection reset")));
+        CompletableFuture<String> kept = record.completeAsync("m", 0.7, messages(),
+                () -> CompletableFuture.completedFuture("answer 2"));
+        assertThrows(ExecutionException.class, lost::get);
+        assertEquals("answer 2", kept.get());
+
+        LLMResponseCache replay = new LLMResponseCache(LLMResponseCache.Mode.REPLAY, dir);
+        assertThrows(LLMResponseCache.ReplayMissException.class,
+                () -> replay.complete("m", 0.7, messages(), () -> fail("replay must not call")));
+        assertEquals("answer 2", replay.complete("m", 0.7, messages(), () -> fail("replay must not call")));
+
+        LLMResponseCache readThrough = new LLMResponseCache(LLMResponseCache.Mode.READTHROUGH, dir);
+        assertEquals("answer 1", readThrough.complete("m", 0.7, messages(), () -> "answer 1"));
+        assertEquals(1, readThrough.getMisses());
+    }
+}
@@ -0,0 +1,38 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Exports leave the calling thread alone and a burst of changes is written
+ * once, with the totals of the whole burst.
+ */
+class LLMTelemetryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void burstIsExportedLaterInOneWrite() throws Exception {
+        LLMTelemetry telemetry = new LLMTelemetry(dir.resolve("llm-telemetry"), null);
+        Path json = dir.resolve("llm-telemetry.json");
+        for (int i = 0; i < 200; i++) {
+            telemetry.start("Foo", "agent", "input", "stub").track(CompletableFuture.completedFuture("ok"));
+            telemetry.recordProgress("Foo", 1, 0);
+        }
+        assertFalse(Files.exists(json), "nothing written on the calling thread");
+
+        // .prom, .json'dan sonra yazılır: o da varsa dışa aktarım bitmiştir
+        Path prom = dir.resolve("llm-telemetry.prom");
+        LLMHttpTest.waitUntil(() -> Files.exists(prom));
+        String written = Files.readString(json, StandardCharsets.UTF_8);
+        assertTrue(written.contains("\"calls\": 200"), written);
+        assertTrue(written.contains("\"newLines\": 200"), written);
+    }
+}
@@ -0,0 +1,55 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The {@code .length} and constant-index reads an explanation shows are
+ * compiled with the path, not on every explain call.
+ */
+class PathConstraintsTest {
+
+    private static PathConstraints constraintsOf(String condition, String params) {
+        String source = "public class Subject {\n"
+                + "    int f(" + params + ") {\n"
+                + "        if (" + condition + ") {\n"
+                + "            return 1;\n"
+                + "        }\n"
+                + "        return 0;\n"
+                + "    }\n"
+                + "}";
+        SourceCache.ParsedSource parsed = SourceCache.get(source);
+        MethodDeclaration method = parsed.getCompilationUnit().findFirst(MethodDeclaration.class).orElseThrow();
+        IfStmt branch = method.findFirst(IfStmt.class).orElseThrow();
+        PathTree tree = new PathTree(parsed);
+        PathTree.Node node = tree.child(tree.root(), branch.getCondition(), false, null, Collections.emptyMap());
+        return tree.addPath(4, "PATH_TO_IF", node, method).constraints();
+    }
+
+    @Test
+    void arrayViewsAreCompiledWithThePath() {
+        PathConstraints.Conjunct conjunct = constraintsOf("values.length > 2 && values[0] < values[n]", "int[] values, int n")
+                .getConjuncts().get(0);
+        Map<String, ExpressionCompiler.CompiledExpr> views = conjunct.getArrayViews();
+        assertEquals(Arrays.asList("values.length", "values[0]"), new ArrayList<>(views.keySet()), "only constant indexes");
+        assertSame(views.get("values[0]"), conjunct.getArrayViews().get("values[0]"));
+    }
+
+    @Test
+    void arrayViewsReadTheInput() {
+        PathConstraints constraints = constraintsOf("values.length > 2 && values[1] == 7", "int[] values");
+        Map<String, ExpressionCompiler.CompiledExpr> views = constraints.getConjuncts().get(0).getArrayViews();
+        ExpressionCompiler.Frame frame = constraints.getLayout().fromJson(new Gson().fromJson("[[4, 7, 9]]", JsonArray.class));
+        assertEquals(3.0, views.get("values.length").num(frame));
+        assertEquals(7.0, views.get("values[1]").num(frame));
+    }
+}
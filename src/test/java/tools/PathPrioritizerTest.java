@@ -0,0 +1,72 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.IfStmt;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hit chances from per-node tallies match the pairwise definition: a path
+ * shares the attempts of the paths ending on its chain and of the paths
+ * below it.
+ */
+class PathPrioritizerTest {
+
+    private static final String SOURCE = String.join("\n",
+            "public class Nested {",
+            "    int f(int x, int y) {",
+            "        if (x > 0) {",
+            "            if (y > 0) {",
+            "                return 1;",
+            "            }",
+            "        }",
+            "        if (y < -5) {",
+            "            return 2;",
+            "        }",
+            "        return 0;",
+            "    }",
+            "}");
+
+    @Test
+    void hitChanceCountsAncestorsDescendantsAndSameLeafOnce() {
+        SourceCache.ParsedSource parsed = SourceCache.get(SOURCE);
+        MethodDeclaration method = parsed.getCompilationUnit().findFirst(MethodDeclaration.class).orElseThrow();
+        List<IfStmt> ifs = method.findAll(IfStmt.class);
+        PathTree tree = new PathTree(parsed);
+        PathTree.Node a = tree.child(tree.root(), ifs.get(0).getCondition(), false, null, Collections.emptyMap());
+        PathTree.Node b = tree.child(a, ifs.get(1).getCondition(), false, null, Collections.emptyMap());
+        PathTree.Node c = tree.child(tree.root(), ifs.get(2).getCondition(), false, null, Collections.emptyMap());
+        PathTree.LogicPath outer = tree.addPath(4, "PATH_TO_IF", a, method);
+        PathTree.LogicPath inner = tree.addPath(5, "PATH_TO_IF", b, method);
+        PathTree.LogicPath sibling = tree.addPath(9, "PATH_TO_IF", c, method);
+        PathTree.LogicPath sameLeaf = tree.addPath(3, "TARGET_LOOP_ENTER", a, method);
+
+        PathPrioritizer prioritizer = new PathPrioritizer();
+        prioritizer.record(outer.getId(), false);
+        prioritizer.record(inner.getId(), true);
+        prioritizer.record(inner.getId(), false);
+        prioritizer.record(sibling.getId(), false);
+        prioritizer.record(sibling.getId(), false);
+        prioritizer.record(sibling.getId(), false);
+        prioritizer.record(sameLeaf.getId(), true);
+
+        Map<Integer, Double> chance = new HashMap<>();
+        for (PathPrioritizer.Ranked r : prioritizer.rank(
+                List.of(outer.getId(), inner.getId(), sibling.getId(), sameLeaf.getId()),
+                Collections.emptySet(), Collections.emptySet())) {
+            chance.put(r.pathId, r.hitChance);
+        }
+        // outer/sameLeaf: outer, inner (below), sameLeaf -> 4 deneme, 2 isabet
+        assertEquals(3.0 / 6, chance.get(outer.getId()), 1e-9);
+        assertEquals(3.0 / 6, chance.get(sameLeaf.getId()), 1e-9);
+        // inner: kendisi ve zincirinde biten outer, sameLeaf -> 4 deneme, 2 isabet
+        assertEquals(3.0 / 6, chance.get(inner.getId()), 1e-9);
+        // sibling: yalnız kendi 3 ıskalaması
+        assertEquals(1.0 / 5, chance.get(sibling.getId()), 1e-9);
+    }
+}
@@ -0,0 +1,58 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import java.util.Collections;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Branch distances that come out NaN or infinite (0/0, x/0, sqrt of a
+ * negative) count as unsatisfied and do not stop the search; a returned
+ * input always satisfies the path condition.
+ */
+class PathSearchTest {
+
+    private static PathConstraints constraintsOf(String condition, String params) {
+        String source = "public class Subject {\n"
+                + "    int f(" + params + ") {\n"
+                + "        if (" + condition + ") {\n"
+                + "            return 1;\n"
+                + "        }\n"
+                + "        return 0;\n"
+                + "    }\n"
+                + "}";
+        SourceCache.ParsedSource parsed = SourceCache.get(source);
+        MethodDeclaration method = parsed.getCompilationUnit().findFirst(MethodDeclaration.class).orElseThrow();
+        IfStmt branch = method.findFirst(IfStmt.class).orElseThrow();
+        PathTree tree = new PathTree(parsed);
+        PathTree.Node node = tree.child(tree.root(), branch.getCondition(), false, null, Collections.emptyMap());
+        return tree.addPath(4, "PATH_TO_IF", node, method).constraints();
+    }
+
+    private static void assertSolves(PathConstraints constraints, Optional<String> found) {
+        assertTrue(found.isPresent(), "an input exists");
+        JsonArray args = new Gson().fromJson(found.get(), JsonArray.class);
+        assertTrue(constraints.holds(constraints.getLayout().fromJson(args)), "returned input holds: " + found.get());
+    }
+
+    @Test
+    void nanDistanceIsNotSatisfied() {
+        PathConstraints ratio = constraintsOf("a / b > 1.0", "double a, double b");
+        assertSolves(ratio, new PathSearch(ratio).search("[0, 0]"));
+
+        PathConstraints root = constraintsOf("Math.sqrt(a) == 3.0", "double a");
+        assertSolves(root, new PathSearch(root).search("[-1]"));
+    }
+
+    @Test
+    void infiniteDistanceDoesNotEndTheSearch() {
+        // 1.0 / 0 = Infinity: mesafe sonsuz, eskiden uygunluk NaN olup aramayı bitiriyordu
+        PathConstraints ratio = constraintsOf("a / b < 1.0", "double a, double b");
+        assertSolves(ratio, new PathSearch(ratio).search("[1, 0]"));
+    }
+}
@@ -0,0 +1,71 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.IfStmt;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Field writes outside the sliced method reach the slice; locals and
+ * parameters of those members, and unrelated fields, stay out.
+ */
+class ProgramSlicerTest {
+
+    private static final String SOURCE = String.join("\n",
+            "public class Account {",                                   // 1
+            "    private double balance;",                              // 2
+            "    private double limit = 100;",                          // 3
+            "    private String owner;",                                // 4
+            "    public Account(double initial, String owner) {",       // 5
+            "        double start = initial * 2;",                      // 6
+            "        if (initial > 0) {",                               // 7
+            "            this.balance = start;",                        // 8
+            "        }",                                                // 9
+            "        this.owner = owner;",                              // 10
+            "    }",                                                    // 11
+            "    public void deposit(double balance) {",                // 12
+            "        balance = balance + 1;",                           // 13
+            "    }",                                                    // 14
+            "    public void reset() {",                                // 15
+            "        balance = limit;",                                 // 16
+            "    }",                                                    // 17
+            "    public boolean withdraw(double amount) {",             // 18
+            "        if (amount > balance) {",                          // 19
+            "            return false;",                                // 20
+            "        }",                                                // 21
+            "        return true;",                                     // 22
+            "    }",                                                    // 23
+            "}");
+
+    /** The path into the first if of {@code methodName}, targeting {@code targetLine}. */
+    private static PathTree.LogicPath pathInto(String methodName, int targetLine) {
+        SourceCache.ParsedSource parsed = SourceCache.get(SOURCE);
+        MethodDeclaration method = parsed.getCompilationUnit().findFirst(MethodDeclaration.class,
+                m -> m.getNameAsString().equals(methodName)).orElseThrow();
+        IfStmt branch = method.findFirst(IfStmt.class).orElseThrow();
+        PathTree tree = new PathTree(parsed);
+        PathTree.Node node = tree.child(tree.root(), branch.getCondition(), false, null, Collections.emptyMap());
+        return tree.addPath(targetLine, "PATH_TO_IF", node, method);
+    }
+
+    @Test
+    void constructorAndOtherMethodWritesOfAFieldAreIncluded() {
+        SortedSet<Integer> lines = ProgramSlicer.slice(pathInto("withdraw", 20));
+        assertTrue(lines.containsAll(List.of(18, 19, 20)), lines.toString());
+        assertTrue(lines.containsAll(List.of(5, 7, 8)), "constructor header, guard and write: " + lines);
+        assertTrue(lines.containsAll(List.of(15, 16)), "reset() writes balance from limit: " + lines);
+        assertTrue(lines.contains(3), "limit is read by a write of balance: " + lines);
+    }
+
+    @Test
+    void membersLocalsParametersAndUnrelatedFieldsStayOut() {
+        SortedSet<Integer> lines = ProgramSlicer.slice(pathInto("withdraw", 20));
+        assertFalse(lines.contains(6), "start is a constructor local: " + lines);
+        assertFalse(lines.contains(10), "owner is not wanted: " + lines);
+        assertFalse(lines.contains(13), "deposit writes its parameter, not the field: " + lines);
+    }
+}
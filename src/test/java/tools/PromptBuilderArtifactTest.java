@@ -0,0 +1,40 @@
+package tools;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The agents prepend to the attempt and input lists, so truncation keeps
+ * the head (newest) and summarizes the tail.
+ */
+class PromptBuilderArtifactTest {
+
+    private static Object[] attempt(String input, String reason) {
+        return new Object[] { input, reason };
+    }
+
+    @Test
+    void newestFailuresAreShownInFull() {
+        Object[] attempts = {
+            attempt("[4]", "x > 3 held"),   // en yeni
+            attempt("[3]", "x < 3 failed"),
+            attempt("[2]", "x < 2 failed"),
+            attempt("[1]", "x < 2 failed"), // en eski
+        };
+        String text = PromptBuilderArtifact.failures(attempts, 2);
+        assertTrue(text.contains("Input: [4]") && text.contains("Input: [3]"), text);
+        assertFalse(text.contains("Input: [2]") || text.contains("Input: [1]"), text);
+        assertTrue(text.contains("2 earlier attempts also failed: [2], [1]"), text);
+        assertTrue(text.contains("Most common reason: x < 2 failed"), text);
+        assertTrue(text.indexOf("Input: [4]") < text.indexOf("Input: [3]"), "newest first: " + text);
+    }
+
+    @Test
+    void avoidListKeepsTheNewestInputs() {
+        Object[] inputs = { "[5]", "[4]", "[3]", "[2]", "[1]" };
+        assertEquals("[[5], [4]] (and 3 earlier inputs)", PromptBuilderArtifact.avoidList(inputs, 2));
+        assertEquals("[[5], [4], [3], [2], [1]]", PromptBuilderArtifact.avoidList(inputs, 20));
+        assertEquals("[]", PromptBuilderArtifact.avoidList(new Object[0], 2));
+    }
+}
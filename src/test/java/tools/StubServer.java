@@ -0,0 +1,123 @@
+package tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local HTTP server standing in for an OpenAI-compatible endpoint, so the
+ * LLM client can be tested without network access. Each request is answered
+ * by the {@link Handler} on its own thread; the server records the client
+ * port of every request (one port = one reused connection) and tracks how
+ * many requests are being handled at once.
+ */
+final class StubServer implements AutoCloseable {
+
+    /** Answers one request; {@code index} counts requests from 0. */
+    interface Handler {
+        void handle(HttpExchange exchange, int index) throws Exception;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final List<Integer> clientPorts = Collections.synchronizedList(new ArrayList<>());
+
+    StubServer(Handler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            int index = requests.getAndIncrement();
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                handler.handle(exchange, index);
+            } catch (Exception e) {
+                // Akış testlerinde istemci bağlantıyı keser; yazma hatası beklenen durum
+            } finally {
+                active.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    int requestCount() { return requests.get(); }
+
+    /** Most requests handled at the same time. */
+    int peakConcurrency() { return peak.get(); }
+
+    List<Integer> clientPorts() {
+        synchronized (clientPorts) {
+            return new ArrayList<>(clientPorts);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    static String body(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** A non-streamed chat completion whose answer is {@code content}. */
+    static String chatCompletion(String content) {
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "assistant");
+        message.addProperty("content", content);
+        JsonObject choice = new JsonObject();
+        choice.add("message", message);
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+        JsonObject usage = new JsonObject();
+        usage.addProperty("prompt_tokens", 10);
+        usage.addProperty("completion_tokens", 5);
+        usage.addProperty("total_tokens", 15);
+        JsonObject response = new JsonObject();
+        response.add("choices", choices);
+        response.add("usage", usage);
+        return response.toString();
+    }
+
+    /** One server-sent event carrying a content delta. */
+    static String deltaEvent(String content) {
+        JsonObject delta = new JsonObject();
+        delta.addProperty("content", content);
+        JsonObject choice = new JsonObject();
+        choice.add("delta", delta);
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+        JsonObject event = new JsonObject();
+        event.add("choices", choices);
+        return "data: " + event + "\n\n";
+    }
+}